@@ -0,0 +1,50 @@
+package tacs.eventos.benchmarks;
+
+import tacs.eventos.model.RolUsuario;
+import tacs.eventos.model.Usuario;
+import tacs.eventos.model.evento.Evento;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Genera eventos de prueba, siempre los mismos para la misma cantidad, para que las corridas sean comparables.
+ */
+final class CatalogoSintetico {
+    static final String[] CATEGORIAS = { "Tecnología", "Desarrollo", "Seguridad", "DevOps", "Música", "Deportes",
+            "Arte", "Gastronomía" };
+    private static final String[] PALABRAS = { "conferencia", "taller", "introducción", "avanzado", "programación",
+            "seguridad", "datos", "nube", "música", "en", "vivo", "cocina", "regional", "maratón", "aprendé",
+            "herramientas", "prácticas", "desarrollo", "comunidad", "encuentro" };
+    static final LocalDateTime INICIO = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private CatalogoSintetico() {
+    }
+
+    static List<Evento> eventos(int cantidad) {
+        Random random = new Random(42);
+        Usuario organizador = new Usuario("organizador@bench.local", "hash", Set.of(RolUsuario.ORGANIZADOR));
+        List<Evento> eventos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Evento evento = new Evento(frase(random, 4), frase(random, 20), INICIO.plusHours(random.nextInt(24 * 365)),
+                    30 + random.nextInt(240), "Sede " + random.nextInt(100), 10 + random.nextInt(1000),
+                    random.nextInt(20000), CATEGORIAS[random.nextInt(CATEGORIAS.length)]);
+            evento.setOrganizador(organizador);
+            eventos.add(evento);
+        }
+        return eventos;
+    }
+
+    private static String frase(Random random, int palabras) {
+        StringBuilder frase = new StringBuilder();
+        for (int i = 0; i < palabras; i++) {
+            if (i > 0)
+                frase.append(' ');
+            frase.append(PALABRAS[random.nextInt(PALABRAS.length)]);
+        }
+        return frase.toString();
+    }
+}
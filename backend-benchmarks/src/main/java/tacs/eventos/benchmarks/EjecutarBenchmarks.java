@@ -0,0 +1,25 @@
+package tacs.eventos.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ejecuta los benchmarks con la línea de comandos de JMH, pero guardando por defecto los resultados en JSON (en
+ * jmh-resultados.json), para poder comparar dos corridas. Se pueden pasar las mismas opciones que a JMH; por ejemplo,
+ * <code>java -jar target/benchmarks.jar Waitlist -rff antes.json</code>.
+ */
+public class EjecutarBenchmarks {
+    private static final String ARCHIVO_RESULTADOS = "jmh-resultados.json";
+
+    public static void main(String[] args) throws Exception {
+        List<String> opciones = new ArrayList<>(Arrays.asList(args));
+        if (!opciones.contains("-rf"))
+            opciones.addAll(List.of("-rf", "json"));
+        if (!opciones.contains("-rff"))
+            opciones.addAll(List.of("-rff", ARCHIVO_RESULTADOS));
+        Main.main(opciones.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,62 @@
+package tacs.eventos.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tacs.eventos.model.evento.Evento;
+import tacs.eventos.repository.FiltroBusqueda;
+import tacs.eventos.repository.evento.busqueda.FiltradoPorCategoria;
+import tacs.eventos.repository.evento.busqueda.FiltradoPorFechaInicio;
+import tacs.eventos.repository.evento.busqueda.FiltradoPorPalabrasClave;
+import tacs.eventos.repository.evento.busqueda.FiltradoPorPrecio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aplica en memoria la cadena de filtros de búsqueda sobre catálogos de distintos tamaños, como lo hace el repositorio
+ * de eventos con los filtros que no se pueden traducir a un Criteria.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FiltrosBusquedaBenchmark {
+    @Param({ "1000", "100000", "1000000" })
+    private int eventos;
+
+    /* sinPalabrasClave: precio, fecha y categoría. todos: además, palabras clave */
+    @Param({ "sinPalabrasClave", "todos" })
+    private String filtrosAplicados;
+
+    private List<Evento> catalogo;
+    private List<FiltroBusqueda<Evento>> filtros;
+
+    @Setup
+    public void setUp() {
+        catalogo = CatalogoSintetico.eventos(eventos);
+        filtros = new ArrayList<>();
+        filtros.add(new FiltradoPorPrecio(1000.0, 15000.0));
+        filtros.add(new FiltradoPorFechaInicio(CatalogoSintetico.INICIO.toLocalDate().plusMonths(2),
+                CatalogoSintetico.INICIO.toLocalDate().plusMonths(8)));
+        filtros.add(new FiltradoPorCategoria(CatalogoSintetico.CATEGORIAS[0]));
+        if (filtrosAplicados.equals("todos"))
+            filtros.add(new FiltradoPorPalabrasClave(List.of("programacion", "nube")));
+    }
+
+    @Benchmark
+    public long cadenaDeFiltros() {
+        return catalogo.stream().filter(e -> filtros.stream().allMatch(f -> f.aplicarCondicionfiltrado(e))).count();
+    }
+}
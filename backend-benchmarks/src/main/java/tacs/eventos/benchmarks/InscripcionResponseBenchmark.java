@@ -0,0 +1,64 @@
+package tacs.eventos.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tacs.eventos.dto.InscripcionResponse;
+import tacs.eventos.model.RolUsuario;
+import tacs.eventos.model.Usuario;
+import tacs.eventos.model.evento.Evento;
+import tacs.eventos.model.inscripcion.InscripcionEvento;
+import tacs.eventos.model.inscripcion.InscripcionFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide InscripcionResponse.fromInscripcion, que se usa para cada inscripción de los listados, con inscripciones
+ * confirmadas, pendientes y canceladas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InscripcionResponseBenchmark {
+    private List<InscripcionEvento> inscripciones;
+    private int siguiente;
+
+    @Setup
+    public void setUp() {
+        List<Evento> eventos = CatalogoSintetico.eventos(16);
+        inscripciones = new ArrayList<>();
+        for (int i = 0; i < 1024; i++) {
+            Usuario usuario = new Usuario("usuario" + i + "@bench.local", "hash", Set.of(RolUsuario.USUARIO));
+            Evento evento = eventos.get(i % eventos.size());
+            InscripcionEvento inscripcion = switch (i % 3) {
+            case 0 -> InscripcionFactory.confirmada(usuario, evento);
+            case 1 -> InscripcionFactory.pendiente(usuario, evento);
+            default -> {
+                InscripcionEvento cancelada = InscripcionFactory.confirmada(usuario, evento);
+                cancelada.cancelar();
+                yield cancelada;
+            }
+            };
+            inscripciones.add(inscripcion);
+        }
+    }
+
+    @Benchmark
+    public InscripcionResponse fromInscripcion() {
+        siguiente = (siguiente + 1) & (inscripciones.size() - 1);
+        return InscripcionResponse.fromInscripcion(inscripciones.get(siguiente));
+    }
+}
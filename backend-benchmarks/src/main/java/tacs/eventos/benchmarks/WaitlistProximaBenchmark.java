@@ -0,0 +1,100 @@
+package tacs.eventos.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tacs.eventos.model.RolUsuario;
+import tacs.eventos.model.Usuario;
+import tacs.eventos.model.evento.Evento;
+import tacs.eventos.model.inscripcion.InscripcionEvento;
+import tacs.eventos.model.inscripcion.InscripcionFactory;
+import tacs.eventos.model.waitlist.WaitlistEnMemoriaCompartida;
+import tacs.eventos.repository.inscripcion.InscripcionesRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vacía con WaitlistEnMemoriaCompartida.proxima una waitlist con una cola en memoria (en lugar de la de Redis) y
+ * distintas proporciones de entradas viejas: inscripciones que ya no están pendientes porque se cancelaron o se
+ * confirmaron, y que proxima tiene que buscar y descartar.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WaitlistProximaBenchmark {
+    @Param({ "10000" })
+    private int pendientes;
+
+    @Param({ "0.0", "0.5", "0.9" })
+    private double proporcionViejas;
+
+    private Evento evento;
+    private InscripcionesRepository repositorio;
+    private List<String> orden;
+    private ArrayDeque<String> cola;
+
+    @Setup(Level.Trial)
+    public void armarInscripciones() {
+        evento = CatalogoSintetico.eventos(1).get(0);
+        int total = (int) Math.round(pendientes / (1 - proporcionViejas));
+        Map<String, InscripcionEvento> inscripciones = new HashMap<>();
+        orden = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            Usuario usuario = new Usuario("usuario" + i + "@bench.local", "hash", Set.of(RolUsuario.USUARIO));
+            InscripcionEvento inscripcion = InscripcionFactory.pendiente(usuario, evento);
+            if (i >= pendientes)
+                inscripcion.cancelar();
+            inscripciones.put(inscripcion.getId(), inscripcion);
+            orden.add(inscripcion.getId());
+        }
+        Collections.shuffle(orden, new Random(42)); // Las viejas quedan mezcladas con las pendientes
+        repositorio = repositorioEnMemoria(inscripciones);
+    }
+
+    /* Cada invocación vacía la waitlist completa, así que hay que volver a llenarla */
+    @Setup(Level.Invocation)
+    public void llenarCola() {
+        cola = new ArrayDeque<>(orden);
+    }
+
+    @Benchmark
+    public void vaciarWaitlist(Blackhole bh) {
+        WaitlistEnMemoriaCompartida waitlist = new WaitlistEnMemoriaCompartida(evento, cola, repositorio);
+        Optional<InscripcionEvento> proxima;
+        while ((proxima = waitlist.proxima()).isPresent())
+            bh.consume(proxima.get());
+    }
+
+    /* Sólo implementa findById, que es lo único que usa la waitlist */
+    private static InscripcionesRepository repositorioEnMemoria(Map<String, InscripcionEvento> inscripciones) {
+        return (InscripcionesRepository) Proxy.newProxyInstance(InscripcionesRepository.class.getClassLoader(),
+                new Class<?>[] { InscripcionesRepository.class }, (proxy, metodo, args) -> {
+                    if (metodo.getName().equals("findById"))
+                        return Optional.ofNullable(inscripciones.get((String) args[0]));
+                    throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+}
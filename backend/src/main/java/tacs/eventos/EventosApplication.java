@@ -1,12 +1,15 @@
 package tacs.eventos;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import tacs.eventos.model.RolUsuario;
 import tacs.eventos.model.Usuario;
@@ -15,21 +18,31 @@ import tacs.eventos.repository.usuario.UsuarioRepository;
 import tacs.eventos.repository.evento.EventosRepository;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
 @SpringBootApplication(exclude = {
         org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration.class })
 @EnableAsync
+@EnableScheduling
 public class EventosApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(EventosApplication.class, args);
     }
 
+    /**
+     * Los hashes nuevos se guardan con el prefijo del algoritmo (<code>{bcrypt}</code>), para poder cambiarlo más
+     * adelante. Los hashes viejos, sin prefijo, se validan como BCrypt y se recalculan en el siguiente login, igual que
+     * los calculados con un costo menor al configurado.
+     */
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+    PasswordEncoder passwordEncoder(@Value("${app.password.bcrypt.costo:12}") int costo) {
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder(costo);
+        var encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
 
     // seeder: crea usuarios y eventos de ejemplo (solo en desarrollo, no en tests)
@@ -25,7 +25,6 @@ public class SessionAuthFilter extends OncePerRequestFilter {
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
-        System.out.println("Filter");
         String token = extractToken(request);
         if (token != null) {
             sessions.validate(token).ifPresentOrElse(u -> {
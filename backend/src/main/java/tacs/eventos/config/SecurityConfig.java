@@ -26,8 +26,10 @@ public class SecurityConfig {
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html", "/swagger")
-                        .permitAll().requestMatchers("/api/v1/auth/**").permitAll().requestMatchers("/actuator/health")
-                        .permitAll().anyRequest().authenticated())
+                        .permitAll().requestMatchers("/api/v1/auth/**").permitAll()
+                        // Actuator sólo se sirve en el puerto de gestión, que no se publica (management.server.port)
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll().anyRequest()
+                        .authenticated())
                 .addFilterBefore(sessionFilter, UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
@@ -2,8 +2,10 @@ package tacs.eventos.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import tacs.eventos.controller.EventoController;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
@@ -15,6 +17,7 @@ public class WebConfig implements WebMvcConfigurer {
                 registry.addMapping("/api/**")
                         .allowedOrigins("http://localhost:3000", "http://localhost:5173", "http://localhost:5174")
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS").allowedHeaders("*")
+                        .exposedHeaders(EventoController.HEADER_SIGUIENTE_CURSOR, HttpHeaders.ETAG)
                         .allowCredentials(true);
             }
         };
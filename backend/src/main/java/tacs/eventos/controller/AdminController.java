@@ -5,67 +5,72 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import tacs.eventos.controller.error.handlers.PedidoInvalidoHandler;
 import tacs.eventos.dto.UsuarioDto;
-import tacs.eventos.controller.error.handlers.AccesoDenegadoHandler;
-import tacs.eventos.controller.error.handlers.ErrorInternoHandler;
 import tacs.eventos.dto.CambiarRolRequest;
-import tacs.eventos.model.RolUsuario;
 import tacs.eventos.model.Usuario;
+import tacs.eventos.repository.usuario.ResumenUsuario;
 import tacs.eventos.service.UsuarioService;
-import tacs.eventos.service.SessionService;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
+/* El usuario ya lo autenticó SessionAuthFilter: sólo falta chequear su rol */
 @RestController
 @RequestMapping("/api/v1/admin")
+@PreAuthorize("hasRole('ADMIN')")
 @RequiredArgsConstructor
 public class AdminController {
 
     private final UsuarioService usuarioService;
-    private final SessionService sessionService;
 
+    /**
+     * Lista los usuarios, ordenados por id, de a páginas.
+     *
+     * @param cursor
+     *            cursor devuelto en el header X-Siguiente-Cursor de la página anterior. Si no se pasa, se devuelve la
+     *            primera página.
+     * @param limiteParam
+     *            cantidad máxima de usuarios de la página. No puede superar
+     *            {@value EventoController#LIMITE_PAGINA_MAXIMO}.
+     *
+     * @return la página de usuarios. Si hay más, el header X-Siguiente-Cursor contiene el cursor para pedir la página
+     *         siguiente.
+     */
     @GetMapping("/usuarios")
-    @Operation(summary = "Obtener todos los usuarios (solo admin)")
-    @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Lista de usuarios obtenida exitosamente") })
-    public ResponseEntity<List<UsuarioDto>> obtenerTodosLosUsuarios(@RequestHeader("Authorization") String authHeader) {
+    @Operation(summary = "Obtener los usuarios, de a páginas (solo admin)")
+    @ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Página de usuarios"),
+            @ApiResponse(responseCode = "400", description = "Límite inválido") })
+    public ResponseEntity<List<UsuarioDto>> obtenerTodosLosUsuarios(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", required = false) Integer limiteParam) {
+        if (limiteParam != null && limiteParam <= 0)
+            throw new PedidoInvalidoHandler("El límite tiene que ser positivo");
+        int limite = limiteParam == null ? EventoController.LIMITE_PAGINA_MAXIMO
+                : Math.min(limiteParam, EventoController.LIMITE_PAGINA_MAXIMO);
 
-        // Validar que el usuario es admin
-        if (!esUsuarioAdmin(authHeader)) {
-            throw new AccesoDenegadoHandler("Acceso denegado - Solo admin");
-        }
+        // Se pide un usuario de más para saber si hay una página siguiente
+        List<ResumenUsuario> usuarios = usuarioService
+                .listarUsuarios(cursor == null || cursor.isBlank() ? null : cursor, limite + 1);
+        List<ResumenUsuario> pagina = usuarios.size() > limite ? usuarios.subList(0, limite) : usuarios;
 
-        List<Usuario> usuarios = usuarioService.obtenerTodosLosUsuarios();
-        List<UsuarioDto> usuariosDto = usuarios.stream().map(this::convertirADto).collect(Collectors.toList());
-        return ResponseEntity.ok(usuariosDto);
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (usuarios.size() > limite)
+            respuesta.header(EventoController.HEADER_SIGUIENTE_CURSOR, pagina.get(pagina.size() - 1).id());
+        return respuesta.body(pagina.stream()
+                .map(u -> new UsuarioDto(u.id(), u.email(), u.roles().iterator().next(), u.fechaCreacion())).toList());
     }
 
     @PutMapping("/usuarios/{usuarioId}/rol")
     @Operation(summary = "Cambiar rol de un usuario (solo admin)")
     @ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Rol cambiado exitosamente") })
     public ResponseEntity<UsuarioDto> cambiarRolUsuario(@PathVariable String usuarioId,
-            @RequestBody CambiarRolRequest request, @RequestHeader("Authorization") String authHeader) {
-
-        // Validar que el usuario es admin
-        if (!esUsuarioAdmin(authHeader)) {
-            throw new AccesoDenegadoHandler("Acceso denegado - Solo admin");
-        }
-
+            @RequestBody CambiarRolRequest request) {
         Usuario usuario = usuarioService.cambiarRol(usuarioId, request.nuevoRol());
         return ResponseEntity.ok(convertirADto(usuario));
     }
 
-    private boolean esUsuarioAdmin(String authHeader) {
-        try {
-            String token = authHeader.replace("Bearer ", "");
-            return sessionService.validate(token).map(usuario -> usuario.tieneRol(RolUsuario.ADMIN)).orElse(false);
-        } catch (Exception e) {
-            throw new ErrorInternoHandler("Error al validar la sesion", e);
-        }
-    }
-
     private UsuarioDto convertirADto(Usuario usuario) {
         return new UsuarioDto(usuario.getId(), usuario.getEmail(), usuario.getRoles().iterator().next(), // Asumimos un
                                                                                                          // rol por
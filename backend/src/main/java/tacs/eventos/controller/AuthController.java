@@ -12,6 +12,7 @@ import tacs.eventos.dto.RegistroRequest;
 import tacs.eventos.dto.SessionResponse;
 import tacs.eventos.service.SessionService;
 import tacs.eventos.service.UsuarioService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.web.bind.annotation.*;
 
@@ -40,10 +41,9 @@ public class AuthController {
             @ApiResponse(responseCode = "200", description = "El usuario se registro satifactoriamente"),
             @ApiResponse(responseCode = "401", description = "No se pudo regisrar al usuario"), })
     public ResponseEntity<SessionResponse> register(@Valid @RequestBody RegistroRequest req) {
-        usuarios.registrar(req.email(), req.password(), req.tipoUsuario());
-        return sesiones.login(req.email(), req.password())
-                .map(s -> ResponseEntity.ok(new SessionResponse(s.getToken(), s.getExpiresAt())))
-                .orElseThrow(() -> new AccesoNoAutorizadoHandler("No se pudo regisrar al usuario"));
+        var usuario = usuarios.registrar(req.email(), req.password(), req.tipoUsuario());
+        var s = sesiones.iniciarSesionRegistrado(usuario);
+        return ResponseEntity.ok(new SessionResponse(s.getToken(), s.getExpiresAt()));
     }
 
     /**
@@ -56,14 +56,15 @@ public class AuthController {
      */
     @PostMapping("/login")
     @Operation(summary = "Login que devuelve token de sesión y expiración")
-    @ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Se pudo genera token de sesión") })
-    public ResponseEntity<SessionResponse> login(@Valid @RequestBody LoginRequest req) {
-        System.out.println("Login attempt for " + req.email());
-
-        return sesiones.login(req.email(), req.password()).map(s -> {
-            System.out.println("Login successful for " + req.email() + ", token: " + s.getToken());
-            return ResponseEntity.ok(new SessionResponse(s.getToken(), s.getExpiresAt()));
-        }).orElseThrow(() -> new AccesoNoAutorizadoHandler("No se pudo regisrar al usuario"));
+    @ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Se pudo genera token de sesión"),
+            @ApiResponse(responseCode = "401", description = "El email o la contraseña no son correctos"),
+            @ApiResponse(responseCode = "429", description = "Demasiados intentos de la cuenta o de la IP"),
+            @ApiResponse(responseCode = "503", description = "Hay demasiados inicios de sesión en curso"), })
+    public ResponseEntity<SessionResponse> login(@Valid @RequestBody LoginRequest req, HttpServletRequest request) {
+        // Detrás del proxy del frontend es la IP que informó el proxy (ver server.forward-headers-strategy)
+        return sesiones.login(req.email(), req.password(), request.getRemoteAddr())
+                .map(s -> ResponseEntity.ok(new SessionResponse(s.getToken(), s.getExpiresAt())))
+                .orElseThrow(() -> new AccesoNoAutorizadoHandler("No se pudo regisrar al usuario"));
     }
 
     /**
@@ -0,0 +1,45 @@
+package tacs.eventos.controller;
+
+/**
+ * ETags fuertes de los eventos y de los listados de eventos, armados con sus versiones. Permiten contestar 304 a los
+ * clientes que consultan periódicamente sin leer ni serializar los eventos.
+ */
+class EtagsEventos {
+
+    /**
+     * @return el ETag de un evento en esa versión
+     */
+    static String deEvento(long version) {
+        return "\"e" + version + "\"";
+    }
+
+    /**
+     * @return el ETag de los listados de eventos con esa versión de la colección. Como un ETag identifica una
+     *         representación de una URL, no hace falta que incluya los filtros ni el cursor.
+     */
+    static String deListado(long versionColeccion) {
+        return "\"l" + versionColeccion + "\"";
+    }
+
+    /**
+     * @param ifNoneMatch
+     *            valor del header If-None-Match del pedido, puede ser null
+     *
+     * @return si el cliente ya tiene la representación con ese ETag (comparación débil, como pide la RFC 9110 para
+     *         If-None-Match)
+     */
+    static boolean coincide(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null)
+            return false;
+        for (String candidato : ifNoneMatch.split(",")) {
+            candidato = candidato.trim();
+            if (candidato.equals("*"))
+                return true;
+            if (candidato.startsWith("W/"))
+                candidato = candidato.substring(2);
+            if (candidato.equals(etag))
+                return true;
+        }
+        return false;
+    }
+}
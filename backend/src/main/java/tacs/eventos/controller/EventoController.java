@@ -1,16 +1,20 @@
 package tacs.eventos.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tacs.eventos.controller.error.handlers.AccesoDenegadoHandler;
+import tacs.eventos.controller.error.handlers.PedidoInvalidoHandler;
 import tacs.eventos.controller.error.handlers.RecursoNoEncontradoHandler;
 import tacs.eventos.controller.validadores.Validador;
 import tacs.eventos.controller.validadores.ValidadorAutorizacionUsuario;
@@ -19,6 +23,7 @@ import tacs.eventos.model.Usuario;
 import tacs.eventos.model.evento.Evento;
 import tacs.eventos.model.inscripcion.InscripcionEvento;
 import tacs.eventos.repository.FiltroBusqueda;
+import tacs.eventos.repository.evento.CursorEventos;
 import tacs.eventos.repository.evento.busqueda.FiltradoPorCategoria;
 import tacs.eventos.repository.evento.busqueda.FiltradoPorFechaInicio;
 import tacs.eventos.repository.evento.busqueda.FiltradoPorPalabrasClave;
@@ -26,12 +31,12 @@ import tacs.eventos.repository.evento.busqueda.FiltradoPorPrecio;
 import tacs.eventos.service.EventoService;
 import tacs.eventos.service.UsuarioService;
 import tacs.eventos.service.inscripciones.InscripcionesService;
+import tacs.eventos.service.inscripciones.MetricasInscripciones;
 
 import java.net.URI;
 import java.time.LocalDate;
 import java.util.*;
-
-import static tacs.eventos.dto.EstadoInscripcionMapper.mapEstado;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/v1/evento")
@@ -41,7 +46,13 @@ public class EventoController {
     private final EventoService eventoService;
     private final UsuarioService usuarioService;
     private final InscripcionesService inscripcionesService;
-    private final ModelMapper modelMapper;
+    private final MetricasInscripciones metricasInscripciones;
+    private final ObjectMapper objectMapper;
+
+    public static final int LIMITE_PAGINA_MAXIMO = 100;
+    public static final String HEADER_SIGUIENTE_CURSOR = "X-Siguiente-Cursor";
+    private static final String MEDIA_TYPE_NDJSON = "application/x-ndjson";
+    private static final int EVENTOS_POR_FLUSH = 50;
 
     /**
      * Crea un nuevo evento.
@@ -56,7 +67,7 @@ public class EventoController {
     @ResponseStatus(HttpStatus.CREATED)
     public ResponseEntity<Void> crearEvento(@AuthenticationPrincipal Usuario usuario,
             @Valid @RequestBody CreacionEventoRequest dto, HttpServletRequest request) {
-        Evento evento = modelMapper.map(dto, Evento.class);
+        Evento evento = EventoMapper.aEvento(dto);
         evento.setId(UUID.randomUUID().toString()); // No se estaba creando
         evento.setOrganizador(usuario);
         eventoService.crearEvento(evento);
@@ -68,21 +79,33 @@ public class EventoController {
      *
      * @param eventoId
      *            id del evento que se quiere obtener
+     * @param ifNoneMatch
+     *            ETag de la versión del evento que ya tiene el cliente, si tiene alguna
      *
-     * @return ResponseEntity devuelve el código 200 OK y un body con los datos del evento pedido. Si el evento se
-     *         existe, devuelve NOT_FOUND 404.
+     * @return ResponseEntity devuelve el código 200 OK y un body con los datos del evento pedido, con el ETag de su
+     *         versión. Si el cliente ya tiene esa versión, devuelve NOT_MODIFIED 304 sin body. Si el evento se existe,
+     *         devuelve NOT_FOUND 404.
      */
     @GetMapping("/{eventoId}")
     @ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Evento encontrado"),
+            @ApiResponse(responseCode = "304", description = "El evento no cambió desde la versión del If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Evento no encontrado"), })
-    public ResponseEntity<EventoResponse> obtenerEvento(@PathVariable String eventoId) {
-        Evento evento = this.buscarEvento(eventoId);
+    public ResponseEntity<EventoResponse> obtenerEvento(@PathVariable String eventoId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Si el evento está en la cache local y el cliente ya tiene esa versión, no hace falta ni copiarlo
+        Optional<String> etagEnCache = eventoService.versionEnCache(eventoId).map(EtagsEventos::deEvento);
+        if (etagEnCache.isPresent() && EtagsEventos.coincide(ifNoneMatch, etagEnCache.get()))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etagEnCache.get()).build();
 
-        return ResponseEntity.ok(modelMapper.map(evento, EventoResponse.class));
+        Evento evento = this.buscarEvento(eventoId);
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        // Si el ETag coincide con el If-None-Match, Spring contesta 304 sin serializar el body
+        Optional.ofNullable(evento.getVersion()).map(EtagsEventos::deEvento).ifPresent(respuesta::eTag);
+        return respuesta.body(EventoMapper.aResponse(evento));
     }
 
     /**
-     * Devuelve todos los eventos vigentes. Aplica filtros si los hubiera.
+     * Devuelve los eventos vigentes, paginados por fecha de inicio. Aplica filtros si los hubiera.
      *
      * @param precioMinimoParam
      *            precio mínimo del evento.
@@ -96,46 +119,134 @@ public class EventoController {
      *            categoría buscada del evento.
      * @param palabrasClaveParam
      *            palabras que definen características del evento buscado.
+     * @param cursorParam
+     *            cursor devuelto en el header X-Siguiente-Cursor de la página anterior. Si no se pasa, se devuelve la
+     *            primera página.
+     * @param limiteParam
+     *            cantidad máxima de eventos de la página. No puede superar {@value #LIMITE_PAGINA_MAXIMO}. Si no se
+     *            pasa ni límite ni cursor, devuelve todos los eventos sin paginar, como antes de que existiera el
+     *            cursor. Si se pasa solo el cursor, las páginas son de {@value #LIMITE_PAGINA_MAXIMO} eventos.
+     * @param ifNoneMatch
+     *            ETag de un listado anterior, si el cliente tiene uno
      *
-     * @return ResponseEntity devuelve el código 200 OK y un body con la lista de eventos que cumplan con los filtros
-     *         utilizados, si los hay.
+     * @return ResponseEntity devuelve el código 200 OK y un body con la página de eventos que cumplan con los filtros
+     *         utilizados, si los hay. Si hay más eventos, el header X-Siguiente-Cursor contiene el cursor para pedir la
+     *         página siguiente. El ETag cambia cada vez que se crea, modifica o elimina un evento: si no cambió desde
+     *         el If-None-Match, devuelve NOT_MODIFIED 304 sin body.
      */
     @GetMapping
-    @ApiResponse(responseCode = "200", description = "Lista de eventos disponibles")
+    @ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Página de eventos disponibles"),
+            @ApiResponse(responseCode = "304", description = "Ningún evento cambió desde el If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Cursor o límite inválido") })
     public ResponseEntity<List<EventoResponse>> listarEventos(
+            @RequestParam(value = "precioPesosMin", required = false) Double precioMinimoParam,
+            @RequestParam(value = "precioPesosMax", required = false) Double precioMaximoParam,
+            @RequestParam(value = "fechaInicioMin", required = false) LocalDate fechaMinParam,
+            @RequestParam(value = "fechaInicioMax", required = false) LocalDate fechaMaxParam,
+            @RequestParam(value = "categoria", required = false) String categoriaParam,
+            @RequestParam(value = "palabrasClave", required = false) String palabrasClaveParam,
+            @RequestParam(value = "cursor", required = false) String cursorParam,
+            @RequestParam(value = "limite", required = false) Integer limiteParam,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // La versión se lee antes que los eventos: si cambian en el medio, el ETag queda viejo y el cliente vuelve a
+        // pedir el listado
+        Optional<String> etag = eventoService.versionColeccion().map(EtagsEventos::deListado);
+        if (etag.isPresent() && EtagsEventos.coincide(ifNoneMatch, etag.get()))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag.get()).build();
+
+        List<FiltroBusqueda<Evento>> filtros = armarFiltros(precioMinimoParam, precioMaximoParam, fechaMinParam,
+                fechaMaxParam, categoriaParam, palabrasClaveParam);
+
+        if (limiteParam != null && limiteParam <= 0)
+            throw new PedidoInvalidoHandler("El límite tiene que ser positivo");
+
+        CursorEventos desde;
+        try {
+            desde = cursorParam == null || cursorParam.isBlank() ? null : CursorEventos.decodificar(cursorParam);
+        } catch (IllegalArgumentException e) {
+            throw new PedidoInvalidoHandler("Cursor inválido");
+        }
+
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        etag.ifPresent(respuesta::eTag);
+
+        // Los clientes que no paginan (sin límite ni cursor) siguen recibiendo el listado completo, como antes
+        if (limiteParam == null && desde == null)
+            return respuesta.body(eventoService.listarEventos(filtros, null, Integer.MAX_VALUE).stream()
+                    .map(EventoMapper::aResponse).toList());
+
+        int limite = limiteParam == null ? LIMITE_PAGINA_MAXIMO : Math.min(limiteParam, LIMITE_PAGINA_MAXIMO);
+
+        // Se pide un evento de más para saber si hay una página siguiente
+        List<Evento> eventos = eventoService.listarEventos(filtros, desde, limite + 1);
+        List<Evento> pagina = eventos.size() > limite ? eventos.subList(0, limite) : eventos;
+
+        if (eventos.size() > limite)
+            respuesta.header(HEADER_SIGUIENTE_CURSOR,
+                    CursorEventos.despuesDe(pagina.get(pagina.size() - 1)).codificar());
+        return respuesta.body(pagina.stream().map(EventoMapper::aResponse).toList());
+    }
+
+    /**
+     * Devuelve todos los eventos vigentes que cumplan con los filtros, ordenados por fecha de inicio, en formato NDJSON
+     * (un evento por línea). Los eventos se escriben en la respuesta a medida que se leen de la base, sin armar la
+     * lista completa en memoria.
+     *
+     * @return ResponseEntity devuelve el código 200 OK y un body con un evento en JSON por línea.
+     */
+    @GetMapping(value = "/stream", produces = MEDIA_TYPE_NDJSON)
+    @ApiResponse(responseCode = "200", description = "Eventos disponibles, uno por línea")
+    public ResponseEntity<StreamingResponseBody> streamEventos(
             @RequestParam(value = "precioPesosMin", required = false) Double precioMinimoParam,
             @RequestParam(value = "precioPesosMax", required = false) Double precioMaximoParam,
             @RequestParam(value = "fechaInicioMin", required = false) LocalDate fechaMinParam,
             @RequestParam(value = "fechaInicioMax", required = false) LocalDate fechaMaxParam,
             @RequestParam(value = "categoria", required = false) String categoriaParam,
             @RequestParam(value = "palabrasClave", required = false) String palabrasClaveParam) {
-        if (precioMinimoParam == null && precioMaximoParam == null && fechaMinParam == null && fechaMaxParam == null
-                && categoriaParam == null && palabrasClaveParam == null) {
-            return ResponseEntity.ok(eventoService.listarEventos().stream()
-                    .map((Evento e) -> modelMapper.map(e, EventoResponse.class)).toList());
-        } else {
-            List<FiltroBusqueda<Evento>> filtros = new ArrayList<>();
+        List<FiltroBusqueda<Evento>> filtros = armarFiltros(precioMinimoParam, precioMaximoParam, fechaMinParam,
+                fechaMaxParam, categoriaParam, palabrasClaveParam);
+
+        StreamingResponseBody body = salida -> {
+            try (Stream<Evento> eventos = eventoService.streamEventos(filtros)) {
+                Iterator<Evento> it = eventos.iterator();
+                int escritos = 0;
+                while (it.hasNext()) {
+                    salida.write(objectMapper.writeValueAsBytes(EventoMapper.aResponse(it.next())));
+                    salida.write('\n');
+                    // Se hace flush cada tanto para que el cliente empiece a recibir eventos enseguida
+                    if (++escritos % EVENTOS_POR_FLUSH == 0)
+                        salida.flush();
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(MEDIA_TYPE_NDJSON)).body(body);
+    }
+
+    private List<FiltroBusqueda<Evento>> armarFiltros(Double precioMinimoParam, Double precioMaximoParam,
+            LocalDate fechaMinParam, LocalDate fechaMaxParam, String categoriaParam, String palabrasClaveParam) {
+        List<FiltroBusqueda<Evento>> filtros = new ArrayList<>();
 
-            // Solo agregar filtros si los parámetros están presentes
-            // TODO: hacer que no se pueda pasar por parámetro una fecha minima o maxima en el pasado
-            // (en el back y en el front)
+        // Solo agregar filtros si los parámetros están presentes
+        // TODO: hacer que no se pueda pasar por parámetro una fecha minima o maxima en el pasado
+        // (en el back y en el front)
+        if (fechaMinParam != null || fechaMaxParam != null) {
             filtros.add(new FiltradoPorFechaInicio(fechaMinParam == null ? LocalDate.MIN : fechaMinParam,
                     fechaMaxParam == null ? LocalDate.MAX : fechaMaxParam));
+        }
 
-            filtros.add(new FiltradoPorPrecio(precioMinimoParam == null ? 0 : precioMinimoParam,
-                    precioMaximoParam == null ? Double.MAX_VALUE : precioMaximoParam));
-
-            if (categoriaParam != null && !categoriaParam.trim().isEmpty()) {
-                filtros.add(new FiltradoPorCategoria(categoriaParam));
-            }
+        if (precioMinimoParam != null || precioMaximoParam != null) {
+            filtros.add(new FiltradoPorPrecio(precioMinimoParam, precioMaximoParam));
+        }
 
-            if (palabrasClaveParam != null && !palabrasClaveParam.trim().isEmpty()) {
-                filtros.add(new FiltradoPorPalabrasClave(Arrays.asList(palabrasClaveParam.split("\\s+"))));
-            }
+        if (categoriaParam != null && !categoriaParam.trim().isEmpty()) {
+            filtros.add(new FiltradoPorCategoria(categoriaParam));
+        }
 
-            return ResponseEntity.ok(eventoService.filtrarEventos(filtros).stream()
-                    .map(e -> modelMapper.map(e, EventoResponse.class)).toList());
+        if (palabrasClaveParam != null && !palabrasClaveParam.trim().isEmpty()) {
+            filtros.add(new FiltradoPorPalabrasClave(Arrays.asList(palabrasClaveParam.trim().split("\\s+"))));
         }
+
+        return filtros;
     }
 
     /**
@@ -239,8 +350,7 @@ public class EventoController {
         }
 
         Optional<InscripcionEvento> inscripcion = inscripcionesService.inscripcionNoCancelada(evento, usuarioInscripto);
-        return inscripcion.map(i -> new InscripcionResponse(i.getEvento().getId(), mapEstado(i.getEstado())))
-                .map(ResponseEntity::ok)
+        return inscripcion.map(InscripcionMapper::aResponseResumida).map(ResponseEntity::ok)
                 .orElseThrow(() -> new RecursoNoEncontradoHandler("El usuario no está inscripto al evento"));
     }
 
@@ -312,8 +422,10 @@ public class EventoController {
         String location = "/api/v1/evento/" + eventoId + "/inscripcion/" + usuarioId;
 
         // Si el usuario ya está inscripto o en la waitlist, devuelve SEE_OTHER y redirige a la inscripción existente
-        if (inscripcionesService.inscripcionNoCancelada(evento, usuario).isPresent())
+        if (inscripcionesService.inscripcionNoCancelada(evento, usuario).isPresent()) {
+            metricasInscripciones.resultado(MetricasInscripciones.Resultado.DUPLICADA, eventoId);
             return ResponseEntity.status(HttpStatus.SEE_OTHER).location(URI.create(location)).build();
+        }
 
         // Si no estaba inscripto, intenta inscribirlo o mandarlo a la waitlist
         inscripcionesService.inscribirOMandarAWaitlist(evento, usuario);
@@ -344,18 +456,35 @@ public class EventoController {
             throw new AccesoDenegadoHandler("El usuario no es organizador");
         }
 
-        return ResponseEntity
-                .ok(this.inscripcionesService.inscripcionesPendientes(evento).stream().map((InscripcionEvento i) -> {
-                    var usuarioResponse = new UsuarioResponse(i.getParticipante().getId(),
-                            i.getParticipante().getEmail(), i.getParticipante().getRoles());
-                    return new InscripcionEnWaitlistResponse(i.getId(), usuarioResponse,
-                            i.getFechaHoraIngresoAWaitlist()
-                                    .orElse(null)); /*
-                                                     * La fechaHora de ingreso a watilist no debería ser nunca null en
-                                                     * este caso, porque estamos buscando las inscripciones pendientes,
-                                                     * o sea, las que están en watilist
-                                                     */
-                }).toList());
+        List<InscripcionEvento> pendientes = this.inscripcionesService.inscripcionesPendientes(evento);
+        // Las inscripciones guardan sólo el id del participante: busca a todos juntos para obtener sus roles
+        Map<String, Usuario> participantes = this.usuarioService
+                .buscarPorIds(pendientes.stream().map(InscripcionEvento::getParticipanteId).toList());
+        return ResponseEntity.ok(pendientes.stream().map(i -> {
+            Usuario participante = participantes.get(i.getParticipanteId());
+            return InscripcionMapper.aResponseEnWaitlist(i, participante != null ? participante.getRoles() : Set.of());
+        }).toList());
+    }
+
+    /**
+     * Permite a un usuario consultar en qué lugar de la waitlist de un evento está.
+     *
+     * @param usuario
+     *            usuario logueado al sistema
+     * @param eventoId
+     *            id del evento
+     *
+     * @return la posición del usuario en la waitlist, empezando en 1.
+     */
+    @GetMapping("/{eventoId}/waitlist/posicion")
+    @ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Posición del usuario en la waitlist"),
+            @ApiResponse(responseCode = "404", description = "Evento no encontrado, o el usuario no está en la waitlist") })
+    public ResponseEntity<PosicionWaitlistResponse> getPosicionEnWaitlist(@AuthenticationPrincipal Usuario usuario,
+            @PathVariable String eventoId) {
+        Evento evento = this.buscarEvento(eventoId);
+        return this.inscripcionesService.posicionEnWaitlist(evento, usuario)
+                .map(posicion -> ResponseEntity.ok(new PosicionWaitlistResponse(posicion)))
+                .orElseThrow(() -> new RecursoNoEncontradoHandler("El usuario no está en la waitlist del evento"));
     }
 
     @GetMapping("/{eventoId}/cantidadInscripcionesPendientes")
@@ -418,18 +547,11 @@ public class EventoController {
         }
 
         // Actualizar los campos del evento
-        evento.setTitulo(dto.getTitulo());
-        evento.setDescripcion(dto.getDescripcion());
-        evento.setFechaHoraInicio(dto.getFechaHoraInicio());
-        evento.setDuracionMinutos(dto.getDuracionMinutos());
-        evento.setUbicacion(dto.getUbicacion());
-        evento.setCupoMaximo(dto.getCupoMaximo());
-        evento.setPrecio(dto.getPrecio());
-        evento.setCategoria(dto.getCategoria());
+        EventoMapper.copiarDatos(dto, evento);
 
         Evento eventoActualizado = eventoService.actualizarEvento(evento);
 
-        return ResponseEntity.ok(modelMapper.map(eventoActualizado, EventoResponse.class));
+        return ResponseEntity.ok(EventoMapper.aResponse(eventoActualizado));
     }
 
     /**
@@ -1,12 +1,12 @@
 package tacs.eventos.controller;
 
 import lombok.AllArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import tacs.eventos.dto.EventoMapper;
 import tacs.eventos.dto.EventoResponse;
 import tacs.eventos.dto.InscripcionResponse;
 import tacs.eventos.dto.UsuarioDto;
@@ -24,7 +24,6 @@ public class UsuarioController {
 
     private final UsuarioService usuarioService;
     private final EventosRepository eventosRepository;
-    private final ModelMapper modelMapper;
 
     /**
      * Retorna información del usuario autenticado.
@@ -68,12 +67,11 @@ public class UsuarioController {
     public ResponseEntity<List<EventoResponse>> getMisEventos(@AuthenticationPrincipal Usuario usuario) {
         // Si es ADMIN, devolver todos los eventos
         if (usuario.getRoles().contains(RolUsuario.ADMIN)) {
-            return ResponseEntity.ok(eventosRepository.findAll().stream()
-                    .map(e -> this.modelMapper.map(e, EventoResponse.class)).toList());
+            return ResponseEntity.ok(eventosRepository.findAll().stream().map(EventoMapper::aResponse).toList());
         }
 
         // Si no es ADMIN, devolver solo los eventos que organiza
-        return ResponseEntity.ok(eventosRepository.findByOrganizador(usuario.getId()).stream()
-                .map(e -> this.modelMapper.map(e, EventoResponse.class)).toList());
+        return ResponseEntity.ok(
+                eventosRepository.findByOrganizador(usuario.getId()).stream().map(EventoMapper::aResponse).toList());
     }
 }
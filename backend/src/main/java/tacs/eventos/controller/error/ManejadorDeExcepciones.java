@@ -1,8 +1,11 @@
 package tacs.eventos.controller.error;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import tacs.eventos.controller.error.handlers.*;
@@ -24,12 +27,32 @@ public class ManejadorDeExcepciones {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
     }
 
+    /* Lo lanza Spring Security cuando el usuario no tiene el rol que pide un @PreAuthorize */
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<ErrorResponse> handleAccessDenied(AccessDeniedException ex) {
+        ErrorResponse error = new ErrorResponse("Acceso denegado");
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+    }
+
+    /* Lo lanza Spring Data cuando se guarda un evento que otro pedido modificó desde que se leyó */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleConflictoDeVersion(OptimisticLockingFailureException ex) {
+        ErrorResponse error = new ErrorResponse("El evento fue modificado por otro pedido, volvé a intentar");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
     @ExceptionHandler(RecursoNoEncontradoHandler.class)
     public ResponseEntity<ErrorResponse> handleRecursoNoEncontrado(RecursoNoEncontradoHandler ex) {
         ErrorResponse error = new ErrorResponse(ex.getMessage());
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    @ExceptionHandler(PedidoInvalidoHandler.class)
+    public ResponseEntity<ErrorResponse> handlePedidoInvalido(PedidoInvalidoHandler ex) {
+        ErrorResponse error = new ErrorResponse(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleMethodArgumentNotValid(MethodArgumentNotValidException ex) {
         ErrorResponse error = new ErrorResponse(ex.getMessage());
@@ -48,6 +71,20 @@ public class ManejadorDeExcepciones {
         return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).body(error);
     }
 
+    @ExceptionHandler(DemasiadosIntentosHandler.class)
+    public ResponseEntity<ErrorResponse> handleDemasiadosIntentos(DemasiadosIntentosHandler ex) {
+        ErrorResponse error = new ErrorResponse(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getReintentarEnSegundos())).body(error);
+    }
+
+    @ExceptionHandler(ServicioSaturadoHandler.class)
+    public ResponseEntity<ErrorResponse> handleServicioSaturado(ServicioSaturadoHandler ex) {
+        ErrorResponse error = new ErrorResponse(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getReintentarEnSegundos())).body(error);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleExcepcionGeneral(Exception ex) {
         ErrorResponse error = new ErrorResponse(ex.getMessage());
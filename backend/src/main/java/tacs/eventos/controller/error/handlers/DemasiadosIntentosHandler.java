@@ -0,0 +1,17 @@
+package tacs.eventos.controller.error.handlers;
+
+/**
+ * Se superó el límite de pedidos permitidos en una ventana de tiempo. Se responde con 429 y un Retry-After.
+ */
+public class DemasiadosIntentosHandler extends RuntimeException {
+    private final long reintentarEnSegundos;
+
+    public DemasiadosIntentosHandler(String mensaje, long reintentarEnSegundos) {
+        super(mensaje);
+        this.reintentarEnSegundos = reintentarEnSegundos;
+    }
+
+    public long getReintentarEnSegundos() {
+        return reintentarEnSegundos;
+    }
+}
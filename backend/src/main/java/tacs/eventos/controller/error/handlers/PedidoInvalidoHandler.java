@@ -0,0 +1,7 @@
+package tacs.eventos.controller.error.handlers;
+
+public class PedidoInvalidoHandler extends RuntimeException {
+    public PedidoInvalidoHandler(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,17 @@
+package tacs.eventos.controller.error.handlers;
+
+/**
+ * El pedido no se puede atender ahora porque el servidor está saturado. Se responde con 503 y un Retry-After.
+ */
+public class ServicioSaturadoHandler extends RuntimeException {
+    private final long reintentarEnSegundos;
+
+    public ServicioSaturadoHandler(String mensaje, long reintentarEnSegundos) {
+        super(mensaje);
+        this.reintentarEnSegundos = reintentarEnSegundos;
+    }
+
+    public long getReintentarEnSegundos() {
+        return reintentarEnSegundos;
+    }
+}
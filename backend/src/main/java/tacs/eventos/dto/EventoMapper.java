@@ -0,0 +1,64 @@
+package tacs.eventos.dto;
+
+import tacs.eventos.model.Usuario;
+import tacs.eventos.model.evento.EstadoEvento;
+import tacs.eventos.model.evento.Evento;
+
+import java.util.Set;
+
+/**
+ * Mapeos entre los eventos y sus DTOs, escritos a mano: los listados mapean cada evento de la página, y hacerlo por
+ * reflection (como ModelMapper) costaba mucho más que copiar los campos.
+ */
+public class EventoMapper {
+
+    /**
+     * @return la respuesta con los datos del evento. El organizador va sin sus roles.
+     */
+    public static EventoResponse aResponse(Evento evento) {
+        EventoResponse response = new EventoResponse();
+        copiarDatosAResponse(evento, response);
+        response.setId(evento.getId());
+        response.setAbierto(evento.getEstado() == EstadoEvento.ABIERTO);
+        response.setOrganizador(organizador(evento.getOrganizador()));
+        return response;
+    }
+
+    /**
+     * @return un evento nuevo con los datos del pedido, sin id ni organizador
+     */
+    public static Evento aEvento(CreacionEventoRequest request) {
+        Evento evento = new Evento();
+        copiarDatos(request, evento);
+        return evento;
+    }
+
+    /**
+     * Reemplaza los datos editables del evento por los del pedido.
+     */
+    public static void copiarDatos(CreacionEventoRequest request, Evento evento) {
+        evento.setTitulo(request.getTitulo());
+        evento.setDescripcion(request.getDescripcion());
+        evento.setFechaHoraInicio(request.getFechaHoraInicio());
+        evento.setDuracionMinutos(request.getDuracionMinutos());
+        evento.setUbicacion(request.getUbicacion());
+        evento.setCupoMaximo(request.getCupoMaximo());
+        evento.setPrecio(request.getPrecio());
+        evento.setCategoria(request.getCategoria());
+    }
+
+    private static void copiarDatosAResponse(Evento evento, EventoResponse response) {
+        response.setTitulo(evento.getTitulo());
+        response.setDescripcion(evento.getDescripcion());
+        response.setFechaHoraInicio(evento.getFechaHoraInicio());
+        response.setDuracionMinutos(evento.getDuracionMinutos());
+        response.setUbicacion(evento.getUbicacion());
+        response.setCupoMaximo(evento.getCupoMaximo());
+        response.setPrecio(evento.getPrecio());
+        response.setCategoria(evento.getCategoria());
+    }
+
+    private static UsuarioResponse organizador(Usuario organizador) {
+        return organizador == null ? null : new UsuarioResponse(organizador.getId(), organizador.getEmail(), Set.of());
+    }
+}
@@ -0,0 +1,47 @@
+package tacs.eventos.dto;
+
+import tacs.eventos.model.RolUsuario;
+import tacs.eventos.model.inscripcion.InscripcionEvento;
+
+import java.util.Set;
+
+import static tacs.eventos.dto.EstadoInscripcionMapper.mapEstado;
+
+/**
+ * Mapeos de las inscripciones a sus DTOs.
+ */
+public class InscripcionMapper {
+
+    /**
+     * @return la respuesta con todos los datos de la inscripción. En fechaInscripcion va la fecha en la que se confirmó
+     *         o, si no fue confirmada, la fecha en la que pasó a la waitlist.
+     */
+    public static InscripcionResponse aResponse(InscripcionEvento inscripcion) {
+        return new InscripcionResponse(inscripcion.getEventoId(), mapEstado(inscripcion.getEstado()),
+                inscripcion.getEmailParticipante(),
+                inscripcion.getFechahoraConfirmacion().or(inscripcion::getFechaHoraIngresoAWaitlist).orElse(null),
+                inscripcion.getId());
+    }
+
+    /**
+     * @return la respuesta sólo con el evento y el estado de la inscripción
+     */
+    public static InscripcionResponse aResponseResumida(InscripcionEvento inscripcion) {
+        return new InscripcionResponse(inscripcion.getEventoId(), mapEstado(inscripcion.getEstado()));
+    }
+
+    /**
+     * @param rolesParticipante
+     *            roles del participante, que las inscripciones no guardan
+     *
+     * @return la respuesta de una inscripción pendiente, con los datos del participante
+     */
+    public static InscripcionEnWaitlistResponse aResponseEnWaitlist(InscripcionEvento inscripcion,
+            Set<RolUsuario> rolesParticipante) {
+        var participante = new UsuarioResponse(inscripcion.getParticipanteId(), inscripcion.getEmailParticipante(),
+                rolesParticipante);
+        // La fecha de ingreso a la waitlist no debería ser nunca null, porque la inscripción está pendiente
+        return new InscripcionEnWaitlistResponse(inscripcion.getId(), participante,
+                inscripcion.getFechaHoraIngresoAWaitlist().orElse(null));
+    }
+}
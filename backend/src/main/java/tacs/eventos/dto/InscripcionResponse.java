@@ -1,6 +1,5 @@
 package tacs.eventos.dto;
 
-import tacs.eventos.model.inscripcion.EstadoInscripcion;
 import tacs.eventos.model.inscripcion.InscripcionEvento;
 
 import java.time.LocalDateTime;
@@ -28,7 +27,7 @@ public record InscripcionResponse(String eventoId, EstadoInscripcionResponse est
      */
     public static InscripcionResponse confirmada(String eventoId, InscripcionEvento inscripcion) {
         return new InscripcionResponse(eventoId, EstadoInscripcionResponse.CONFIRMADA,
-                inscripcion.getParticipante().getEmail(), inscripcion.getFechahoraConfirmacion().orElse(null),
+                inscripcion.getEmailParticipante(), inscripcion.getFechahoraConfirmacion().orElse(null),
                 inscripcion.getId());
     }
 
@@ -47,27 +46,14 @@ public record InscripcionResponse(String eventoId, EstadoInscripcionResponse est
      */
     public static InscripcionResponse enWaitlist(String eventoId, InscripcionEvento inscripcion) {
         return new InscripcionResponse(eventoId, EstadoInscripcionResponse.PENDIENTE,
-                inscripcion.getParticipante().getEmail(), inscripcion.getFechahoraConfirmacion().orElse(null),
+                inscripcion.getEmailParticipante(), inscripcion.getFechahoraConfirmacion().orElse(null),
                 inscripcion.getId());
     }
 
-    // TODO: esto en realidad debería realizarlo un mapper
+    /**
+     * @see InscripcionMapper#aResponse(InscripcionEvento)
+     */
     public static InscripcionResponse fromInscripcion(InscripcionEvento inscripcion) {
-        /*
-         * En el campo fechaInscripcion, retorna la fecha en la que la inscripción se confirmó, o, si no fue confirmada,
-         * la fecha en la que pasó a waitlist
-         */
-        return new InscripcionResponse(inscripcion.getEvento().getId(), mapEstado(inscripcion.getEstado()),
-                inscripcion.getParticipante().getEmail(),
-                inscripcion.getFechahoraConfirmacion().or(inscripcion::getFechaHoraIngresoAWaitlist).orElse(null),
-                inscripcion.getId());
-    }
-
-    private static EstadoInscripcionResponse mapEstado(EstadoInscripcion estado) {
-        return switch (estado) {
-        case CONFIRMADA -> EstadoInscripcionResponse.CONFIRMADA;
-        case CANCELADA -> EstadoInscripcionResponse.CANCELADA;
-        case PENDIENTE -> EstadoInscripcionResponse.PENDIENTE;
-        };
+        return InscripcionMapper.aResponse(inscripcion);
     }
 }
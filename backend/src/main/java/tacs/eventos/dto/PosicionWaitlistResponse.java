@@ -0,0 +1,8 @@
+package tacs.eventos.dto;
+
+/**
+ * @param posicion
+ *            lugar en la waitlist, empezando en 1 para el próximo en obtener un cupo
+ */
+public record PosicionWaitlistResponse(long posicion) {
+}
@@ -0,0 +1,24 @@
+package tacs.eventos.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Revocación de tokens de sesión firmados: la de un token (por logout), o la de todos los tokens de un usuario emitidos
+ * hasta cierto momento. Se borra sola cuando los tokens a los que afecta ya vencieron.
+ */
+@Document(collection = "revocaciones_sesiones")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class RevocacionSesion {
+    private String id; // "token:" + id del token, o "usuario:" + id del usuario
+    private long valor; // Vencimiento del token, o desde cuándo están revocados los del usuario (en milisegundos)
+    @Indexed(name = "revocacion_expira_idx", expireAfterSeconds = 0)
+    private Instant expira;
+}
@@ -14,7 +14,7 @@ import java.util.Set;
 public class Usuario implements Serializable {
     private static final long serialVersionUID = 1L;
     private String id;
-    // TODO: crear un indice unico por este campo
+    /* El índice único lo crea MigracionEmailsUsuarios, después de revisar que no haya emails repetidos */
     private String email; // almacenadr normalizado (lowercase)
     private String passwordHash; // BCrypt
     private Set<RolUsuario> roles = new HashSet<>();
@@ -28,6 +28,18 @@ public class Usuario implements Serializable {
         this.roles = roles != null ? roles : new HashSet<>();
     }
 
+    /**
+     * Reconstruye el usuario autenticado a partir de los datos de un token firmado, sin ir a la base.
+     *
+     * @return un usuario sin contraseña, que sólo sirve como principal del pedido
+     */
+    public static Usuario autenticado(String id, String email, Set<RolUsuario> roles, Instant fechaCreacion) {
+        Usuario usuario = new Usuario(email, null, roles);
+        usuario.id = id;
+        usuario.fechaCreacion = fechaCreacion;
+        return usuario;
+    }
+
     @Override
     public boolean equals(Object o) {
         return o instanceof Usuario usuario && this.id.equals(usuario.getId());
@@ -4,6 +4,8 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
 import lombok.*;
 import org.springframework.data.annotation.PersistenceCreator;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import tacs.eventos.model.Usuario;
@@ -15,6 +17,9 @@ import java.util.UUID;
 @AllArgsConstructor(access = AccessLevel.PROTECTED, onConstructor_ = @PersistenceCreator)
 @Getter
 @Document(collection = "eventos")
+@CompoundIndex(name = "fecha_inicio_id_idx", def = "{'fechaHoraInicio': 1, '_id': 1}")
+// Índice de los términos de búsqueda que agrega IndexadorBusquedaEventos al guardar
+@CompoundIndex(name = "terminos_busqueda_idx", def = "{'terminosBusqueda': 1}")
 public class Evento {
     @Setter
     @Indexed
@@ -49,6 +54,13 @@ public class Evento {
     @Setter
     private Usuario organizador;
 
+    /*
+     * Versión del evento: Spring Data la incrementa en cada save, y rechaza el save si el evento se modificó desde que
+     * se leyó. Los ETags del evento salen de acá.
+     */
+    @Version
+    private Long version;
+
     public Evento(String titulo, String descripcion, LocalDateTime fechaHoraInicio, int duracionMinutos,
             String ubicacion, int cupoMaximo, double precio, String categoria) {
 
@@ -86,6 +98,14 @@ public class Evento {
         this.estado = EstadoEvento.ABIERTO;
     }
 
+    /**
+     * @return una copia del evento, para que quien la reciba pueda modificarla sin afectar al original
+     */
+    public Evento copia() {
+        return new Evento(id, titulo, descripcion, fechaHoraInicio, duracionMinutos, ubicacion, cupoMaximo, precio,
+                categoria, estado, organizador, version);
+    }
+
     @Override
     public boolean equals(Object o) {
         return o instanceof Evento evento && evento.id != null && evento.id.equals(id);
@@ -17,21 +17,30 @@ import java.util.UUID;
 /* Constructor de todos los argumentos, para que use Spring Data para crear objetos desde documentos de la DB */
 @AllArgsConstructor(access = AccessLevel.PROTECTED, onConstructor_ = @PersistenceCreator)
 @Document(collection = "inscripciones")
-@CompoundIndex(name = "evento_participante_estado_idx", def = "{'evento': 1, 'participante': 1, 'estado': 1}")
-@CompoundIndex(name = "participante_estado_idx", def = "{'participante': 1, 'estado': 1}")
-@CompoundIndex(name = "evento_estado_idx", def = "{'evento': 1, 'estado': 1}")
+@CompoundIndex(name = "evento_id_participante_id_estado_idx", def = "{'eventoId': 1, 'participanteId': 1, 'estado': 1}")
+@CompoundIndex(name = "participante_id_estado_idx", def = "{'participanteId': 1, 'estado': 1}")
+@CompoundIndex(name = "evento_id_estado_idx", def = "{'eventoId': 1, 'estado': 1}")
+@CompoundIndex(name = "evento_id_estado_ingreso_waitlist_idx", def = "{'eventoId': 1, 'estado': 1, 'fechaHoraIngresoAWaitlist': 1}")
 public class InscripcionEvento {
     @Getter
     @NonNull
     @Indexed
     private String id;
+    /*
+     * Se guardan sólo los ids del participante y del evento, y no los documentos completos: así las inscripciones no
+     * quedan desactualizadas cuando se modifica el evento o el usuario, y las queries comparan un string en vez de un
+     * subdocumento.
+     */
     @Getter
     @NonNull
-    private final Usuario participante;
+    private final String participanteId;
     @Getter
     @NonNull
-    @Indexed
-    private final Evento evento;
+    private final String eventoId;
+    /* Proyección del participante para mostrar en los listados sin tener que buscar al usuario */
+    @Getter
+    @Nullable
+    private final String emailParticipante;
     @Nullable
     private final LocalDateTime fechaHoraIngresoAWaitlist;
     @Setter
@@ -57,8 +66,8 @@ public class InscripcionEvento {
      */
     public static InscripcionEvento crearNueva(Usuario participante, Evento evento,
             LocalDateTime fechaHoraIngresoAWaitlist, LocalDateTime fechaHoraConfirmacion, EstadoInscripcion estado) {
-        return new InscripcionEvento(UUID.randomUUID().toString(), participante, evento, fechaHoraIngresoAWaitlist,
-                fechaHoraConfirmacion, null, estado);
+        return new InscripcionEvento(UUID.randomUUID().toString(), participante.getId(), evento.getId(),
+                participante.getEmail(), fechaHoraIngresoAWaitlist, fechaHoraConfirmacion, null, estado);
     }
 
     /**
@@ -97,13 +106,13 @@ public class InscripcionEvento {
 
     @Override
     public boolean equals(Object o) {
-        return o instanceof InscripcionEvento inscripcion && this.participante.equals(inscripcion.getParticipante())
-                && this.evento.equals(inscripcion.getEvento());
+        return o instanceof InscripcionEvento inscripcion && this.participanteId.equals(inscripcion.getParticipanteId())
+                && this.eventoId.equals(inscripcion.getEventoId());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(participante, evento);
+        return Objects.hash(participanteId, eventoId);
     }
 
     public void confirmar() {
@@ -35,4 +35,17 @@ public class InscripcionFactory {
         return InscripcionEvento.crearNueva(participante, evento, LocalDateTime.now(), null,
                 EstadoInscripcion.PENDIENTE);
     }
+
+    /**
+     * Crea la inscripción confirmada que reemplaza a una pendiente que obtuvo un cupo sin pasar por la waitlist: tiene
+     * el mismo id, y no tiene fecha de ingreso a la waitlist.
+     *
+     * @param pendiente
+     *
+     * @return una nueva instancia de InscripcionEvento
+     */
+    public static InscripcionEvento confirmadaEnLugarDe(InscripcionEvento pendiente) {
+        return new InscripcionEvento(pendiente.getId(), pendiente.getParticipanteId(), pendiente.getEventoId(),
+                pendiente.getEmailParticipante(), null, LocalDateTime.now(), null, EstadoInscripcion.CONFIRMADA);
+    }
 }
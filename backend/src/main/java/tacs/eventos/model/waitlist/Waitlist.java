@@ -2,6 +2,7 @@ package tacs.eventos.model.waitlist;
 
 import tacs.eventos.model.inscripcion.InscripcionEvento;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -20,4 +21,35 @@ public interface Waitlist {
      * Devuelve la próxima inscripción pendiente en la waitlist.
      */
     Optional<InscripcionEvento> proxima();
+
+    /**
+     * Saca de la waitlist una inscripción que ya no está pendiente (por ejemplo, porque se canceló), para que no haya
+     * que leerla y descartarla al promover.
+     *
+     * @param idInscripcion
+     */
+    void quitar(String idInscripcion);
+
+    /**
+     * @param idInscripcion
+     *
+     * @return la posición de la inscripción en la waitlist, empezando en 1 para la próxima a salir, o un Optional vacío
+     *         si no está en la waitlist
+     */
+    Optional<Long> posicion(String idInscripcion);
+
+    /**
+     * @return cuántas inscripciones hay en la waitlist
+     */
+    long tamanio();
+
+    /**
+     * @param desde
+     *            cuántas inscripciones saltear desde el principio de la waitlist
+     * @param cantidad
+     *            cantidad máxima de ids a devolver
+     *
+     * @return los ids de las inscripciones de la waitlist, en orden de llegada, a partir de la posición pedida
+     */
+    List<String> rango(long desde, int cantidad);
 }
@@ -5,12 +5,14 @@ import tacs.eventos.model.evento.Evento;
 import tacs.eventos.model.inscripcion.InscripcionEvento;
 import tacs.eventos.repository.inscripcion.InscripcionesRepository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Queue;
 
 /**
  * Waitlist que guarda la cola como una Queue en una memoria compartida entre instancias del servicio, como por ejemplo
- * Redis.
+ * Redis. Las consultas de posición y de rango recorren la cola, así que sólo conviene usarla con colas chicas o en
+ * memoria (ver WaitlistRedisOrdenada).
  */
 @RequiredArgsConstructor
 public class WaitlistEnMemoriaCompartida implements Waitlist {
@@ -32,4 +34,26 @@ public class WaitlistEnMemoriaCompartida implements Waitlist {
         }
         return Optional.empty(); // Cuando se haya agotado la cola, retorna Optional.empty()
     }
+
+    public void quitar(String idInscripcion) {
+        items.remove(idInscripcion);
+    }
+
+    public Optional<Long> posicion(String idInscripcion) {
+        long posicion = 1;
+        for (String id : items) {
+            if (id.equals(idInscripcion))
+                return Optional.of(posicion);
+            posicion++;
+        }
+        return Optional.empty();
+    }
+
+    public long tamanio() {
+        return items.size();
+    }
+
+    public List<String> rango(long desde, int cantidad) {
+        return items.stream().skip(desde).limit(cantidad).toList();
+    }
 }
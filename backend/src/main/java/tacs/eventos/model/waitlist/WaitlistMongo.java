@@ -6,6 +6,7 @@ import tacs.eventos.model.inscripcion.EstadoInscripcion;
 import tacs.eventos.model.inscripcion.InscripcionEvento;
 import tacs.eventos.repository.inscripcion.InscripcionesRepository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -23,6 +24,26 @@ public class WaitlistMongo implements Waitlist {
     }
 
     public Optional<InscripcionEvento> proxima() {
-        return inscripcionesRepository.findFirstByEventoAndEstado(evento, EstadoInscripcion.PENDIENTE);
+        return inscripcionesRepository.findFirstByEventoIdAndEstado(evento.getId(), EstadoInscripcion.PENDIENTE);
+    }
+
+    public void quitar(String idInscripcion) {
+        // No hay nada que sacar: las pendientes se leen de la base, y la inscripción ya no está pendiente
+    }
+
+    public Optional<Long> posicion(String idInscripcion) {
+        return inscripcionesRepository.findById(idInscripcion)
+                .filter(i -> i.estaPendiente() && evento.getId().equals(i.getEventoId()))
+                .flatMap(InscripcionEvento::getFechaHoraIngresoAWaitlist)
+                .map(fecha -> inscripcionesRepository.countByEventoIdAndEstadoAndFechaHoraIngresoAWaitlistLessThan(
+                        evento.getId(), EstadoInscripcion.PENDIENTE, fecha) + 1);
+    }
+
+    public long tamanio() {
+        return inscripcionesRepository.countByEventoIdAndEstado(evento.getId(), EstadoInscripcion.PENDIENTE);
+    }
+
+    public List<String> rango(long desde, int cantidad) {
+        return inscripcionesRepository.idsPendientesEnOrden(evento.getId(), desde, cantidad);
     }
 }
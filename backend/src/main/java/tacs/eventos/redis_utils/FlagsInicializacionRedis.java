@@ -1,11 +1,16 @@
 package tacs.eventos.redis_utils;
 
+import io.netty.buffer.ByteBuf;
 import lombok.AllArgsConstructor;
 import org.redisson.api.RBucket;
 import org.redisson.api.RedissonClient;
 import org.redisson.codec.JsonJacksonCodec;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Optional;
 
 import static tacs.eventos.redis_utils.EstadoInicializacionRedis.NO_INICIALIZADO;
@@ -21,8 +26,51 @@ public class FlagsInicializacionRedis {
                 .orElse(NO_INICIALIZADO);
     }
 
+    /**
+     * @param estado
+     *
+     * @return el valor que queda guardado en Redis para ese estado, para poder compararlo desde scripts Lua
+     */
+    public String valorEnRedis(EstadoInicializacionRedis estado) {
+        try {
+            ByteBuf valor = new JsonJacksonCodec().getValueEncoder().encode(estado.name());
+            try {
+                return valor.toString(StandardCharsets.UTF_8);
+            } finally {
+                valor.release();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     public void setEstadoInicializacion(String flagInicializacion, EstadoInicializacionRedis estado) {
         RBucket<String> flagInicializacionCola = redisson.getBucket(flagInicializacion, new JsonJacksonCodec());
         flagInicializacionCola.set(estado.name());
     }
+
+    /**
+     * Pasa el flag a INICIALIZANDO, sólo si nadie lo había marcado. Así, aunque varias instancias (o varios hilos)
+     * quieran inicializar lo mismo a la vez, lo hace una sola.
+     *
+     * @param flagInicializacion
+     * @param vigencia
+     *            tiempo después del cual el flag vence solo
+     *
+     * @return si lo marcó esta llamada
+     */
+    public boolean tomarInicializacion(String flagInicializacion, Duration vigencia) {
+        RBucket<String> flagInicializacionCola = redisson.getBucket(flagInicializacion, new JsonJacksonCodec());
+        return flagInicializacionCola.setIfAbsent(EstadoInicializacionRedis.INICIALIZANDO.name(), vigencia);
+    }
+
+    /**
+     * Como {@link #setEstadoInicializacion(String, EstadoInicializacionRedis)}, pero el flag vence solo. Sirve para
+     * que, si se cae la instancia que estaba inicializando, otra lo vuelva a intentar.
+     */
+    public void setEstadoInicializacion(String flagInicializacion, EstadoInicializacionRedis estado,
+            Duration vigencia) {
+        RBucket<String> flagInicializacionCola = redisson.getBucket(flagInicializacion, new JsonJacksonCodec());
+        flagInicializacionCola.set(estado.name(), vigencia);
+    }
 }
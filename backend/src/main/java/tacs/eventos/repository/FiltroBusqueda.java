@@ -1,5 +1,19 @@
 package tacs.eventos.repository;
 
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.Optional;
+
 public interface FiltroBusqueda<T> {
     Boolean aplicarCondicionfiltrado(T elemento);
+
+    /**
+     * Traduce el filtro a un Criteria de Mongo, para que se aplique en la base de datos en lugar de en memoria.
+     *
+     * @return el Criteria equivalente al filtro, o un Optional vacío si el filtro no se puede traducir. En ese caso, el
+     *         repositorio lo aplica en memoria sobre los resultados de la consulta.
+     */
+    default Optional<Criteria> comoCriteria() {
+        return Optional.empty();
+    }
 }
@@ -0,0 +1,64 @@
+package tacs.eventos.repository.evento;
+
+import tacs.eventos.model.evento.Evento;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición dentro del listado de eventos, ordenado por (fechaHoraInicio, id). Se usa para paginar por keyset: la página
+ * siguiente empieza en el primer evento posterior al cursor, sin tener que saltear los anteriores.
+ *
+ * @param fechaHoraInicio
+ *            fecha de inicio del último evento devuelto. Puede ser null si ese evento no tenía fecha.
+ * @param id
+ *            id del último evento devuelto.
+ */
+public record CursorEventos(LocalDateTime fechaHoraInicio, String id) {
+
+    private static final String SEPARADOR = "|";
+
+    /**
+     * @param evento
+     *            último evento de una página
+     *
+     * @return el cursor que apunta a continuación de ese evento
+     */
+    public static CursorEventos despuesDe(Evento evento) {
+        return new CursorEventos(evento.getFechaHoraInicio(), evento.getId());
+    }
+
+    /**
+     * @return el cursor como un token opaco, para devolverle al cliente
+     */
+    public String codificar() {
+        String fecha = fechaHoraInicio == null ? "" : fechaHoraInicio.toString();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((fecha + SEPARADOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token
+     *            token generado con {@link #codificar()}
+     *
+     * @return el cursor representado por el token
+     *
+     * @throws IllegalArgumentException
+     *             si el token no es válido
+     */
+    public static CursorEventos decodificar(String token) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separador = valor.indexOf(SEPARADOR);
+            if (separador < 0 || separador == valor.length() - 1)
+                throw new IllegalArgumentException("Cursor inválido");
+            String fecha = valor.substring(0, separador);
+            return new CursorEventos(fecha.isEmpty() ? null : LocalDateTime.parse(fecha),
+                    valor.substring(separador + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+}
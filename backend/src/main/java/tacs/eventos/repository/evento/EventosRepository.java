@@ -3,8 +3,10 @@ package tacs.eventos.repository.evento;
 import tacs.eventos.model.evento.Evento;
 import tacs.eventos.repository.FiltroBusqueda;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface EventosRepository {
 
@@ -20,6 +22,13 @@ public interface EventosRepository {
      */
     Optional<Evento> findById(String eventoId);
 
+    /**
+     * @param eventosIds
+     *
+     * @return los eventos con esos ids que existan, en cualquier orden
+     */
+    List<Evento> findAllById(Collection<String> eventosIds);
+
     // TODO: si vamos a terminar modelando usuarios cambiarlo a la entidad Usuario
 
     /**
@@ -49,4 +58,29 @@ public interface EventosRepository {
 
     List<Evento> findByFiltroBusqueda(List<FiltroBusqueda<Evento>> filtrosBusqueda);
 
+    /**
+     * Devuelve una página de los eventos que cumplen con los filtros, ordenados por (fechaHoraInicio, id).
+     *
+     * @param filtrosBusqueda
+     *            filtros a aplicar
+     * @param desde
+     *            cursor a partir del cual empieza la página (exclusivo), o null para la primera página
+     * @param limite
+     *            cantidad máxima de eventos a devolver
+     *
+     * @return los eventos de la página
+     */
+    List<Evento> findByFiltroBusqueda(List<FiltroBusqueda<Evento>> filtrosBusqueda, CursorEventos desde, int limite);
+
+    /**
+     * Igual que {@link #findByFiltroBusqueda(List, CursorEventos, int)}, pero devuelve todos los eventos a medida que
+     * se leen del cursor de Mongo, sin cargarlos todos en memoria. El stream tiene que cerrarse después de usarse.
+     *
+     * @param filtrosBusqueda
+     *            filtros a aplicar
+     *
+     * @return stream de los eventos que cumplen con los filtros, ordenados por (fechaHoraInicio, id)
+     */
+    Stream<Evento> streamByFiltroBusqueda(List<FiltroBusqueda<Evento>> filtrosBusqueda);
+
 }
@@ -1,6 +1,7 @@
 package tacs.eventos.repository.evento;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -9,13 +10,17 @@ import tacs.eventos.model.evento.Evento;
 import tacs.eventos.repository.FiltroBusqueda;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 public class EventosRepositoryImpl implements EventosRepository {
 
+    private static final Sort ORDEN_LISTADO = Sort.by(Sort.Order.asc("fechaHoraInicio"), Sort.Order.asc("_id"));
+
     @Autowired
     private MongoTemplate eventos;
 
@@ -30,6 +35,11 @@ public class EventosRepositoryImpl implements EventosRepository {
         return Optional.ofNullable(eventos.findById(eventoId, Evento.class));
     }
 
+    @Override
+    public List<Evento> findAllById(Collection<String> eventosIds) {
+        return eventos.find(new Query(Criteria.where("_id").in(eventosIds)), Evento.class);
+    }
+
     @Override
     public List<Evento> findByOrganizador(String organizadorId) {
         Query query = new Query();
@@ -40,9 +50,75 @@ public class EventosRepositoryImpl implements EventosRepository {
 
     @Override
     public List<Evento> findByFiltroBusqueda(List<FiltroBusqueda<Evento>> filtrosBusqueda) {
-        List<Evento> todos = eventos.findAll(Evento.class);
-        return todos.stream().filter(e -> filtrosBusqueda.stream().allMatch(f -> f.aplicarCondicionfiltrado(e)))
-                .collect(Collectors.toList());
+        ConsultaFiltrada consulta = new ConsultaFiltrada(filtrosBusqueda);
+        List<Evento> resultados = eventos.find(consulta.query, Evento.class);
+        if (consulta.filtrosEnMemoria.isEmpty())
+            return resultados;
+        return resultados.stream().filter(consulta::cumpleFiltrosEnMemoria).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Evento> findByFiltroBusqueda(List<FiltroBusqueda<Evento>> filtrosBusqueda, CursorEventos desde,
+            int limite) {
+        ConsultaFiltrada consulta = desde == null ? new ConsultaFiltrada(filtrosBusqueda)
+                : new ConsultaFiltrada(filtrosBusqueda, posterioresA(desde));
+        consulta.query.with(ORDEN_LISTADO);
+
+        if (consulta.filtrosEnMemoria.isEmpty())
+            return eventos.find(consulta.query.limit(limite), Evento.class);
+
+        // Si hay filtros que resuelve la aplicación, no se sabe de antemano cuántos documentos leer: se recorre el
+        // cursor hasta completar la página
+        try (Stream<Evento> stream = eventos.stream(consulta.query, Evento.class)) {
+            return stream.filter(consulta::cumpleFiltrosEnMemoria).limit(limite).collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public Stream<Evento> streamByFiltroBusqueda(List<FiltroBusqueda<Evento>> filtrosBusqueda) {
+        ConsultaFiltrada consulta = new ConsultaFiltrada(filtrosBusqueda);
+        consulta.query.with(ORDEN_LISTADO);
+        Stream<Evento> stream = eventos.stream(consulta.query, Evento.class);
+        return consulta.filtrosEnMemoria.isEmpty() ? stream : stream.filter(consulta::cumpleFiltrosEnMemoria);
+    }
+
+    /**
+     * @return criterio que matchea los eventos que están después del cursor, en el orden (fechaHoraInicio, id)
+     */
+    private static Criteria posterioresA(CursorEventos cursor) {
+        if (cursor.fechaHoraInicio() == null) {
+            // Mongo ordena los null primero: siguen los que tampoco tienen fecha y un id mayor, y todos los que tienen
+            // fecha
+            return new Criteria().orOperator(Criteria.where("fechaHoraInicio").is(null).and("_id").gt(cursor.id()),
+                    Criteria.where("fechaHoraInicio").ne(null));
+        }
+        return new Criteria().orOperator(Criteria.where("fechaHoraInicio").gt(cursor.fechaHoraInicio()),
+                Criteria.where("fechaHoraInicio").is(cursor.fechaHoraInicio()).and("_id").gt(cursor.id()));
+    }
+
+    /**
+     * Separa los filtros de búsqueda entre los que se pueden traducir a un Criteria, que se combinan en un único query
+     * para que los resuelva Mongo (usando los índices que haya), y los que no, que se aplican en memoria sobre el
+     * resultado de ese query.
+     */
+    private static class ConsultaFiltrada {
+        private final Query query;
+        private final List<FiltroBusqueda<Evento>> filtrosEnMemoria = new ArrayList<>();
+
+        ConsultaFiltrada(List<FiltroBusqueda<Evento>> filtrosBusqueda, Criteria... criteriosAdicionales) {
+            List<Criteria> criterios = new ArrayList<>(List.of(criteriosAdicionales));
+            for (FiltroBusqueda<Evento> filtro : filtrosBusqueda) {
+                filtro.comoCriteria().ifPresentOrElse(c -> {
+                    if (!c.getCriteriaObject().isEmpty()) // Los Criteria vacíos no filtran nada
+                        criterios.add(c);
+                }, () -> filtrosEnMemoria.add(filtro));
+            }
+            this.query = criterios.isEmpty() ? new Query() : new Query(new Criteria().andOperator(criterios));
+        }
+
+        boolean cumpleFiltrosEnMemoria(Evento evento) {
+            return filtrosEnMemoria.stream().allMatch(f -> f.aplicarCondicionfiltrado(evento));
+        }
     }
 
     @Override
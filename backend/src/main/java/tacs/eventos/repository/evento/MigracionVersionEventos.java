@@ -0,0 +1,33 @@
+package tacs.eventos.repository.evento;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import tacs.eventos.model.evento.Evento;
+
+/**
+ * Al iniciar la aplicación, les pone la versión 0 a los eventos que se guardaron antes de que {@link Evento} tuviera
+ * versión. Sin versión, Spring Data los toma como eventos nuevos, y el próximo save intentaría insertarlos de nuevo.
+ * <p>
+ * Corre al crear el bean, así que el arranque espera a que termine y no se atienden pedidos antes. Es idempotente: sólo
+ * toca los eventos que no tienen el campo.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MigracionVersionEventos {
+    private final MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void migrar() {
+        long migrados = mongoTemplate.updateMulti(new Query(Criteria.where("version").exists(false)),
+                Update.update("version", 0L), Evento.class).getModifiedCount();
+        if (migrados > 0)
+            log.info("Se inicializó la versión de {} eventos", migrados);
+    }
+}
@@ -0,0 +1,70 @@
+package tacs.eventos.repository.evento.busqueda;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Convierte un texto en español en los términos que se indexan para la búsqueda por palabras clave: pasa todo a
+ * minúsculas, saca los acentos, descarta las palabras vacías y reduce cada palabra a su raíz (stemming liviano, que
+ * sólo saca plurales y terminaciones de género). Así "Conciertos" y "concierto" producen el mismo término.
+ * <p>
+ * Como los términos de la consulta pasan por el mismo proceso, una palabra clave matchea los eventos que tengan algún
+ * término que empiece con ella (ver {@link FiltradoPorPalabrasClave}).
+ */
+public final class AnalizadorTextoEspanol {
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of("a", "al", "con", "de", "del", "el", "en", "la", "las",
+            "lo", "los", "o", "para", "por", "que", "se", "su", "un", "una", "y");
+
+    private AnalizadorTextoEspanol() {
+    }
+
+    /**
+     * @param textos
+     *            textos a analizar (los null se ignoran)
+     *
+     * @return los términos distintos de los textos, en el orden en que aparecen
+     */
+    public static List<String> terminos(String... textos) {
+        return Arrays.stream(textos).filter(t -> t != null && !t.isBlank())
+                .flatMap(t -> Arrays.stream(sinAcentos(t.toLowerCase(Locale.ROOT)).split("[^a-z0-9]+")))
+                .filter(palabra -> !palabra.isEmpty() && !PALABRAS_VACIAS.contains(palabra))
+                .map(AnalizadorTextoEspanol::raiz).collect(Collectors.toCollection(LinkedHashSet::new)).stream()
+                .toList();
+    }
+
+    private static String sinAcentos(String texto) {
+        return Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+    }
+
+    /**
+     * Stemmer liviano para español (basado en el de J. Savoy): las palabras cortas quedan igual, y a las demás se les
+     * saca la vocal final o la terminación de plural.
+     */
+    static String raiz(String palabra) {
+        int largo = palabra.length();
+        if (largo < 5)
+            return palabra;
+
+        switch (palabra.charAt(largo - 1)) {
+        case 'o', 'a', 'e':
+            return palabra.substring(0, largo - 1);
+        case 's':
+            if (palabra.endsWith("eses"))
+                return palabra.substring(0, largo - 2);
+            if (palabra.endsWith("ces"))
+                return palabra.substring(0, largo - 3) + "z";
+            char anteultima = palabra.charAt(largo - 2);
+            if (anteultima == 'o' || anteultima == 'a' || anteultima == 'e')
+                return palabra.substring(0, largo - 2);
+            return palabra;
+        default:
+            return palabra;
+        }
+    }
+}
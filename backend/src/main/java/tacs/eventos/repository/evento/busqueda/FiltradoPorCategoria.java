@@ -1,9 +1,12 @@
 package tacs.eventos.repository.evento.busqueda;
 
 import lombok.AllArgsConstructor;
+import org.springframework.data.mongodb.core.query.Criteria;
 import tacs.eventos.model.evento.Evento;
 import tacs.eventos.repository.FiltroBusqueda;
 
+import java.util.Optional;
+
 @AllArgsConstructor
 public class FiltradoPorCategoria implements FiltroBusqueda<Evento> {
     private String categoria;
@@ -15,4 +18,12 @@ public class FiltradoPorCategoria implements FiltroBusqueda<Evento> {
         }
         return evento.getCategoria().equals(categoria.trim());
     }
+
+    @Override
+    public Optional<Criteria> comoCriteria() {
+        if (categoria == null || categoria.trim().isEmpty()) {
+            return Optional.of(new Criteria()); // No filtra nada
+        }
+        return Optional.of(Criteria.where("categoria").is(categoria.trim()));
+    }
 }
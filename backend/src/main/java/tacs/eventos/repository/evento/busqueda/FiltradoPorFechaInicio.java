@@ -2,10 +2,12 @@ package tacs.eventos.repository.evento.busqueda;
 
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
+import org.springframework.data.mongodb.core.query.Criteria;
 import tacs.eventos.model.evento.Evento;
 import tacs.eventos.repository.FiltroBusqueda;
 
 import java.time.LocalDate;
+import java.util.Optional;
 
 @AllArgsConstructor
 public class FiltradoPorFechaInicio implements FiltroBusqueda<Evento> {
@@ -20,4 +22,24 @@ public class FiltradoPorFechaInicio implements FiltroBusqueda<Evento> {
         // Chequea que fecha de inicio >= fecha minima y la fecha maxima >= fecha de inicio.
         return (fechaInicio.compareTo(fechaMinima) * fechaMaxima.compareTo(fechaInicio)) >= 0;
     }
+
+    @Override
+    public Optional<Criteria> comoCriteria() {
+        boolean sinMinimo = fechaMinima == null || fechaMinima.equals(LocalDate.MIN);
+        boolean sinMaximo = fechaMaxima == null || fechaMaxima.equals(LocalDate.MAX);
+        if (sinMinimo && sinMaximo) {
+            return Optional.of(new Criteria()); // No filtra nada
+        }
+
+        /*
+         * LocalDate.MIN y LocalDate.MAX no se pueden representar como fechas de Mongo, así que en esos casos no se pone
+         * la cota. La cota superior es el comienzo del día siguiente a la fecha máxima, para incluir todo ese día.
+         */
+        Criteria criteria = Criteria.where("fechaHoraInicio");
+        if (!sinMinimo)
+            criteria = criteria.gte(fechaMinima.atStartOfDay());
+        if (!sinMaximo)
+            criteria = criteria.lt(fechaMaxima.plusDays(1).atStartOfDay());
+        return Optional.of(criteria);
+    }
 }
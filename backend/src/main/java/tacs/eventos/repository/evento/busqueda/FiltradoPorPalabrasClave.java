@@ -1,24 +1,54 @@
 package tacs.eventos.repository.evento.busqueda;
 
 import lombok.AllArgsConstructor;
+import org.springframework.data.mongodb.core.query.Criteria;
 import tacs.eventos.model.evento.Evento;
 import tacs.eventos.repository.FiltroBusqueda;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
 
 @AllArgsConstructor
 public class FiltradoPorPalabrasClave implements FiltroBusqueda<Evento> {
+    /**
+     * Campo de los eventos con los términos de búsqueda de su título y descripción. Lo mantiene
+     * {@link IndexadorBusquedaEventos} cada vez que se guarda un evento.
+     */
+    public static final String CAMPO_TERMINOS = "terminosBusqueda";
+
     private List<String> palabrasClave;
 
     @Override
     public Boolean aplicarCondicionfiltrado(Evento evento) {
-        if (palabrasClave == null || palabrasClave.isEmpty()) {
+        List<String> consulta = terminosConsulta();
+        if (consulta.isEmpty()) {
             return true;
         }
 
-        String eventoTexto = (evento.getTitulo() + " " + evento.getDescripcion()).toLowerCase();
+        List<String> terminosEvento = AnalizadorTextoEspanol.terminos(evento.getTitulo(), evento.getDescripcion());
+
+        // Si cualquiera de las palabras clave es prefijo de algún término del evento, es una coincidencia
+        return consulta.stream().anyMatch(palabra -> terminosEvento.stream().anyMatch(t -> t.startsWith(palabra)));
+    }
 
-        // Si cualquiera de las palabras clave está presente, es una coincidencia
-        return palabrasClave.stream().map(String::toLowerCase).anyMatch(palabra -> eventoTexto.contains(palabra));
+    @Override
+    public Optional<Criteria> comoCriteria() {
+        List<String> consulta = terminosConsulta();
+        if (consulta.isEmpty()) {
+            return Optional.of(new Criteria()); // No filtra nada
+        }
+
+        // Regex anclados al inicio: Mongo los resuelve recorriendo un rango del índice de términos, y permiten que una
+        // palabra incompleta matchee
+        Pattern[] prefijos = consulta.stream().map(palabra -> Pattern.compile("^" + palabra)).toArray(Pattern[]::new);
+        return Optional.of(Criteria.where(CAMPO_TERMINOS).in((Object[]) prefijos));
+    }
+
+    private List<String> terminosConsulta() {
+        if (palabrasClave == null || palabrasClave.isEmpty()) {
+            return List.of();
+        }
+        return AnalizadorTextoEspanol.terminos(palabrasClave.toArray(String[]::new));
     }
 }
@@ -1,9 +1,12 @@
 package tacs.eventos.repository.evento.busqueda;
 
 import lombok.AllArgsConstructor;
+import org.springframework.data.mongodb.core.query.Criteria;
 import tacs.eventos.model.evento.Evento;
 import tacs.eventos.repository.FiltroBusqueda;
 
+import java.util.Optional;
+
 @AllArgsConstructor
 public class FiltradoPorPrecio implements FiltroBusqueda<Evento> {
     private Double precioMinimo;
@@ -21,4 +24,18 @@ public class FiltradoPorPrecio implements FiltroBusqueda<Evento> {
 
         return cumpleMinimo && cumpleMaximo;
     }
+
+    @Override
+    public Optional<Criteria> comoCriteria() {
+        if (precioMinimo == null && precioMaximo == null) {
+            return Optional.of(new Criteria()); // No filtra nada
+        }
+
+        Criteria criteria = Criteria.where("precio");
+        if (precioMinimo != null)
+            criteria = criteria.gte(precioMinimo);
+        if (precioMaximo != null)
+            criteria = criteria.lte(precioMaximo);
+        return Optional.of(criteria);
+    }
 }
@@ -0,0 +1,24 @@
+package tacs.eventos.repository.evento.busqueda;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveCallback;
+import org.springframework.stereotype.Component;
+import tacs.eventos.model.evento.Evento;
+
+/**
+ * Agrega al documento de cada evento que se guarda los términos de búsqueda de su título y descripción. Como se calcula
+ * en cada save, el índice queda actualizado cuando se crea o se modifica un evento, sin importar desde dónde.
+ * <p>
+ * Los términos sólo existen en la colección de eventos: no forman parte de la clase {@link Evento}, así que no se
+ * copian en los documentos que embeben eventos.
+ */
+@Component
+public class IndexadorBusquedaEventos implements BeforeSaveCallback<Evento> {
+
+    @Override
+    public Evento onBeforeSave(Evento evento, Document documento, String coleccion) {
+        documento.put(FiltradoPorPalabrasClave.CAMPO_TERMINOS,
+                AnalizadorTextoEspanol.terminos(evento.getTitulo(), evento.getDescripcion()));
+        return evento;
+    }
+}
@@ -0,0 +1,56 @@
+package tacs.eventos.repository.evento.busqueda;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import tacs.eventos.model.evento.Evento;
+
+import java.util.stream.Stream;
+
+/**
+ * Al iniciar la aplicación, calcula los términos de búsqueda de los eventos que se guardaron antes de que existiera el
+ * índice (los nuevos los calcula {@link IndexadorBusquedaEventos}).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReindexadorBusquedaEventos {
+    private static final int TAMANIO_LOTE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexarEventosSinTerminos() {
+        Query sinTerminos = new Query(Criteria.where(FiltradoPorPalabrasClave.CAMPO_TERMINOS).exists(false));
+        sinTerminos.fields().include("titulo", "descripcion");
+        String coleccion = mongoTemplate.getCollectionName(Evento.class);
+
+        int indexados = 0;
+        BulkOperations lote = null;
+        try (Stream<Document> eventos = mongoTemplate.stream(sinTerminos, Document.class, coleccion)) {
+            for (Document evento : (Iterable<Document>) eventos::iterator) {
+                if (lote == null)
+                    lote = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, coleccion);
+                lote.updateOne(new Query(Criteria.where("_id").is(evento.get("_id"))), Update.update(
+                        FiltradoPorPalabrasClave.CAMPO_TERMINOS,
+                        AnalizadorTextoEspanol.terminos(evento.getString("titulo"), evento.getString("descripcion"))));
+                if (++indexados % TAMANIO_LOTE == 0) {
+                    lote.execute();
+                    lote = null;
+                }
+            }
+        }
+        if (lote != null)
+            lote.execute();
+        if (indexados > 0)
+            log.info("Se indexaron los términos de búsqueda de {} eventos", indexados);
+    }
+}
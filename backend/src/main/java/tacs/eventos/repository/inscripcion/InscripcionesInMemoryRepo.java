@@ -19,18 +19,18 @@ public class InscripcionesInMemoryRepo {
     }
 
     public Optional<InscripcionEvento> getInscripcionConfirmada(Usuario participante, Evento evento) {
-        return this.inscripciones.stream()
-                .filter(i -> i.getEvento().equals(evento) && i.getParticipante().equals(participante))
+        return this.inscripciones.stream().filter(
+                i -> i.getEventoId().equals(evento.getId()) && i.getParticipanteId().equals(participante.getId()))
                 .filter(i -> i.getEstado() == EstadoInscripcion.CONFIRMADA).findFirst();
     }
 
     public List<InscripcionEvento> getInscripcionesNoCanceladasPorParticipante(Usuario participante) {
-        return this.inscripciones.stream().filter(i -> i.getParticipante().equals(participante))
+        return this.inscripciones.stream().filter(i -> i.getParticipanteId().equals(participante.getId()))
                 .filter(i -> i.getEstado() != EstadoInscripcion.CANCELADA).toList();
     }
 
     public List<InscripcionEvento> getInscripcionesPorEvento(Evento evento) {
-        return this.inscripciones.stream().filter(i -> i.getEvento().equals(evento)).toList();
+        return this.inscripciones.stream().filter(i -> i.getEventoId().equals(evento.getId())).toList();
     }
 
     public void guardarInscripcion(InscripcionEvento inscripcion) {
@@ -46,15 +46,16 @@ public class InscripcionesInMemoryRepo {
          * adentro de este repo.
          */
         long cantidad = this.inscripciones.stream()
-                .filter(i -> i.getEvento().equals(evento) && i.getEstado() == EstadoInscripcion.CONFIRMADA).count();
+                .filter(i -> i.getEventoId().equals(evento.getId()) && i.getEstado() == EstadoInscripcion.CONFIRMADA)
+                .count();
 
         System.out.println("DEBUG cantidadInscriptos - Evento: " + evento.getId() + " | Cantidad: " + cantidad);
         return (int) cantidad;
     }
 
     public Optional<InscripcionEvento> getInscripcionParaUsuarioYEvento(Usuario usuarioInscripto, Evento evento) {
-        return this.inscripciones.stream()
-                .filter(i -> i.getEvento().equals(evento) && i.getParticipante().equals(usuarioInscripto))
+        return this.inscripciones.stream().filter(
+                i -> i.getEventoId().equals(evento.getId()) && i.getParticipanteId().equals(usuarioInscripto.getId()))
                 .filter(i -> i.getEstado() != EstadoInscripcion.CANCELADA).findFirst();
     }
 
@@ -63,7 +64,7 @@ public class InscripcionesInMemoryRepo {
     }
 
     public List<InscripcionEvento> getInscripcionesPendientes(Evento evento) {
-        return this.inscripciones.stream().filter(i -> i.getEvento().equals(evento))
+        return this.inscripciones.stream().filter(i -> i.getEventoId().equals(evento.getId()))
                 .filter(InscripcionEvento::estaPendiente).toList();
     }
 }
@@ -17,73 +17,55 @@ import java.util.stream.Stream;
  * Guarda las inscripciones confirmadas o canceladas.
  */
 @Repository
-public interface InscripcionesRepository extends MongoRepository<InscripcionEvento, String> {
+public interface InscripcionesRepository
+        extends MongoRepository<InscripcionEvento, String>, InscripcionesRepositoryCustom {
 
     /**
      * Busca una inscripción de ese participante, que esté en un estado distinto al pasado por parámetro.
      *
-     * @param participante
+     * @param participanteId
      * @param estado
      *
      * @return
      */
-    List<InscripcionEvento> findByParticipanteAndEstadoNot(Usuario participante, EstadoInscripcion estado);
+    List<InscripcionEvento> findByParticipanteIdAndEstadoNot(String participanteId, EstadoInscripcion estado);
 
-    Optional<InscripcionEvento> findFirstByParticipanteAndEventoAndEstadoNot(Usuario participante, Evento evento,
+    Optional<InscripcionEvento> findFirstByParticipanteIdAndEventoIdAndEstadoNot(String participanteId, String eventoId,
             EstadoInscripcion estado);
 
     /**
-     * @param evento
+     * @param eventoId
      *
-     * @return todas las inscripciones (confirmadas, canceladas, o pendientes) de ese evento
+     * @return las inscripciones de ese evento que estén en ese estado
      */
-    List<InscripcionEvento> findByEventoAndEstado(Evento evento, EstadoInscripcion estado);
-
-    /**
-     * Obtiene todas las inscripciones pendientes para ese evento que hayan sido agregadas a la waitlist después de la
-     * fecha pasada por parámetro, ordenadas por fecha de adición.
-     *
-     * @param evento
-     * @param fechaHoraIngresoAWaitlist
-     *
-     * @return
-     */
-    default List<InscripcionEvento> pendientesPosterioresALaFechaOrdenados(Evento evento,
-            LocalDateTime fechaHoraIngresoAWaitlist) {
-        return findByEventoAndEstadoAndFechaHoraIngresoAWaitlistGreaterThanEqualOrderByFechaHoraIngresoAWaitlist(evento,
-                EstadoInscripcion.PENDIENTE, fechaHoraIngresoAWaitlist);
-    }
+    List<InscripcionEvento> findByEventoIdAndEstado(String eventoId, EstadoInscripcion estado);
 
     /**
-     * Obtiene todas las inscripciones para ese evento, en ese estado, que hayan sido agregadas a la waitlist en una
-     * fecha posterior a la pasada por parámetro, ordenadas por fechaHoraIngresoAWaitlist.
-     *
-     * @param evento
+     * @param eventoId
      * @param estado
      * @param fechaHoraIngresoAWaitlist
      *
-     * @return
+     * @return cuántas inscripciones de ese evento, en ese estado, entraron a la waitlist antes de esa fecha
      */
-    List<InscripcionEvento> findByEventoAndEstadoAndFechaHoraIngresoAWaitlistGreaterThanEqualOrderByFechaHoraIngresoAWaitlist(
-            Evento evento, EstadoInscripcion estado, LocalDateTime fechaHoraIngresoAWaitlist);
+    long countByEventoIdAndEstadoAndFechaHoraIngresoAWaitlistLessThan(String eventoId, EstadoInscripcion estado,
+            LocalDateTime fechaHoraIngresoAWaitlist);
 
     /**
-     * Obtiene todas las inscripciones para ese evento, en ese estado, ordenadas por fechaHoraIngresoAWaitlist.
-     *
-     * @param evento
+     * @param eventoId
      * @param estado
+     * @param fechaHoraIngresoAWaitlist
      *
-     * @return
+     * @return si alguna inscripción de ese evento, en ese estado, entró a la waitlist antes de esa fecha
      */
-    List<InscripcionEvento> findByEventoAndEstadoOrderByFechaHoraIngresoAWaitlist(Evento evento,
-            EstadoInscripcion estado);
+    boolean existsByEventoIdAndEstadoAndFechaHoraIngresoAWaitlistLessThan(String eventoId, EstadoInscripcion estado,
+            LocalDateTime fechaHoraIngresoAWaitlist);
 
     /**
-     * @param evento
+     * @param eventoId
      *
-     * @return cantidad de inscripciones confirmadas para ese evento
+     * @return cantidad de inscripciones (en cualquier estado) para ese evento
      */
-    int countByEvento(Evento evento);
+    int countByEventoId(String eventoId);
 
     /**
      * Busca una inscripción que no esté cancelada (puede estar confirmada o pendiente) para ese participante y evento.
@@ -94,7 +76,8 @@ public interface InscripcionesRepository extends MongoRepository<InscripcionEven
      * @return la inscripción, o un Optional vacío si no existe una que no cumpla con las condiciones
      */
     default Optional<InscripcionEvento> noCanceladaParaParticipanteYEvento(Usuario usuarioInscripto, Evento evento) {
-        return findFirstByParticipanteAndEventoAndEstadoNot(usuarioInscripto, evento, EstadoInscripcion.CANCELADA);
+        return findFirstByParticipanteIdAndEventoIdAndEstadoNot(usuarioInscripto.getId(), evento.getId(),
+                EstadoInscripcion.CANCELADA);
     }
 
     /**
@@ -103,24 +86,24 @@ public interface InscripcionesRepository extends MongoRepository<InscripcionEven
      * @return las inscripciones no canceladas de ese participante
      */
     default List<InscripcionEvento> noCanceladasDeParticipante(Usuario participante) {
-        return findByParticipanteAndEstadoNot(participante, EstadoInscripcion.CANCELADA);
+        return findByParticipanteIdAndEstadoNot(participante.getId(), EstadoInscripcion.CANCELADA);
     }
 
     /**
-     * @param evento
+     * @param eventoId
      * @param estadoInscripcion
      *
      * @return cantidad de inscripciones en ese estado para ese evento
      */
-    int countByEventoAndEstado(Evento evento, EstadoInscripcion estadoInscripcion);
+    int countByEventoIdAndEstado(String eventoId, EstadoInscripcion estadoInscripcion);
 
-    Optional<InscripcionEvento> findFirstByEventoAndEstado(Evento evento, EstadoInscripcion estado);
+    Optional<InscripcionEvento> findFirstByEventoIdAndEstado(String eventoId, EstadoInscripcion estado);
 
     // TODO: este creo que es el único método del repo que tendría sentido probar en un test unitario
 
     /**
-     * @return todos los eventos que tengan inscripciones creadas (en cualquier estado)
+     * @return los ids de todos los eventos que tengan inscripciones creadas (en cualquier estado)
      */
-    @Aggregation(pipeline = { "{ '$group': { '_id': '$evento' } }", "{ '$replaceRoot': { 'newRoot': '$_id' } }" })
-    Stream<Evento> eventosConInscripciones();
+    @Aggregation(pipeline = { "{ '$group': { '_id': '$eventoId' } }" })
+    Stream<String> idsEventosConInscripciones();
 }
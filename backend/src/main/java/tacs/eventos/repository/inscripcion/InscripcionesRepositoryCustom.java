@@ -0,0 +1,46 @@
+package tacs.eventos.repository.inscripcion;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Operaciones del repositorio de inscripciones que no se pueden expresar como queries derivadas.
+ */
+public interface InscripcionesRepositoryCustom {
+
+    /**
+     * Confirma, en una sola operación, las inscripciones pendientes con esos ids. Las que no existan o ya no estén
+     * pendientes (por ejemplo, porque se cancelaron mientras tanto) se ignoran.
+     *
+     * @param idsInscripciones
+     *
+     * @return cuántas inscripciones se confirmaron
+     */
+    long confirmarPendientes(Collection<String> idsInscripciones);
+
+    /**
+     * Lee sólo los ids de una parte de las inscripciones pendientes del evento, en orden de ingreso a la waitlist.
+     *
+     * @param eventoId
+     * @param desde
+     *            cuántas inscripciones saltear
+     * @param cantidad
+     *            cantidad máxima de ids a devolver
+     *
+     * @return los ids de las inscripciones pendientes
+     */
+    List<String> idsPendientesEnOrden(String eventoId, long desde, int cantidad);
+
+    /**
+     * Recorre con un cursor las inscripciones pendientes del evento, en orden de ingreso a la waitlist (y por id, a
+     * igual fecha), leyendo sólo el id y la fecha. El stream hay que cerrarlo.
+     *
+     * @param eventoId
+     * @param ultima
+     *            si no es null, sólo devuelve las posteriores a esta
+     *
+     * @return las inscripciones pendientes
+     */
+    Stream<PendienteEnWaitlist> pendientesEnWaitlistPosteriores(String eventoId, PendienteEnWaitlist ultima);
+}
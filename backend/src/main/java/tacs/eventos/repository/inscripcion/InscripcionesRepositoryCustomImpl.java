@@ -0,0 +1,65 @@
+package tacs.eventos.repository.inscripcion;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import tacs.eventos.model.inscripcion.EstadoInscripcion;
+import tacs.eventos.model.inscripcion.InscripcionEvento;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class InscripcionesRepositoryCustomImpl implements InscripcionesRepositoryCustom {
+    private static final int TAMANIO_LOTE_CURSOR = 1000;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public long confirmarPendientes(Collection<String> idsInscripciones) {
+        if (idsInscripciones.isEmpty())
+            return 0;
+        // La condición sobre el estado evita confirmar una inscripción que se canceló después de leerla
+        Query pendientes = new Query(
+                Criteria.where("_id").in(idsInscripciones).and("estado").is(EstadoInscripcion.PENDIENTE));
+        Update confirmar = new Update().set("estado", EstadoInscripcion.CONFIRMADA).set("fechahoraConfirmacion",
+                LocalDateTime.now());
+        return mongoTemplate.updateMulti(pendientes, confirmar, InscripcionEvento.class).getModifiedCount();
+    }
+
+    @Override
+    public List<String> idsPendientesEnOrden(String eventoId, long desde, int cantidad) {
+        Query pendientes = new Query(
+                Criteria.where("eventoId").is(eventoId).and("estado").is(EstadoInscripcion.PENDIENTE.name()))
+                        .with(Sort.by("fechaHoraIngresoAWaitlist")).skip(desde).limit(cantidad);
+        pendientes.fields().include("_id");
+        // Lee documentos sueltos, porque una InscripcionEvento no se puede armar sólo con el id
+        return mongoTemplate.find(pendientes, Document.class, mongoTemplate.getCollectionName(InscripcionEvento.class))
+                .stream().map(d -> d.get("_id").toString()).toList();
+    }
+
+    @Override
+    public Stream<PendienteEnWaitlist> pendientesEnWaitlistPosteriores(String eventoId, PendienteEnWaitlist ultima) {
+        Criteria criteria = Criteria.where("eventoId").is(eventoId).and("estado")
+                .is(EstadoInscripcion.PENDIENTE.name());
+        if (ultima != null) {
+            Date fecha = Date.from(ultima.fechaHoraIngresoAWaitlist());
+            criteria = criteria.orOperator(Criteria.where("fechaHoraIngresoAWaitlist").gt(fecha),
+                    Criteria.where("fechaHoraIngresoAWaitlist").is(fecha).and("_id").gt(ultima.id()));
+        }
+        Query pendientes = new Query(criteria).with(Sort.by("fechaHoraIngresoAWaitlist").and(Sort.by("_id")))
+                .cursorBatchSize(TAMANIO_LOTE_CURSOR);
+        pendientes.fields().include("_id", "fechaHoraIngresoAWaitlist");
+        return mongoTemplate
+                .stream(pendientes, Document.class, mongoTemplate.getCollectionName(InscripcionEvento.class))
+                .map(d -> new PendienteEnWaitlist(d.get("_id").toString(),
+                        d.getDate("fechaHoraIngresoAWaitlist").toInstant()));
+    }
+}
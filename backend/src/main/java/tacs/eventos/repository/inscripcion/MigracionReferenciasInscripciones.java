@@ -0,0 +1,88 @@
+package tacs.eventos.repository.inscripcion;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import tacs.eventos.model.inscripcion.InscripcionEvento;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Al iniciar la aplicación, migra las inscripciones que se guardaron con el evento y el participante embebidos al
+ * formato actual, que guarda sólo sus ids (y el email del participante para mostrarlo en los listados).
+ * <p>
+ * Corre al crear el bean, así que el arranque espera a que termine y no se atienden pedidos antes: mientras tanto, las
+ * queries por evento o participante no encontrarían las inscripciones sin migrar (y, por ejemplo, los cupos se
+ * calcularían con menos confirmadas de las que hay).
+ * <p>
+ * Es idempotente: sólo toca los documentos que todavía tienen el campo <code>evento</code>, así que se puede correr en
+ * cada arranque, y si se corta a la mitad, la próxima vez sigue con los que faltan. Se puede deshabilitar con
+ * <code>app.migraciones.referencias-inscripciones.habilitada=false</code>.
+ */
+@Component
+@ConditionalOnProperty(name = "app.migraciones.referencias-inscripciones.habilitada", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class MigracionReferenciasInscripciones {
+    private static final int TAMANIO_LOTE = 500;
+    /* Índices sobre los subdocumentos embebidos, reemplazados por los que están sobre los ids */
+    private static final List<String> INDICES_ANTERIORES = List.of("evento_participante_estado_idx",
+            "participante_estado_idx", "evento_estado_idx", "evento");
+
+    private final MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void migrar() {
+        Query embebidas = new Query(Criteria.where("evento").exists(true));
+        embebidas.fields().include("evento._id", "participante._id", "participante.email");
+        String coleccion = mongoTemplate.getCollectionName(InscripcionEvento.class);
+
+        int migradas = 0;
+        BulkOperations lote = null;
+        try (Stream<Document> inscripciones = mongoTemplate.stream(embebidas, Document.class, coleccion)) {
+            for (Document inscripcion : (Iterable<Document>) inscripciones::iterator) {
+                Document evento = inscripcion.get("evento", Document.class);
+                Document participante = inscripcion.get("participante", Document.class);
+                if (evento == null || participante == null) {
+                    log.warn("La inscripción {} no tiene evento o participante, no se puede migrar",
+                            inscripcion.get("_id"));
+                    continue;
+                }
+                if (lote == null)
+                    lote = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, coleccion);
+                lote.updateOne(new Query(Criteria.where("_id").is(inscripcion.get("_id"))),
+                        new Update().set("eventoId", evento.get("_id")).set("participanteId", participante.get("_id"))
+                                .set("emailParticipante", participante.get("email")).unset("evento")
+                                .unset("participante"));
+                if (++migradas % TAMANIO_LOTE == 0) {
+                    lote.execute();
+                    lote = null;
+                }
+            }
+        }
+        if (lote != null)
+            lote.execute();
+        if (migradas > 0)
+            log.info("Se migraron {} inscripciones a referencias por id", migradas);
+        borrarIndicesAnteriores(coleccion);
+    }
+
+    private void borrarIndicesAnteriores(String coleccion) {
+        IndexOperations indices = mongoTemplate.indexOps(coleccion);
+        indices.getIndexInfo().stream().map(IndexInfo::getName).filter(INDICES_ANTERIORES::contains).forEach(nombre -> {
+            indices.dropIndex(nombre);
+            log.info("Se borró el índice {} de las inscripciones", nombre);
+        });
+    }
+}
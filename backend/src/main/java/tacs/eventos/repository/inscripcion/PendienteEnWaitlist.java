@@ -0,0 +1,9 @@
+package tacs.eventos.repository.inscripcion;
+
+import java.time.Instant;
+
+/**
+ * Lo mínimo de una inscripción pendiente que hace falta para reconstruir una waitlist: su id y cuándo entró.
+ */
+public record PendienteEnWaitlist(String id, Instant fechaHoraIngresoAWaitlist) {
+}
@@ -0,0 +1,75 @@
+package tacs.eventos.repository.usuario;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import tacs.eventos.model.Usuario;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Al iniciar la aplicación, pasa a minúsculas los emails de los usuarios que se guardaron antes de que se normalizaran,
+ * y crea el índice único de email.
+ * <p>
+ * El índice no se declara en {@link Usuario}, porque Spring lo crearía al armar el mapeo, antes de esta migración: con
+ * emails que sólo difieren en mayúsculas, el arranque fallaría con un error de clave duplicada poco claro. Si hay
+ * usuarios así, no se puede elegir automáticamente con cuál quedarse (cada uno puede tener sus inscripciones), así que
+ * el arranque falla listando los emails repetidos, para unificarlos o borrarlos a mano.
+ * <p>
+ * Corre al crear el bean, así que el arranque espera a que termine. Es idempotente: sólo toca los emails que tienen
+ * mayúsculas, y si el índice ya existe no lo vuelve a crear.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MigracionEmailsUsuarios {
+    private static final String INDICE_EMAIL_UNICO = "email_unico_idx";
+    private static final int MAXIMO_REPETIDOS_INFORMADOS = 20;
+
+    private final MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void migrar() {
+        List<Document> repetidos = emailsRepetidos();
+        if (!repetidos.isEmpty())
+            throw new IllegalStateException(String.format(
+                    "Hay %d emails registrados más de una vez con distintas mayúsculas, y no se puede crear el índice"
+                            + " único %s. Hay que unificar o borrar esos usuarios antes de iniciar la aplicación: %s",
+                    repetidos.size(), INDICE_EMAIL_UNICO,
+                    repetidos.stream().limit(MAXIMO_REPETIDOS_INFORMADOS)
+                            .map(r -> r.getString("_id") + " " + r.getList("emails", String.class))
+                            .collect(Collectors.joining(", "))));
+
+        long normalizados = mongoTemplate.updateMulti(new Query(Criteria.where("email").regex("[A-Z]")),
+                AggregationUpdate.update().set("email").toValue(StringOperators.valueOf("email").toLower()),
+                Usuario.class).getModifiedCount();
+        if (normalizados > 0)
+            log.info("Se pasaron a minúsculas los emails de {} usuarios", normalizados);
+
+        mongoTemplate.indexOps(Usuario.class)
+                .ensureIndex(new Index("email", Sort.Direction.ASC).unique().named(INDICE_EMAIL_UNICO));
+    }
+
+    /**
+     * @return un documento por cada email (en minúsculas) que tiene más de un usuario, con los emails tal como están
+     *         guardados
+     */
+    private List<Document> emailsRepetidos() {
+        Aggregation repetidos = Aggregation.newAggregation(
+                Aggregation.project("email").and(StringOperators.valueOf("email").toLower()).as("normalizado"),
+                Aggregation.group("normalizado").count().as("cantidad").push("email").as("emails"),
+                Aggregation.match(Criteria.where("cantidad").gt(1)));
+        return mongoTemplate.aggregate(repetidos, Usuario.class, Document.class).getMappedResults();
+    }
+}
@@ -0,0 +1,12 @@
+package tacs.eventos.repository.usuario;
+
+import tacs.eventos.model.RolUsuario;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Los datos de un usuario que se muestran en los listados, sin el hash de la contraseña.
+ */
+public record ResumenUsuario(String id, String email, Set<RolUsuario> roles, Instant fechaCreacion) {
+}
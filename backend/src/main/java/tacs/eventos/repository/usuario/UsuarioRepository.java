@@ -1,8 +1,12 @@
 package tacs.eventos.repository.usuario;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import tacs.eventos.model.Usuario;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UsuarioRepository extends MongoRepository<Usuario, String> {
@@ -19,6 +23,38 @@ public interface UsuarioRepository extends MongoRepository<Usuario, String> {
      */
     Optional<Usuario> findByEmail(String email);
 
+    /**
+     * Página de usuarios ordenados por id, que trae de la base sólo los campos de {@link ResumenUsuario}. Se pagina por
+     * keyset (los usuarios con id mayor al último de la página anterior), así cada página usa el índice de _id sin
+     * tener que saltear las anteriores.
+     *
+     * @param despuesDeId
+     *            id del último usuario de la página anterior. Para la primera página, "".
+     * @param pagina
+     *            cuántos usuarios traer (sólo se usa el tamaño).
+     *
+     * @return los usuarios de la página.
+     */
+    @Query(value = "{ '_id': { '$gt': ?0 } }", fields = "{ 'email': 1, 'roles': 1, 'fechaCreacion': 1 }", sort = "{ '_id': 1 }")
+    List<ResumenUsuario> findResumenesDespuesDe(String despuesDeId, Pageable pagina);
+
+    /**
+     * Reemplaza el hash de la contraseña del usuario, sólo si no cambió desde que se leyó (para no pisar un cambio de
+     * contraseña hecho mientras tanto).
+     *
+     * @param id
+     *            id del usuario.
+     * @param hashAnterior
+     *            hash que tenía el usuario cuando se leyó.
+     * @param hashNuevo
+     *            hash nuevo.
+     *
+     * @return cuántos usuarios se actualizaron (0 o 1).
+     */
+    @Query("{ '_id': ?0, 'passwordHash': ?1 }")
+    @Update("{ '$set': { 'passwordHash': ?2 } }")
+    long actualizarHashContrasenia(String id, String hashAnterior, String hashNuevo);
+
     /**
      * @param id
      *            id de un usuario.
@@ -10,35 +10,52 @@ import tacs.eventos.model.evento.Evento;
 import tacs.eventos.model.inscripcion.EstadoInscripcion;
 import tacs.eventos.repository.evento.EventosRepository;
 import tacs.eventos.repository.inscripcion.InscripcionesRepository;
+import tacs.eventos.service.cache.CacheEventos;
+import tacs.eventos.service.estadisticas.ContadoresEstadisticas;
 
+/**
+ * Estadísticas del sistema. Se responden con los contadores que se mantienen en Redis ({@link ContadoresEstadisticas});
+ * sólo si todavía no se calcularon nunca, se cuentan los documentos en Mongo.
+ */
 @Service
 @AllArgsConstructor
 public class EstadisticaService {
     private final EventosRepository eventosRepository;
     private final InscripcionesRepository inscripcionesRepository;
+    private final CacheEventos cacheEventos;
+    private final ContadoresEstadisticas contadores;
 
     public long cantidadInscripciones() {
-        return this.inscripcionesRepository.count();
+        return this.contadores.globales().map(ContadoresEstadisticas.Contadores::inscripciones)
+                .orElseGet(this.inscripcionesRepository::count);
     }
 
     public int cantidadEventos() throws Exception {
-        return Math.toIntExact(this.eventosRepository.count());
+        return Math.toIntExact(this.contadores.globales().map(ContadoresEstadisticas.Contadores::eventos)
+                .orElseGet(this.eventosRepository::count));
     }
 
     // TODO: falta chequear si esta bien aplicado esta logica que pide de tasa de conversion de waitList
     public int calcularTasaConversionWL(String id) {
         // TODO: en casos como este, el front muestra el status code pero no el mensaje. Arreglarlo.
         // TODO: esto está devolviendo un error 500 en lugar del que se arroja en el handler. Arreglarlo.
-        Evento evento = this.eventosRepository.findById(id)
+        Evento evento = this.cacheEventos.buscar(id, this.eventosRepository::findById)
                 .orElseThrow(() -> new RecursoNoEncontradoHandler("Evento no encontrado"));
         int calculoTasa = 0;
 
         if (evento.getEstado() == EstadoEvento.ABIERTO) {
             int TotalInscripcionesEvento;
             int totalInscripcionesEnWaitlist;
-            TotalInscripcionesEvento = this.inscripcionesRepository.countByEvento(evento);
-            totalInscripcionesEnWaitlist = this.inscripcionesRepository.countByEventoAndEstado(evento,
-                    EstadoInscripcion.PENDIENTE);
+            var contadoresEvento = this.contadores.deEvento(evento.getId());
+            if (contadoresEvento.isPresent()) {
+                TotalInscripcionesEvento = Math.toIntExact(contadoresEvento.get().inscripciones());
+                totalInscripcionesEnWaitlist = Math
+                        .toIntExact(contadoresEvento.get().inscripciones(EstadoInscripcion.PENDIENTE));
+            } else {
+                TotalInscripcionesEvento = this.inscripcionesRepository.countByEventoId(evento.getId());
+                totalInscripcionesEnWaitlist = this.inscripcionesRepository.countByEventoIdAndEstado(evento.getId(),
+                        EstadoInscripcion.PENDIENTE);
+            }
             if (totalInscripcionesEnWaitlist != 0) {
                 calculoTasa = (TotalInscripcionesEvento / totalInscripcionesEnWaitlist) * 100;
             }
@@ -5,19 +5,30 @@ import org.springframework.stereotype.Service;
 import tacs.eventos.model.evento.Evento;
 import tacs.eventos.model.Usuario;
 import tacs.eventos.repository.FiltroBusqueda;
+import tacs.eventos.repository.evento.CursorEventos;
 import tacs.eventos.repository.evento.EventosRepository;
+import tacs.eventos.service.cache.CacheEventos;
+import tacs.eventos.service.cache.VersionColeccionEventos;
+import tacs.eventos.service.estadisticas.ContadoresEstadisticas;
+import tacs.eventos.service.inscripciones.InscripcionesService;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 @AllArgsConstructor
 public class EventoService {
     private final EventosRepository eventosRepository;
+    private final CacheEventos cacheEventos;
+    private final InscripcionesService inscripcionesService;
+    private final ContadoresEstadisticas contadores;
+    private final VersionColeccionEventos versionColeccion;
 
     public Evento crearEvento(Evento evento) {
         eventosRepository.save(evento);
+        contadores.eventoCreado();
+        versionColeccion.incrementar();
         return evento;
     }
 
@@ -29,12 +40,29 @@ public class EventoService {
     }
 
     /**
+     * Busca el evento primero en la cache local, y si no está, en el repositorio.
+     *
      * @param id
      *
      * @return el evento con ese id u Optional.empty() si no existe
      */
     public Optional<Evento> buscarEventoPorId(String id) {
-        return this.eventosRepository.findById(id);
+        return this.cacheEventos.buscar(id, this.eventosRepository::findById);
+    }
+
+    /**
+     * @return la versión del evento, si esta instancia la conoce sin ir al repositorio
+     */
+    public Optional<Long> versionEnCache(String id) {
+        return this.cacheEventos.versionEnCache(id);
+    }
+
+    /**
+     * @return la versión de la colección de eventos, que cambia cada vez que se crea, modifica o elimina un evento, u
+     *         Optional.empty() si no se conoce
+     */
+    public Optional<Long> versionColeccion() {
+        return this.versionColeccion.actual();
     }
 
     /**
@@ -47,6 +75,31 @@ public class EventoService {
         return this.eventosRepository.findByFiltroBusqueda(filtros);
     }
 
+    /**
+     * @param filtros
+     *            lista de filtros de búsqueda a aplicar
+     * @param desde
+     *            cursor del último evento de la página anterior, o null para pedir la primera página
+     * @param limite
+     *            cantidad máxima de eventos de la página
+     *
+     * @return una página de los eventos que cumplen con todos los filtros, ordenados por fecha de inicio
+     */
+    public List<Evento> listarEventos(List<FiltroBusqueda<Evento>> filtros, CursorEventos desde, int limite) {
+        return this.eventosRepository.findByFiltroBusqueda(filtros, desde, limite);
+    }
+
+    /**
+     * @param filtros
+     *            lista de filtros de búsqueda a aplicar
+     *
+     * @return stream con todos los eventos que cumplen con los filtros, leídos a medida que se consume. Tiene que
+     *         cerrarse después de usarse.
+     */
+    public Stream<Evento> streamEventos(List<FiltroBusqueda<Evento>> filtros) {
+        return this.eventosRepository.streamByFiltroBusqueda(filtros);
+    }
+
     public List<Evento> buscarEventosOrganizadosPor(Usuario organizador) {
         return this.eventosRepository.findByOrganizador(organizador.getId());
     }
@@ -54,15 +107,28 @@ public class EventoService {
     public void cerrarEvento(Usuario organizador, Evento evento) {
         evento.cerrarEvento();
         this.eventosRepository.save(evento);
+        eventoModificado(evento.getId());
     }
 
     public void abrirEvento(Usuario organizador, Evento evento) {
         evento.abrirEvento();
         this.eventosRepository.save(evento);
+        eventoModificado(evento.getId());
     }
 
+    /**
+     * Guarda los cambios del evento. Si cambió el cupo máximo, ajusta los cupos disponibles (y si se agregaron, los
+     * ocupa con la waitlist).
+     *
+     * @param evento
+     *            evento modificado
+     *
+     * @return el evento actualizado
+     */
     public Evento actualizarEvento(Evento evento) {
         this.eventosRepository.save(evento);
+        eventoModificado(evento.getId());
+        this.inscripcionesService.ajustarCupoMaximo(evento);
         return evento;
     }
 
@@ -70,7 +136,14 @@ public class EventoService {
         Optional<Evento> evento = this.eventosRepository.findById(eventoId);
         if (evento.isPresent()) {
             this.eventosRepository.delete(evento.get());
+            eventoModificado(eventoId);
+            this.contadores.eventoEliminado(eventoId);
         }
     }
 
+    /* Después de guardar un cambio: saca el evento de las caches y cambia la versión de los listados */
+    private void eventoModificado(String eventoId) {
+        this.cacheEventos.invalidar(eventoId);
+        this.versionColeccion.incrementar();
+    }
 }
@@ -1,12 +1,15 @@
 package tacs.eventos.service;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import tacs.eventos.model.Session;
 import tacs.eventos.model.Usuario;
 import tacs.eventos.repository.sesion.SessionRepository;
 import tacs.eventos.repository.usuario.UsuarioRepository;
+import tacs.eventos.service.auth.HasheadorContrasenias;
+import tacs.eventos.service.auth.LimitadorIntentosLogin;
+import tacs.eventos.service.cache.CacheSesiones;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -14,37 +17,125 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Service
+@Slf4j
 public class SessionService {
     private final UsuarioRepository usuarios;
     private final SessionRepository sesiones;
-    private final PasswordEncoder encoder;
+    private final HasheadorContrasenias hasheador;
+    private final LimitadorIntentosLogin limitador;
+    private final CacheSesiones cacheSesiones;
+    private final TokenFirmadoService tokensFirmados;
     private final int minutes;
 
-    public SessionService(UsuarioRepository usuarios, SessionRepository sesiones, PasswordEncoder encoder,
+    public SessionService(UsuarioRepository usuarios, SessionRepository sesiones, HasheadorContrasenias hasheador,
+            LimitadorIntentosLogin limitador, CacheSesiones cacheSesiones, TokenFirmadoService tokensFirmados,
             // todo parametrizar el tiempo de expiracion
             @Value("${app.session.minutes:30}") int minutes) {
         this.usuarios = usuarios;
         this.sesiones = sesiones;
-        this.encoder = encoder;
+        this.hasheador = hasheador;
+        this.limitador = limitador;
+        this.cacheSesiones = cacheSesiones;
+        this.tokensFirmados = tokensFirmados;
         this.minutes = minutes;
     }
 
-    public Optional<Session> login(String email, String rawPassword) {
-        return usuarios.findByEmail(email.toLowerCase()).flatMap(u -> encoder.matches(rawPassword, u.getPasswordHash())
-                ? Optional.of(createSession(u)) : Optional.empty());
+    /**
+     * Inicia una sesión si la contraseña es correcta. Antes de verificarla chequea los límites de intentos de la cuenta
+     * y de la IP, y la verificación se hace en el pool acotado de {@link HasheadorContrasenias}. Si el hash guardado
+     * usa otro algoritmo o un costo menor al configurado, se recalcula en segundo plano.
+     *
+     * @param email
+     * @param rawPassword
+     * @param ip
+     *            IP del cliente
+     *
+     * @return la sesión, u Optional.empty() si el email o la contraseña no son correctos
+     *
+     * @throws tacs.eventos.controller.error.handlers.DemasiadosIntentosHandler
+     *             si se superó algún límite de intentos
+     * @throws tacs.eventos.controller.error.handlers.ServicioSaturadoHandler
+     *             si hay demasiados logins en curso
+     */
+    public Optional<Session> login(String email, String rawPassword, String ip) {
+        String normalizado = email.toLowerCase();
+        limitador.admitir(normalizado, ip);
+        Optional<Usuario> usuario = usuarios.findByEmail(normalizado)
+                .filter(u -> hasheador.coincide(rawPassword, u.getPasswordHash()));
+        if (usuario.isEmpty()) {
+            limitador.registrarFallo(normalizado);
+            return Optional.empty();
+        }
+        limitador.registrarExito(normalizado);
+        rehashearSiHaceFalta(usuario.get(), rawPassword);
+        return Optional.of(createSession(usuario.get()));
+    }
+
+    /**
+     * Inicia la sesión de un usuario que se acaba de registrar. No pasa por los límites de intentos de login ni vuelve
+     * a verificar la contraseña: el registro ya la recibió y la hasheó.
+     *
+     * @param usuario
+     *            usuario recién registrado
+     *
+     * @return la sesión
+     */
+    public Session iniciarSesionRegistrado(Usuario usuario) {
+        return createSession(usuario);
     }
 
     public void logout(String token) {
+        if (tokensFirmados.esTokenFirmado(token)) {
+            tokensFirmados.revocar(token);
+            return;
+        }
         sesiones.findByToken(token).ifPresent(Session::deactivate);
         sesiones.invalidate(token);
+        cacheSesiones.invalidarToken(token);
     }
 
+    /**
+     * Si el token es un token firmado, lo verifica localmente. Si no, busca el usuario de la sesión primero en la cache
+     * local, y si no está, valida la sesión en Redis y busca al usuario en Mongo.
+     *
+     * @param token
+     *
+     * @return el usuario de la sesión, u Optional.empty() si la sesión no existe, está cerrada o venció
+     */
     public Optional<Usuario> validate(String token) {
-        return sesiones.findByToken(token).filter(s -> s.isActive() && s.getExpiresAt().isAfter(Instant.now()))
-                .flatMap(s -> usuarios.findById(s.getUserId()));
+        if (tokensFirmados.esTokenFirmado(token))
+            return tokensFirmados.verificar(token);
+        return cacheSesiones.buscar(token,
+                t -> sesiones.findByToken(t).filter(s -> s.isActive() && s.getExpiresAt().isAfter(Instant.now()))
+                        .flatMap(s -> usuarios.findById(s.getUserId())
+                                .map(u -> new CacheSesiones.SesionCacheada(u, s.getExpiresAt()))));
+    }
+
+    /**
+     * Cierra o desactualiza todas las sesiones del usuario, por ejemplo porque cambiaron sus roles. Las sesiones de
+     * Redis siguen abiertas, pero se sacan de la cache para que vean los roles nuevos; los tokens firmados se revocan,
+     * porque llevan los roles adentro.
+     *
+     * @param usuarioId
+     */
+    public void invalidarSesionesDe(String usuarioId) {
+        cacheSesiones.invalidarUsuario(usuarioId);
+        tokensFirmados.revocarUsuario(usuarioId);
+    }
+
+    private void rehashearSiHaceFalta(Usuario usuario, String rawPassword) {
+        String hashAnterior = usuario.getPasswordHash();
+        if (!hasheador.hayQueRehashear(hashAnterior))
+            return;
+        hasheador.codificarEnSegundoPlano(rawPassword, hashNuevo -> {
+            if (usuarios.actualizarHashContrasenia(usuario.getId(), hashAnterior, hashNuevo) > 0)
+                log.info("Se recalculó el hash de la contraseña del usuario {}", usuario.getId());
+        });
     }
 
     private Session createSession(Usuario u) {
+        if (tokensFirmados.habilitado())
+            return tokensFirmados.emitir(u);
         String token = UUID.randomUUID().toString();
         Instant exp = Instant.now().plus(minutes, ChronoUnit.MINUTES);
         Session s = new Session(token, u.getId(), exp);
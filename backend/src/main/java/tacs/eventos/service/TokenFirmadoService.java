@@ -0,0 +1,244 @@
+package tacs.eventos.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tacs.eventos.model.RevocacionSesion;
+import tacs.eventos.model.RolUsuario;
+import tacs.eventos.model.Session;
+import tacs.eventos.model.Usuario;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Emite y verifica tokens de sesión firmados (JWT), que llevan el id, el email y los roles del usuario. Se usan sólo si
+ * <code>app.session.modo=firmado</code>.
+ * <p>
+ * A diferencia de las sesiones guardadas en Redis, un token firmado se verifica localmente, sin ir ni a Redis ni a
+ * Mongo. Para poder cerrar sesiones antes de que venzan, se guardan en Mongo (ver {@link RevocacionSesion}):
+ * <ul>
+ * <li>los ids de los tokens revocados (por logout), con el vencimiento del token, y</li>
+ * <li>desde cuándo están revocados los tokens de cada usuario (por ejemplo, porque le cambiaron los roles).</li>
+ * </ul>
+ * Se guardan en Mongo y no en Redis porque Redis corre sin persistencia: si pierde sus datos, los tokens revocados
+ * volverían a ser válidos hasta vencer. Cada instancia tiene una copia local de las revocaciones, que se actualiza al
+ * momento por un tópico de Redis y cada tanto leyendo todo de Mongo. Así, si Mongo o Redis no están disponibles un
+ * rato, los tokens se siguen validando con la última copia.
+ */
+@Service
+@Slf4j
+public class TokenFirmadoService {
+    private static final String MODO_FIRMADO = "firmado";
+    private static final String TOPICO_REVOCACIONES = "sesiones:revocaciones";
+    private static final String PREFIJO_TOKEN = "token:";
+    private static final String PREFIJO_USUARIO = "usuario:";
+    /* Momento de emisión en milisegundos, para compararlo con las revocaciones de usuarios (ver emitido) */
+    private static final String CLAIM_EMITIDO = "emitido";
+    private static final int LARGO_MINIMO_SECRETO = 32; // HS256 necesita una clave de al menos 256 bits
+
+    private final boolean habilitado;
+    private final Duration duracion;
+    private final SecretKey clave;
+    private final JwtParser parser;
+    private final RedissonClient redisson;
+    private final MongoTemplate mongoTemplate;
+
+    /* Copia local de las revocaciones: id del token -> vencimiento, e id del usuario -> desde cuándo */
+    private final Map<String, Long> tokensRevocados = new ConcurrentHashMap<>();
+    private final Map<String, Long> usuariosRevocados = new ConcurrentHashMap<>();
+
+    public TokenFirmadoService(RedissonClient redisson, MongoTemplate mongoTemplate,
+            @Value("${app.session.modo:opaco}") String modo, @Value("${app.session.firmado.secreto:}") String secreto,
+            @Value("${app.session.firmado.minutos:15}") long minutos) {
+        this.redisson = redisson;
+        this.mongoTemplate = mongoTemplate;
+        this.habilitado = MODO_FIRMADO.equals(modo);
+        this.duracion = Duration.ofMinutes(minutos);
+        if (habilitado && secreto.getBytes(StandardCharsets.UTF_8).length < LARGO_MINIMO_SECRETO)
+            throw new IllegalStateException("app.session.firmado.secreto tiene que tener al menos "
+                    + LARGO_MINIMO_SECRETO + " bytes para firmar los tokens");
+        this.clave = habilitado ? Keys.hmacShaKeyFor(secreto.getBytes(StandardCharsets.UTF_8)) : null;
+        this.parser = habilitado ? Jwts.parserBuilder().setSigningKey(clave).build() : null;
+        if (habilitado)
+            redisson.getTopic(TOPICO_REVOCACIONES, StringCodec.INSTANCE).addListener(String.class,
+                    (canal, mensaje) -> aplicarRevocacion(mensaje));
+    }
+
+    /**
+     * @return si las sesiones nuevas usan tokens firmados
+     */
+    public boolean habilitado() {
+        return habilitado;
+    }
+
+    /**
+     * @param token
+     *
+     * @return si el token tiene la forma de un token firmado (y no la de un token opaco)
+     */
+    public boolean esTokenFirmado(String token) {
+        return habilitado && token.chars().filter(c -> c == '.').count() == 2;
+    }
+
+    /**
+     * Emite un token firmado para el usuario.
+     *
+     * @return la sesión, con el token y su vencimiento
+     */
+    public Session emitir(Usuario usuario) {
+        Instant ahora = Instant.now();
+        Instant vence = ahora.plus(duracion);
+        String token = Jwts.builder().setId(UUID.randomUUID().toString()).setSubject(usuario.getId())
+                .claim("email", usuario.getEmail())
+                .claim("roles", usuario.getRoles().stream().map(RolUsuario::name).toList())
+                .claim("creado", usuario.getFechaCreacion().toEpochMilli()).setIssuedAt(Date.from(ahora))
+                .claim(CLAIM_EMITIDO, ahora.toEpochMilli()).setExpiration(Date.from(vence)).signWith(clave).compact();
+        return new Session(token, usuario.getId(), vence);
+    }
+
+    /**
+     * Verifica la firma y el vencimiento del token, y que no haya sido revocado. No hace ningún pedido a Redis.
+     *
+     * @return el usuario del token, u Optional.empty() si el token no es válido
+     */
+    public Optional<Usuario> verificar(String token) {
+        return leer(token).filter(claims -> !revocado(claims)).map(TokenFirmadoService::usuario);
+    }
+
+    /**
+     * Revoca el token (si es válido), para que ninguna instancia lo vuelva a aceptar.
+     */
+    public void revocar(String token) {
+        leer(token).ifPresent(claims -> {
+            long vence = claims.getExpiration().getTime();
+            tokensRevocados.put(claims.getId(), vence);
+            mongoTemplate
+                    .save(new RevocacionSesion(PREFIJO_TOKEN + claims.getId(), vence, Instant.ofEpochMilli(vence)));
+            publicar(PREFIJO_TOKEN + claims.getId() + ":" + vence);
+        });
+    }
+
+    /**
+     * Revoca todos los tokens emitidos hasta ahora para el usuario.
+     */
+    public void revocarUsuario(String usuarioId) {
+        if (!habilitado)
+            return;
+        long ahora = System.currentTimeMillis();
+        usuariosRevocados.put(usuarioId, ahora);
+        // Después de la duración de un token, ya vencieron todos los emitidos antes de la revocación
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(PREFIJO_USUARIO + usuarioId)),
+                new Update().max("valor", ahora).max("expira", Instant.ofEpochMilli(ahora).plus(duracion)),
+                RevocacionSesion.class);
+        publicar(PREFIJO_USUARIO + usuarioId + ":" + ahora);
+    }
+
+    /**
+     * Vuelve a leer todas las revocaciones vigentes de Mongo (por si se perdió algún mensaje del tópico), y borra de la
+     * copia local las que ya no hacen falta porque los tokens a los que afectan ya vencieron. De Mongo las borra el
+     * índice TTL.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.session.firmado.sincronizacion-ms:30000}")
+    public void sincronizarRevocaciones() {
+        if (!habilitado)
+            return;
+        try {
+            long ahora = System.currentTimeMillis();
+            // El índice TTL borra cada tanto, así que puede haber alguna vencida todavía
+            mongoTemplate
+                    .find(new Query(Criteria.where("expira").gt(Instant.ofEpochMilli(ahora))), RevocacionSesion.class)
+                    .forEach(r -> aplicarRevocacion(r.getId(), r.getValor()));
+
+            long limite = ahora - duracion.toMillis(); // Los tokens emitidos antes de esto ya vencieron
+            tokensRevocados.values().removeIf(vence -> vence <= ahora);
+            usuariosRevocados.values().removeIf(desde -> desde < limite);
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron sincronizar las revocaciones de tokens, se sigue usando la copia local", e);
+        }
+    }
+
+    private Optional<Claims> leer(String token) {
+        if (!esTokenFirmado(token))
+            return Optional.empty();
+        try {
+            return Optional.of(parser.parseClaimsJws(token).getBody());
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private boolean revocado(Claims claims) {
+        if (tokensRevocados.containsKey(claims.getId()))
+            return true;
+        Long revocadoDesde = usuariosRevocados.get(claims.getSubject());
+        return revocadoDesde != null && emitido(claims) <= revocadoDesde;
+    }
+
+    /*
+     * El iat está en segundos, y las revocaciones en milisegundos: con el iat, un token emitido en el mismo segundo
+     * después de revocar al usuario (por ejemplo, al volver a loguearse después de un cambio de roles) quedaría
+     * revocado. Los tokens emitidos antes de que existiera el claim en milisegundos usan el iat.
+     */
+    private static long emitido(Claims claims) {
+        Long emitido = claims.get(CLAIM_EMITIDO, Long.class);
+        return emitido != null ? emitido : claims.getIssuedAt().getTime();
+    }
+
+    private void aplicarRevocacion(String mensaje) {
+        int separador = mensaje.lastIndexOf(':');
+        aplicarRevocacion(mensaje.substring(0, separador), Long.parseLong(mensaje.substring(separador + 1)));
+    }
+
+    /**
+     * @param id
+     *            id de la revocación: el prefijo, y el id del token o del usuario
+     */
+    private void aplicarRevocacion(String id, long valor) {
+        if (id.startsWith(PREFIJO_TOKEN))
+            tokensRevocados.put(id.substring(PREFIJO_TOKEN.length()), valor);
+        else
+            usuariosRevocados.merge(id.substring(PREFIJO_USUARIO.length()), valor, Math::max);
+    }
+
+    private void publicar(String mensaje) {
+        try {
+            redisson.getTopic(TOPICO_REVOCACIONES, StringCodec.INSTANCE).publish(mensaje);
+        } catch (RuntimeException e) {
+            log.warn("No se pudo avisar la revocación a las demás instancias, la van a ver al sincronizar", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Usuario usuario(Claims claims) {
+        Set<RolUsuario> roles = ((Collection<String>) claims.get("roles", Collection.class)).stream()
+                .map(RolUsuario::valueOf).collect(Collectors.toSet());
+        return Usuario.autenticado(claims.getSubject(), claims.get("email", String.class), roles,
+                Instant.ofEpochMilli(claims.get("creado", Long.class)));
+    }
+}
@@ -2,38 +2,47 @@ package tacs.eventos.service;
 
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import tacs.eventos.dto.InscripcionMapper;
 import tacs.eventos.dto.InscripcionResponse;
 import tacs.eventos.model.RolUsuario;
 import tacs.eventos.model.Usuario;
 import tacs.eventos.model.inscripcion.InscripcionEvento;
 import tacs.eventos.repository.inscripcion.InscripcionesRepository;
+import tacs.eventos.repository.usuario.ResumenUsuario;
 import tacs.eventos.repository.usuario.UsuarioRepository;
+import tacs.eventos.service.auth.HasheadorContrasenias;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UsuarioService {
     private final UsuarioRepository repo;
     private final InscripcionesRepository inscripcionesRepository;
-    private final PasswordEncoder encoder;
+    private final HasheadorContrasenias hasheador;
+    private final SessionService sessionService;
 
     @PostConstruct
     public void inicializarUsuariosIniciales() {
         // Crear admin por defecto si no existe
         if (repo.findByEmail("admin@eventos.com").isEmpty()) {
-            Usuario admin = new Usuario("admin@eventos.com", encoder.encode("admin123"), Set.of(RolUsuario.ADMIN));
+            Usuario admin = new Usuario("admin@eventos.com", hasheador.codificar("admin123"), Set.of(RolUsuario.ADMIN));
             repo.save(admin);
             System.out.println("Admin creado: admin@eventos.com / admin123");
         }
 
         // Crear organizador de ejemplo si no existe
         if (repo.findByEmail("organizador@eventos.com").isEmpty()) {
-            Usuario organizador = new Usuario("organizador@eventos.com", encoder.encode("org123"),
+            Usuario organizador = new Usuario("organizador@eventos.com", hasheador.codificar("org123"),
                     Set.of(RolUsuario.ORGANIZADOR));
             repo.save(organizador);
             System.out.println("Organizador creado: organizador@eventos.com / org123");
@@ -44,16 +53,23 @@ public class UsuarioService {
         return registrar(email, password, "USUARIO");
     }
 
+    /**
+     * Registra un usuario nuevo. Que el email no esté repetido lo garantiza el índice único de la colección: si dos
+     * registros con el mismo email llegan a la vez, sólo uno de los dos inserts sale bien.
+     *
+     * @throws IllegalArgumentException
+     *             si ya hay un usuario con el email
+     */
     public Usuario registrar(String email, String password, String tipoUsuario) {
-        Optional<Usuario> existente = repo.findByEmail(email);
-        if (existente.isPresent())
-            throw new IllegalArgumentException("Email ya registrado");
-
         // Determinar rol basado en tipo de usuario seleccionado
         Set<RolUsuario> roles = determinarRoles(tipoUsuario);
 
-        var u = new Usuario(email, encoder.encode(password), roles);
-        repo.save(u);
+        var u = new Usuario(email, hasheador.codificar(password), roles);
+        try {
+            repo.insert(u);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalArgumentException("Email ya registrado");
+        }
         System.out.println("usuario ID: " + u.getId() + " con roles: " + roles);
         return u;
     }
@@ -81,19 +97,39 @@ public class UsuarioService {
         return repo.findById(id);
     }
 
+    /**
+     * Busca varios usuarios con una sola query.
+     *
+     * @param ids
+     *
+     * @return los usuarios encontrados, indexados por id
+     */
+    public Map<String, Usuario> buscarPorIds(Collection<String> ids) {
+        return repo.findAllById(ids).stream().collect(Collectors.toMap(Usuario::getId, Function.identity()));
+    }
+
     public List<InscripcionResponse> obtenerInscripcionesNoCanceladas(String usuarioId) {
         Usuario usuario = repo.findById(usuarioId)
                 .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
 
         List<InscripcionEvento> inscripciones = inscripcionesRepository.noCanceladasDeParticipante(usuario);
-        List<InscripcionResponse> inscripcionResponses = inscripciones.stream()
-                .map(InscripcionResponse::fromInscripcion).toList();
+        List<InscripcionResponse> inscripcionResponses = inscripciones.stream().map(InscripcionMapper::aResponse)
+                .toList();
         return inscripcionResponses;
     }
 
     // Métodos para gestión de roles (solo admin)
-    public List<Usuario> obtenerTodosLosUsuarios() {
-        return repo.findAll();
+
+    /**
+     * @param despuesDeId
+     *            id del último usuario de la página anterior, o null para la primera página
+     * @param limite
+     *            cantidad máxima de usuarios
+     *
+     * @return una página de usuarios ordenados por id, sin sus contraseñas
+     */
+    public List<ResumenUsuario> listarUsuarios(String despuesDeId, int limite) {
+        return repo.findResumenesDespuesDe(despuesDeId == null ? "" : despuesDeId, PageRequest.ofSize(limite));
     }
 
     public Usuario cambiarRol(String usuarioId, RolUsuario nuevoRol) {
@@ -102,6 +138,7 @@ public class UsuarioService {
 
         usuario.setRoles(Set.of(nuevoRol));
         repo.save(usuario);
+        sessionService.invalidarSesionesDe(usuarioId); // Las sesiones abiertas tienen que ver el rol nuevo
         System.out.println("Rol cambiado para usuario " + usuario.getEmail() + " a: " + nuevoRol);
         return usuario;
     }
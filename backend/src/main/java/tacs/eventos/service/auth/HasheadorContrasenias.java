@@ -0,0 +1,150 @@
+package tacs.eventos.service.auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import tacs.eventos.controller.error.handlers.ErrorInternoHandler;
+import tacs.eventos.controller.error.handlers.ServicioSaturadoHandler;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Calcula y verifica los hashes de las contraseñas en un pool de hilos propio, con un tamaño y una cola acotados.
+ * <p>
+ * BCrypt usa mucha CPU a propósito: si se calculara en los hilos que atienden los pedidos, una ráfaga de logins (por
+ * ejemplo, justo antes de que se abran las inscripciones a un evento) ocuparía todos los cores y demoraría al resto de
+ * los endpoints. Con este pool, los hashes nunca usan más que <code>app.password.hash.hilos</code> cores. Si la cola
+ * está llena, o el hash no se pudo calcular a tiempo, el pedido falla enseguida con 503 en lugar de esperar.
+ * <p>
+ * Métricas: auth.hash.pendientes (gauge) y auth.hash.rechazados (contador).
+ */
+@Slf4j
+@Component
+public class HasheadorContrasenias {
+    private static final long REINTENTAR_EN_SEGUNDOS = 1;
+
+    private final PasswordEncoder encoder;
+    private final ThreadPoolExecutor pool;
+    private final long esperaMaximaMs;
+    private final Counter rechazados;
+
+    /**
+     * @param hilos
+     *            cantidad de hilos del pool. Si es 0, se usa la mitad de los cores, para dejar la otra mitad libre para
+     *            el resto de los pedidos.
+     * @param cola
+     *            cuántos hashes pueden esperar a que se libere un hilo
+     * @param esperaMaximaMs
+     *            cuánto espera un pedido a que se calcule su hash antes de fallar
+     */
+    public HasheadorContrasenias(PasswordEncoder encoder, MeterRegistry metricas,
+            @Value("${app.password.hash.hilos:0}") int hilos, @Value("${app.password.hash.cola:64}") int cola,
+            @Value("${app.password.hash.espera-maxima-ms:2000}") long esperaMaximaMs) {
+        this.encoder = encoder;
+        this.esperaMaximaMs = esperaMaximaMs;
+        int tamanio = hilos > 0 ? hilos : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger numero = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(tamanio, tamanio, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(cola),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "hash-contrasenias-" + numero.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.rechazados = Counter.builder("auth.hash.rechazados")
+                .description("Hashes de contraseñas rechazados porque el pool estaba saturado").register(metricas);
+        Gauge.builder("auth.hash.pendientes", pool, p -> p.getQueue().size())
+                .description("Hashes de contraseñas esperando un hilo libre").register(metricas);
+    }
+
+    /**
+     * @return si la contraseña corresponde al hash
+     *
+     * @throws ServicioSaturadoHandler
+     *             si el pool está saturado
+     */
+    public boolean coincide(String contrasenia, String hash) {
+        return ejecutar(() -> encoder.matches(contrasenia, hash));
+    }
+
+    /**
+     * @return el hash de la contraseña, con el algoritmo y el costo configurados
+     *
+     * @throws ServicioSaturadoHandler
+     *             si el pool está saturado
+     */
+    public String codificar(String contrasenia) {
+        return ejecutar(() -> encoder.encode(contrasenia));
+    }
+
+    /**
+     * @return si el hash se calculó con otro algoritmo o con un costo menor al configurado, y conviene recalcularlo
+     */
+    public boolean hayQueRehashear(String hash) {
+        return encoder.upgradeEncoding(hash);
+    }
+
+    /**
+     * Calcula el hash de la contraseña en segundo plano, sin esperar el resultado. Si el pool está saturado no hace
+     * nada: se puede volver a intentar en otro momento.
+     *
+     * @param alTerminar
+     *            recibe el hash calculado
+     */
+    public void codificarEnSegundoPlano(String contrasenia, Consumer<String> alTerminar) {
+        try {
+            pool.execute(() -> {
+                try {
+                    alTerminar.accept(encoder.encode(contrasenia));
+                } catch (RuntimeException e) {
+                    log.warn("No se pudo recalcular el hash de una contraseña", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("No se recalcula el hash de la contraseña porque el pool está saturado");
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        pool.shutdownNow();
+    }
+
+    private <T> T ejecutar(Callable<T> calculo) {
+        Future<T> resultado;
+        try {
+            resultado = pool.submit(calculo);
+        } catch (RejectedExecutionException e) {
+            rechazados.increment();
+            throw new ServicioSaturadoHandler("Hay demasiados inicios de sesión en curso, reintentá en un momento",
+                    REINTENTAR_EN_SEGUNDOS);
+        }
+        try {
+            return resultado.get(esperaMaximaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            resultado.cancel(true);
+            rechazados.increment();
+            throw new ServicioSaturadoHandler("Hay demasiados inicios de sesión en curso, reintentá en un momento",
+                    REINTENTAR_EN_SEGUNDOS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            resultado.cancel(true);
+            throw new ErrorInternoHandler("Se interrumpió el cálculo del hash de la contraseña", e);
+        } catch (ExecutionException e) {
+            throw new ErrorInternoHandler("No se pudo calcular el hash de la contraseña", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package tacs.eventos.service.auth;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tacs.eventos.controller.error.handlers.DemasiadosIntentosHandler;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Limita los intentos de login, con contadores en Redis compartidos por todas las instancias:
+ * <ul>
+ * <li>por IP, cuenta todos los intentos en una ventana fija, para frenar a un cliente que prueba muchas cuentas, y</li>
+ * <li>por cuenta, cuenta los intentos fallidos seguidos, para frenar a quien prueba muchas contraseñas de la misma
+ * cuenta. Se reinicia cuando el login sale bien.</li>
+ * </ul>
+ * Se chequea antes de calcular el hash de la contraseña, así los intentos rechazados no usan CPU. Si Redis no está
+ * disponible, se deja pasar el intento: el pool de {@link HasheadorContrasenias} igual acota cuánta CPU usan los
+ * logins.
+ * <p>
+ * Los clientes internos que hacen login en nombre de muchos usuarios (como el bot de Telegram) se pueden listar en
+ * <code>app.login.clientes-sin-limite-por-ip</code>, por nombre de host o IP: a ellos sólo se les aplica el límite por
+ * cuenta. Los nombres se vuelven a resolver cada minuto, porque la IP de un contenedor cambia cuando se recrea.
+ */
+@Slf4j
+@Component
+public class LimitadorIntentosLogin {
+    private static final String PREFIJO_IP = "login:intentos:ip:";
+    private static final String PREFIJO_CUENTA = "login:fallos:cuenta:";
+
+    private static final Duration RESOLUCION_CLIENTES = Duration.ofMinutes(1);
+
+    /*
+     * Cuenta el intento de la IP y devuelve 0 si se puede intentar, o en cuántos milisegundos se puede volver a
+     * intentar. KEYS: contador de la IP, fallos de la cuenta. ARGV: ventana de la IP en ms, límite por IP (negativo si
+     * la IP no tiene límite), límite de fallos.
+     */
+    private static final String SCRIPT_ADMITIR = """
+            local limiteIp = tonumber(ARGV[2])
+            local intentos = 0
+            if limiteIp >= 0 then
+                intentos = redis.call('incr', KEYS[1])
+                if intentos == 1 then
+                    redis.call('pexpire', KEYS[1], ARGV[1])
+                end
+            end
+            local bloqueada = nil
+            if limiteIp >= 0 and intentos > limiteIp then
+                bloqueada = KEYS[1]
+            elseif tonumber(redis.call('get', KEYS[2]) or '0') >= tonumber(ARGV[3]) then
+                bloqueada = KEYS[2]
+            end
+            if bloqueada == nil then
+                return 0
+            end
+            local ttl = redis.call('pttl', bloqueada)
+            if ttl < 1 then
+                ttl = 1000
+            end
+            return ttl
+            """;
+
+    /* Suma un fallo a la cuenta. KEYS: fallos de la cuenta. ARGV: cuánto dura el bloqueo en ms */
+    private static final String SCRIPT_FALLO = """
+            local fallos = redis.call('incr', KEYS[1])
+            redis.call('pexpire', KEYS[1], ARGV[1])
+            return fallos
+            """;
+
+    private final RedissonClient redisson;
+    private final int limitePorIp;
+    private final long ventanaIpMs;
+    private final int limiteFallosPorCuenta;
+    private final long bloqueoCuentaMs;
+    private final List<String> clientesSinLimitePorIp;
+    private volatile Set<String> ipsSinLimite = Set.of();
+    private volatile long ipsSinLimiteResueltasNanos;
+    private volatile boolean ipsSinLimiteResueltas;
+
+    public LimitadorIntentosLogin(RedissonClient redisson, @Value("${app.login.limite-por-ip:30}") int limitePorIp,
+            @Value("${app.login.ventana-ip-segundos:60}") long ventanaIpSegundos,
+            @Value("${app.login.limite-fallos-por-cuenta:5}") int limiteFallosPorCuenta,
+            @Value("${app.login.bloqueo-cuenta-segundos:900}") long bloqueoCuentaSegundos,
+            @Value("${app.login.clientes-sin-limite-por-ip:}") List<String> clientesSinLimitePorIp) {
+        this.redisson = redisson;
+        this.limitePorIp = limitePorIp;
+        this.ventanaIpMs = ventanaIpSegundos * 1000;
+        this.limiteFallosPorCuenta = limiteFallosPorCuenta;
+        this.bloqueoCuentaMs = bloqueoCuentaSegundos * 1000;
+        this.clientesSinLimitePorIp = clientesSinLimitePorIp.stream().map(String::trim).filter(c -> !c.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Registra un intento de login y chequea que no se haya superado ninguno de los límites.
+     *
+     * @param email
+     *            email normalizado de la cuenta
+     * @param ip
+     *            IP del cliente
+     *
+     * @throws DemasiadosIntentosHandler
+     *             si se superó el límite de la IP o el de la cuenta
+     */
+    public void admitir(String email, String ip) {
+        Long esperarMs;
+        try {
+            esperarMs = redisson.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, SCRIPT_ADMITIR,
+                    RScript.ReturnType.INTEGER, List.<Object> of(PREFIJO_IP + ip, PREFIJO_CUENTA + email),
+                    String.valueOf(ventanaIpMs), String.valueOf(sinLimitePorIp(ip) ? -1 : limitePorIp),
+                    String.valueOf(limiteFallosPorCuenta));
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron chequear los límites de login, se deja pasar el intento", e);
+            return;
+        }
+        if (esperarMs != null && esperarMs > 0)
+            throw new DemasiadosIntentosHandler("Demasiados intentos de inicio de sesión, reintentá más tarde",
+                    Math.max(1, (esperarMs + 999) / 1000));
+    }
+
+    boolean sinLimitePorIp(String ip) {
+        if (clientesSinLimitePorIp.isEmpty())
+            return false;
+        if (!ipsSinLimiteResueltas || System.nanoTime() - ipsSinLimiteResueltasNanos > RESOLUCION_CLIENTES.toNanos())
+            resolverClientesSinLimite();
+        return ipsSinLimite.contains(ip);
+    }
+
+    private synchronized void resolverClientesSinLimite() {
+        Set<String> ips = new HashSet<>();
+        for (String cliente : clientesSinLimitePorIp) {
+            try {
+                for (InetAddress direccion : InetAddress.getAllByName(cliente))
+                    ips.add(direccion.getHostAddress());
+            } catch (UnknownHostException e) {
+                log.debug("No se pudo resolver el cliente sin límite de login por IP {}", cliente);
+            }
+        }
+        ipsSinLimite = Set.copyOf(ips);
+        ipsSinLimiteResueltasNanos = System.nanoTime();
+        ipsSinLimiteResueltas = true;
+    }
+
+    /**
+     * Registra un login fallido de la cuenta.
+     */
+    public void registrarFallo(String email) {
+        try {
+            redisson.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, SCRIPT_FALLO,
+                    RScript.ReturnType.INTEGER, List.<Object> of(PREFIJO_CUENTA + email),
+                    String.valueOf(bloqueoCuentaMs));
+        } catch (RuntimeException e) {
+            log.warn("No se pudo registrar el login fallido de {}", email, e);
+        }
+    }
+
+    /**
+     * Registra un login exitoso de la cuenta, que reinicia sus fallos.
+     */
+    public void registrarExito(String email) {
+        try {
+            redisson.getBucket(PREFIJO_CUENTA + email, StringCodec.INSTANCE).delete();
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron reiniciar los logins fallidos de {}", email, e);
+        }
+    }
+}
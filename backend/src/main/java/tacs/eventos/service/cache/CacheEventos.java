@@ -0,0 +1,77 @@
+package tacs.eventos.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tacs.eventos.model.evento.Evento;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Cache local (en cada instancia) de eventos por id, para no ir a Mongo en cada pedido que necesita el evento.
+ * <p>
+ * Cuando un evento se modifica en cualquier instancia, se publica su id en un tópico de Redis y todas las instancias lo
+ * sacan de su cache. Como pub/sub no garantiza la entrega, además cada entrada vence después de un TTL corto, que acota
+ * cuánto tiempo puede quedar un evento desactualizado.
+ * <p>
+ * Los hits y misses se exponen en Actuator como métricas cache.gets{cache=eventos}.
+ */
+@Component
+public class CacheEventos {
+    private static final String TOPICO_INVALIDACION = "evento:cache:invalidacion";
+
+    private final Cache<String, Evento> eventos;
+    private final RTopic invalidaciones;
+
+    public CacheEventos(RedissonClient redisson, MeterRegistry meterRegistry,
+            @Value("${app.cache-eventos.tamanio-maximo:10000}") long tamanioMaximo,
+            @Value("${app.cache-eventos.ttl-segundos:30}") long ttlSegundos) {
+        this.eventos = Caffeine.newBuilder().maximumSize(tamanioMaximo)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos)).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, eventos, "eventos");
+
+        this.invalidaciones = redisson.getTopic(TOPICO_INVALIDACION, StringCodec.INSTANCE);
+        this.invalidaciones.addListener(String.class, (canal, eventoId) -> eventos.invalidate(eventoId));
+    }
+
+    /**
+     * @param eventoId
+     *            id del evento buscado
+     * @param cargar
+     *            cómo obtener el evento si no está en la cache
+     *
+     * @return una copia del evento, u Optional.empty() si no existe
+     */
+    public Optional<Evento> buscar(String eventoId, Function<String, Optional<Evento>> cargar) {
+        // Las copias evitan que quien modifique el evento que recibe (por ejemplo, antes de guardarlo) afecte a los
+        // demás pedidos que lo leen de la cache
+        return Optional.ofNullable(eventos.get(eventoId, id -> cargar.apply(id).map(Evento::copia).orElse(null)))
+                .map(Evento::copia);
+    }
+
+    /**
+     * @return la versión del evento si está en la cache de esta instancia, sin ir al repositorio ni copiar el evento
+     */
+    public Optional<Long> versionEnCache(String eventoId) {
+        return Optional.ofNullable(eventos.getIfPresent(eventoId)).map(Evento::getVersion);
+    }
+
+    /**
+     * Saca el evento de la cache de esta instancia y avisa a las demás para que hagan lo mismo.
+     *
+     * @param eventoId
+     *            id del evento que se modificó
+     */
+    public void invalidar(String eventoId) {
+        eventos.invalidate(eventoId);
+        invalidaciones.publish(eventoId);
+    }
+}
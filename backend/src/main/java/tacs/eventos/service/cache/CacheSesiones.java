@@ -0,0 +1,120 @@
+package tacs.eventos.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tacs.eventos.model.Usuario;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Cache local (en cada instancia) del usuario autenticado por cada token de sesión, para no ir a Redis (por la sesión)
+ * y a Mongo (por el usuario) en cada pedido autenticado.
+ * <p>
+ * Cada entrada vence después de un TTL corto, o cuando vence la sesión, lo que pase primero. Cuando se cierra una
+ * sesión, o cambian los roles de un usuario, se avisa por un tópico de Redis a todas las instancias para que saquen de
+ * su cache el token o las sesiones de ese usuario. Como pub/sub no garantiza la entrega, el TTL acota cuánto tiempo
+ * puede seguir aceptándose una sesión cerrada.
+ * <p>
+ * Los hits y misses se exponen en Actuator como métricas cache.gets{cache=sesiones}.
+ */
+@Component
+public class CacheSesiones {
+    private static final String TOPICO_TOKENS_INVALIDADOS = "sesion:cache:invalidacion:token";
+    private static final String TOPICO_USUARIOS_INVALIDADOS = "sesion:cache:invalidacion:usuario";
+
+    private final Cache<String, SesionCacheada> sesiones;
+    private final RTopic tokensInvalidados;
+    private final RTopic usuariosInvalidados;
+
+    public CacheSesiones(RedissonClient redisson, MeterRegistry meterRegistry,
+            @Value("${app.cache-sesiones.tamanio-maximo:10000}") long tamanioMaximo,
+            @Value("${app.cache-sesiones.ttl-segundos:10}") long ttlSegundos) {
+        this.sesiones = Caffeine.newBuilder().maximumSize(tamanioMaximo)
+                .expireAfter(new VencimientoSesion(Duration.ofSeconds(ttlSegundos).toNanos())).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, sesiones, "sesiones");
+
+        this.tokensInvalidados = redisson.getTopic(TOPICO_TOKENS_INVALIDADOS, StringCodec.INSTANCE);
+        this.tokensInvalidados.addListener(String.class, (canal, token) -> sesiones.invalidate(token));
+        this.usuariosInvalidados = redisson.getTopic(TOPICO_USUARIOS_INVALIDADOS, StringCodec.INSTANCE);
+        this.usuariosInvalidados.addListener(String.class, (canal, usuarioId) -> sacarSesionesDe(usuarioId));
+    }
+
+    /**
+     * @param token
+     *            token de la sesión
+     * @param cargar
+     *            cómo validar la sesión si no está en la cache. Si la sesión no es válida, tiene que devolver un
+     *            Optional vacío (que no se guarda en la cache).
+     *
+     * @return el usuario de la sesión, u Optional.empty() si la sesión no es válida
+     */
+    public Optional<Usuario> buscar(String token, Function<String, Optional<SesionCacheada>> cargar) {
+        return Optional.ofNullable(sesiones.get(token, t -> cargar.apply(t).orElse(null)))
+                .filter(sesion -> sesion.venceEn().isAfter(Instant.now())).map(SesionCacheada::usuario);
+    }
+
+    /**
+     * Saca el token de la cache de esta instancia y avisa a las demás para que hagan lo mismo.
+     *
+     * @param token
+     *            token de la sesión que se cerró
+     */
+    public void invalidarToken(String token) {
+        sesiones.invalidate(token);
+        tokensInvalidados.publish(token);
+    }
+
+    /**
+     * Saca todas las sesiones del usuario de la cache de esta instancia y avisa a las demás para que hagan lo mismo.
+     *
+     * @param usuarioId
+     *            id del usuario que se modificó
+     */
+    public void invalidarUsuario(String usuarioId) {
+        sacarSesionesDe(usuarioId);
+        usuariosInvalidados.publish(usuarioId);
+    }
+
+    private void sacarSesionesDe(String usuarioId) {
+        sesiones.asMap().values().removeIf(sesion -> sesion.usuario().getId().equals(usuarioId));
+    }
+
+    /* Las entradas vencen después del TTL o cuando vence la sesión, lo que pase primero */
+    private record VencimientoSesion(long ttlNanos) implements Expiry<String, SesionCacheada> {
+        @Override
+        public long expireAfterCreate(String token, SesionCacheada sesion, long ahora) {
+            long hastaQueVence = Duration.between(Instant.now(), sesion.venceEn()).toNanos();
+            return Math.max(0, Math.min(ttlNanos, hastaQueVence));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, SesionCacheada sesion, long ahora, long restante) {
+            return expireAfterCreate(token, sesion, ahora);
+        }
+
+        @Override
+        public long expireAfterRead(String token, SesionCacheada sesion, long ahora, long restante) {
+            return restante;
+        }
+    }
+
+    /**
+     * @param usuario
+     *            usuario autenticado por la sesión
+     * @param venceEn
+     *            cuándo vence la sesión
+     */
+    public record SesionCacheada(Usuario usuario, Instant venceEn) {
+    }
+}
@@ -0,0 +1,65 @@
+package tacs.eventos.service.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RedissonClient;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Versión de la colección de eventos, compartida por todas las instancias en Redis: se incrementa cada vez que se crea,
+ * modifica o elimina un evento. De ella sale el ETag de los listados, así un cliente que consulta el listado
+ * periódicamente recibe un 304 sin que se vaya a Mongo mientras no cambie ningún evento.
+ * <p>
+ * Si Redis no está disponible, los listados se devuelven sin ETag.
+ */
+@Slf4j
+@Component
+public class VersionColeccionEventos {
+    private static final String KEY_VERSION = "eventos:version-coleccion";
+
+    private final RAtomicLong version;
+
+    public VersionColeccionEventos(RedissonClient redisson) {
+        this.version = redisson.getAtomicLong(KEY_VERSION);
+    }
+
+    /**
+     * @return la versión actual, u Optional.empty() si no se pudo leer
+     */
+    public Optional<Long> actual() {
+        try {
+            return Optional.of(version.get());
+        } catch (RuntimeException e) {
+            log.warn("No se pudo leer la versión de la colección de eventos", e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Si Redis perdió sus datos, la versión vuelve a empezar de 0 y podría repetir un ETag que un cliente ya tiene.
+     * Para que no pase, después de una pérdida se la lleva a un valor más alto que cualquiera de antes.
+     *
+     * @param minimo
+     *            valor mínimo que tiene que quedar
+     */
+    public void asegurarMinimo(long minimo) {
+        long actual;
+        while ((actual = version.get()) < minimo && !version.compareAndSet(actual, minimo))
+            ; // Otra instancia la cambió en el medio: vuelve a leerla
+    }
+
+    /**
+     * Avisa que cambió algún evento. Hay que llamarlo después de guardar el cambio: si un listado lee la versión antes
+     * del incremento, su ETag queda viejo y el cliente vuelve a pedir el listado, que es lo seguro.
+     */
+    public void incrementar() {
+        try {
+            version.incrementAndGet();
+        } catch (RuntimeException e) {
+            // Hasta el próximo incremento, los clientes con el ETag actual pueden seguir recibiendo el listado anterior
+            log.warn("No se pudo incrementar la versión de la colección de eventos", e);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package tacs.eventos.service.estadisticas;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Component;
+import tacs.eventos.model.inscripcion.EstadoInscripcion;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Contadores de eventos e inscripciones guardados en Redis, para responder las estadísticas sin contar las colecciones
+ * de Mongo.
+ * <p>
+ * Hay un hash global, con la cantidad de eventos y la de inscripciones (en total y por estado), y un hash por evento
+ * con la cantidad de inscripciones de ese evento (en total y por estado). Se actualizan en cada cambio de estado de una
+ * inscripción, y {@link ReconciliadorEstadisticas} los recalcula cada tanto a partir de Mongo, para corregir lo que se
+ * haya perdido (por ejemplo, si Redis no estaba disponible cuando se actualizaron).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ContadoresEstadisticas {
+    private static final String PREFIJO_KEYS = "estadisticas:v1:";
+    private static final String CAMPO_EVENTOS = "eventos";
+    private static final String CAMPO_TOTAL = "total";
+    /* Sólo está en el hash global, una vez que se reconcilió por primera vez */
+    private static final String CAMPO_RECONCILIADO_EN = "reconciliadoEn";
+
+    /* Suma a cada campo de cada uno de los hashes el valor que le sigue en ARGV */
+    private static final String SCRIPT_INCREMENTAR = """
+            for _, key in ipairs(KEYS) do
+                for i = 1, #ARGV, 2 do
+                    redis.call('hincrby', key, ARGV[i], ARGV[i + 1])
+                end
+            end
+            return 0
+            """;
+
+    private final RedissonClient redisson;
+
+    /**
+     * Registra una inscripción nueva.
+     *
+     * @param eventoId
+     * @param estado
+     *            estado con el que se creó la inscripción
+     */
+    public void inscripcionCreada(String eventoId, EstadoInscripcion estado) {
+        incrementar(List.of(keyGlobal(), keyEvento(eventoId)), CAMPO_TOTAL, 1, estado.name(), 1);
+    }
+
+    /**
+     * Registra que una o varias inscripciones de un evento pasaron de un estado a otro.
+     *
+     * @param eventoId
+     * @param anterior
+     * @param nuevo
+     * @param cantidad
+     *            cuántas inscripciones cambiaron de estado
+     */
+    public void inscripcionesCambiaronDeEstado(String eventoId, EstadoInscripcion anterior, EstadoInscripcion nuevo,
+            long cantidad) {
+        if (cantidad > 0 && anterior != nuevo)
+            incrementar(List.of(keyGlobal(), keyEvento(eventoId)), anterior.name(), -cantidad, nuevo.name(), cantidad);
+    }
+
+    public void eventoCreado() {
+        incrementar(List.of(keyGlobal()), CAMPO_EVENTOS, 1);
+    }
+
+    public void eventoEliminado(String eventoId) {
+        incrementar(List.of(keyGlobal()), CAMPO_EVENTOS, -1);
+        redisson.getMap(keyEvento(eventoId), StringCodec.INSTANCE).delete();
+    }
+
+    /**
+     * @return los contadores globales, o un Optional vacío si todavía no se reconciliaron nunca
+     */
+    public Optional<Contadores> globales() {
+        Map<String, String> valores = leer(keyGlobal());
+        if (!valores.containsKey(CAMPO_RECONCILIADO_EN))
+            return Optional.empty();
+        return Optional.of(Contadores.desde(valores));
+    }
+
+    /**
+     * @param eventoId
+     *
+     * @return los contadores de inscripciones del evento, o un Optional vacío si todavía no se reconciliaron nunca
+     */
+    public Optional<Contadores> deEvento(String eventoId) {
+        if (!redisson.getMap(keyGlobal(), StringCodec.INSTANCE).containsKey(CAMPO_RECONCILIADO_EN))
+            return Optional.empty();
+        // Si el evento no tiene hash, es porque no tiene inscripciones
+        return Optional.of(Contadores.desde(leer(keyEvento(eventoId))));
+    }
+
+    /**
+     * Reemplaza los contadores de varios eventos por los valores calculados a partir de Mongo.
+     *
+     * @param inscripcionesPorEvento
+     *            cantidad de inscripciones en cada estado, por id de evento
+     */
+    void reemplazarEventos(Map<String, Map<EstadoInscripcion, Long>> inscripcionesPorEvento) {
+        RBatch batch = redisson.createBatch();
+        inscripcionesPorEvento.forEach((eventoId, porEstado) -> batch
+                .<String, String> getMap(keyEvento(eventoId), StringCodec.INSTANCE).putAllAsync(campos(porEstado)));
+        batch.execute();
+    }
+
+    /**
+     * Reemplaza los contadores globales por los valores calculados a partir de Mongo, y marca que ya se reconciliaron.
+     */
+    void reemplazarGlobales(long eventos, Map<EstadoInscripcion, Long> porEstado) {
+        Map<String, String> campos = campos(porEstado);
+        campos.put(CAMPO_EVENTOS, String.valueOf(eventos));
+        campos.put(CAMPO_RECONCILIADO_EN, String.valueOf(System.currentTimeMillis()));
+        redisson.<String, String> getMap(keyGlobal(), StringCodec.INSTANCE).putAll(campos);
+    }
+
+    private static Map<String, String> campos(Map<EstadoInscripcion, Long> porEstado) {
+        Map<String, String> campos = new HashMap<>();
+        long total = 0;
+        for (EstadoInscripcion estado : EstadoInscripcion.values()) {
+            long cantidad = porEstado.getOrDefault(estado, 0L);
+            campos.put(estado.name(), String.valueOf(cantidad));
+            total += cantidad;
+        }
+        campos.put(CAMPO_TOTAL, String.valueOf(total));
+        return campos;
+    }
+
+    private Map<String, String> leer(String key) {
+        return redisson.<String, String> getMap(key, StringCodec.INSTANCE).readAllMap();
+    }
+
+    /*
+     * Los contadores son sólo para estadísticas: si no se pueden actualizar, no hace fallar la operación que los
+     * actualiza. La próxima reconciliación los corrige.
+     */
+    private void incrementar(List<String> keys, Object... camposYValores) {
+        List<Object> argumentos = new ArrayList<>(camposYValores.length);
+        for (Object valor : camposYValores)
+            argumentos.add(String.valueOf(valor));
+        try {
+            redisson.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, SCRIPT_INCREMENTAR,
+                    RScript.ReturnType.INTEGER, List.<Object> copyOf(keys), argumentos.toArray());
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron actualizar los contadores de estadísticas {}", keys, e);
+        }
+    }
+
+    private static String keyGlobal() {
+        return PREFIJO_KEYS + "global";
+    }
+
+    private static String keyEvento(String eventoId) {
+        return PREFIJO_KEYS + "evento:" + eventoId;
+    }
+
+    /**
+     * Valores de un hash de contadores.
+     *
+     * @param eventos
+     *            cantidad de eventos (sólo en los contadores globales)
+     * @param inscripciones
+     *            cantidad de inscripciones, en cualquier estado
+     * @param porEstado
+     *            cantidad de inscripciones en cada estado
+     */
+    public record Contadores(long eventos, long inscripciones, Map<EstadoInscripcion, Long> porEstado) {
+        public long inscripciones(EstadoInscripcion estado) {
+            return porEstado.getOrDefault(estado, 0L);
+        }
+
+        static Contadores desde(Map<String, String> valores) {
+            Map<EstadoInscripcion, Long> porEstado = new EnumMap<>(EstadoInscripcion.class);
+            for (EstadoInscripcion estado : EstadoInscripcion.values())
+                porEstado.put(estado, numero(valores, estado.name()));
+            return new Contadores(numero(valores, CAMPO_EVENTOS), numero(valores, CAMPO_TOTAL), porEstado);
+        }
+
+        private static long numero(Map<String, String> valores, String campo) {
+            String valor = valores.get(campo);
+            return valor == null ? 0 : Long.parseLong(valor);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package tacs.eventos.service.estadisticas;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tacs.eventos.model.evento.Evento;
+import tacs.eventos.model.inscripcion.EstadoInscripcion;
+import tacs.eventos.model.inscripcion.InscripcionEvento;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Recalcula los contadores de {@link ContadoresEstadisticas} a partir de Mongo: al iniciar la aplicación y después cada
+ * <code>app.estadisticas.reconciliacion-ms</code>.
+ * <p>
+ * Para que no lo hagan todas las instancias, sólo reconcilia la que obtiene un lease que dura todo el intervalo. Los
+ * incrementos que lleguen mientras se reconcilia pueden perderse; la diferencia se corrige en la reconciliación
+ * siguiente.
+ */
+@Component
+@Slf4j
+public class ReconciliadorEstadisticas {
+    private static final String KEY_LEASE = "estadisticas:v1:reconciliacion";
+    private static final int TAMANIO_LOTE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final RedissonClient redisson;
+    private final ContadoresEstadisticas contadores;
+    private final Duration intervalo;
+
+    public ReconciliadorEstadisticas(MongoTemplate mongoTemplate, RedissonClient redisson,
+            ContadoresEstadisticas contadores, @Value("${app.estadisticas.reconciliacion-ms}") long intervaloMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.redisson = redisson;
+        this.contadores = contadores;
+        this.intervalo = Duration.ofMillis(intervaloMs);
+    }
+
+    /* Después de las migraciones, para contar las inscripciones ya migradas */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void reconciliarAlIniciar() {
+        reconciliar();
+    }
+
+    @Scheduled(fixedDelayString = "${app.estadisticas.reconciliacion-ms}", initialDelayString = "${app.estadisticas.reconciliacion-ms}")
+    public void reconciliar() {
+        RBucket<String> lease = redisson.getBucket(KEY_LEASE, StringCodec.INSTANCE);
+        // El lease no se libera: vence solo, así hay como mucho una reconciliación por intervalo
+        if (!lease.setIfAbsent(UUID.randomUUID().toString(), intervalo))
+            return;
+        try {
+            long inicio = System.currentTimeMillis();
+            Map<EstadoInscripcion, Long> globales = reconciliarEventos();
+            contadores.reemplazarGlobales(mongoTemplate.count(new Query(), Evento.class), globales);
+            log.info("Se reconciliaron los contadores de estadísticas en {} ms", System.currentTimeMillis() - inicio);
+        } catch (RuntimeException e) {
+            log.error("No se pudieron reconciliar los contadores de estadísticas", e);
+        }
+    }
+
+    /*
+     * Cuenta las inscripciones por evento y estado, ordenadas por evento para ir guardando los contadores de a lotes de
+     * eventos completos. Devuelve los totales por estado.
+     */
+    private Map<EstadoInscripcion, Long> reconciliarEventos() {
+        Aggregation conteo = Aggregation.newAggregation(Aggregation.group("eventoId", "estado").count().as("cantidad"),
+                Aggregation.sort(Sort.by("_id.eventoId")));
+        Map<EstadoInscripcion, Long> globales = new EnumMap<>(EstadoInscripcion.class);
+        Map<String, Map<EstadoInscripcion, Long>> lote = new HashMap<>();
+        String eventoAnterior = null;
+        try (Stream<Document> grupos = mongoTemplate.aggregateStream(conteo, InscripcionEvento.class, Document.class)) {
+            for (Document grupo : (Iterable<Document>) grupos::iterator) {
+                Document id = grupo.get("_id", Document.class);
+                String eventoId = id.getString("eventoId");
+                if (eventoId == null)
+                    continue; // Todavía no migrada a referencias por id
+                EstadoInscripcion estado = EstadoInscripcion.valueOf(id.getString("estado"));
+                long cantidad = ((Number) grupo.get("cantidad")).longValue();
+                if (!eventoId.equals(eventoAnterior) && lote.size() >= TAMANIO_LOTE) {
+                    contadores.reemplazarEventos(lote);
+                    lote = new HashMap<>();
+                }
+                eventoAnterior = eventoId;
+                lote.computeIfAbsent(eventoId, e -> new EnumMap<>(EstadoInscripcion.class)).put(estado, cantidad);
+                globales.merge(estado, cantidad, Long::sum);
+            }
+        }
+        if (!lote.isEmpty())
+            contadores.reemplazarEventos(lote);
+        return globales;
+    }
+}
@@ -1,28 +1,16 @@
 package tacs.eventos.service.inscripciones;
 
-import lombok.RequiredArgsConstructor;
-import org.redisson.api.RCountDownLatch;
-import org.redisson.api.RSemaphore;
-import org.redisson.api.RedissonClient;
-import org.springframework.stereotype.Service;
 import tacs.eventos.model.evento.Evento;
-import tacs.eventos.model.inscripcion.EstadoInscripcion;
-import tacs.eventos.redis_utils.EstadoInicializacionRedis;
-import tacs.eventos.redis_utils.FlagsInicializacionRedis;
-import tacs.eventos.repository.inscripcion.InscripcionesRepository;
-
-@Service
-@RequiredArgsConstructor
-public class CupoEventoService {
-    private final RedissonClient redisson;
-    private final InscripcionesRepository inscripcionesRepository;
-    private final FlagsInicializacionRedis inicializacionRedis;
-
-    /*
-     * TODO: manejar caso de que el organizador del evento modifique el cupo máximo del evento. Tendríamos que volver a
-     * inicializar el semáforo, o invalidarlo seteándole el estado NO_INICIALIZADO
-     */
 
+/**
+ * Lleva la cuenta de los cupos disponibles de cada evento.
+ * <p>
+ * Cada despliegue elige dónde con <code>app.cupos.estrategia</code>: <code>redis</code> (por defecto, ver
+ * {@link RedisCupoEventoService}) o <code>mongo</code> (ver {@link MongoCupoEventoService}). La elección es fija: si
+ * Redis deja de responder no se pasa a Mongo, porque al volver los cupos de Redis no incluirían los que se tomaron en
+ * Mongo mientras tanto.
+ */
+public interface CupoEventoService {
     /**
      * Intenta obtener un cupo para el evento. Si no hay cupo, retorna false. Si hay cupo, reserva uno y retorna true.
      *
@@ -30,72 +18,37 @@ public class CupoEventoService {
      *
      * @return si se logró obtener un cupo
      */
-    public boolean obtenerCupo(Evento evento) {
-        var semaforo = getSemaforoCupos(evento);
-        if (semaforo.tryAcquire()) // Intenta obtener un cupo
-            return true; // Si pudo, retorna que hay un cupo
-        // Si no pudo, puede ser que sea porque el semáforo no está inicializado. Si es el caso, lo inicializa
-        var estadoSemaforo = estadoInicializacionSemaforo(evento);
-        if (estadoSemaforo == EstadoInicializacionRedis.LISTO) // Si sí estaba inicializado
-            return false; // Entonces realmente no había cupo. Retorna False.
-        else { // Si no estaba inicializado
-            inicializarOEsperarQueSeInicialiceElSemaforo(evento, estadoSemaforo); // Lo deja inicializado
-            return semaforo.tryAcquire(); // Intenta obtener un cupo, ahora con el semáforo inicializado
-        }
-    }
-
-    public void devolverCupo(Evento evento) {
-        getSemaforoCupos(evento).release();
-    }
+    boolean obtenerCupo(Evento evento);
 
-    private void inicializarOEsperarQueSeInicialiceElSemaforo(Evento evento, EstadoInicializacionRedis estadoSemaforo) {
-        if (estadoSemaforo == EstadoInicializacionRedis.NO_INICIALIZADO)
-            inicializarSemaforo(evento);
-        else if (estadoSemaforo == EstadoInicializacionRedis.INICIALIZANDO) {
-            // Si se está inicializando, espero a que termine
-            try {
-                sincronizacionInicializacionSemaforo(evento).await();
-            } catch (InterruptedException e) {
-                /*
-                 * TODO: ver cómo hacemos el logueo (recordar que tenemos muchas instancias, y encima usamos docker, así
-                 * que es inviable escribir en un archivo)
-                 */
-                e.printStackTrace();
-                inicializarSemaforo(evento); // Si hubo un error, lo hago yo
-            }
-        }
+    default void devolverCupo(Evento evento) {
+        devolverCupos(evento, 1);
     }
 
-    private void inicializarSemaforo(Evento evento) {
-        // Aviso que estoy inicializando
-        inicializacionRedis.setEstadoInicializacion(keyEstadoSemaforo(evento), EstadoInicializacionRedis.INICIALIZANDO);
-        RCountDownLatch latch = sincronizacionInicializacionSemaforo(evento);
-        latch.trySetCount(1); // Bloqueo para que otros hilos esperen a que termine de inicializar
-        try {
-            RSemaphore semaforo = getSemaforoCupos(evento);
-            int inscriptos = this.inscripcionesRepository.countByEventoAndEstado(evento, EstadoInscripcion.CONFIRMADA);
-            semaforo.trySetPermits(evento.getCupoMaximo() - inscriptos);
-        } finally {
-            latch.countDown(); // Desbloquea para que otros hilos sepan que ya inicialicé
-        }
-        // Aviso que quedó inicializado
-        inicializacionRedis.setEstadoInicializacion(keyEstadoSemaforo(evento), EstadoInicializacionRedis.LISTO);
-    }
-
-    private EstadoInicializacionRedis estadoInicializacionSemaforo(Evento evento) {
-        return inicializacionRedis.getEstadoInicializacion(keyEstadoSemaforo(evento));
-    }
-
-    private String keyEstadoSemaforo(Evento evento) {
-        return "estado-inicializacion-cupos:" + evento.getId();
-    }
+    /**
+     * Devuelve varios cupos de una vez, por ejemplo los que se reservaron para inscripciones de la waitlist que ya no
+     * estaban pendientes.
+     */
+    void devolverCupos(Evento evento, int cantidad);
 
-    private RSemaphore getSemaforoCupos(Evento evento) {
-        return redisson.getSemaphore("cupos-evento:" + evento.getId());
-    }
+    /**
+     * Actualiza los cupos disponibles después de que se modificó el cupo máximo del evento.
+     *
+     * @param evento
+     *            evento con el cupo máximo nuevo
+     *
+     * @return cuántos cupos disponibles se sumaron (o restaron, si es negativo)
+     */
+    long reconciliarCupoMaximo(Evento evento);
 
-    private RCountDownLatch sincronizacionInicializacionSemaforo(Evento evento) {
-        return redisson.getCountDownLatch("sincronizacion-init-cupos-evento:" + evento.getId());
-    }
+    /**
+     * Calcula ya los cupos del evento si todavía no están calculados, en lugar de esperar a que los pida una
+     * inscripción.
+     */
+    void inicializarSiFalta(Evento evento);
 
+    /**
+     * @return si los cupos están en Redis, donde {@link InscripcionAtomicaRedis} los puede tomar en el mismo script que
+     *         la waitlist. Si no, las inscripciones siguen siempre el camino lento.
+     */
+    boolean cuposEnRedis();
 }
@@ -0,0 +1,137 @@
+package tacs.eventos.service.inscripciones;
+
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Service;
+import tacs.eventos.model.evento.Evento;
+import tacs.eventos.redis_utils.EstadoInicializacionRedis;
+import tacs.eventos.redis_utils.FlagsInicializacionRedis;
+import tacs.eventos.service.waitlist.redis.InicializacionWaitlistRedisService;
+import tacs.eventos.service.waitlist.redis.RedisWaitlistService;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resuelve en un único script de Redis (y por lo tanto en un solo round trip, y en forma atómica) si una inscripción
+ * obtiene un cupo o va a la waitlist del evento.
+ */
+@Service
+@RequiredArgsConstructor
+public class InscripcionAtomicaRedis {
+    /*
+     * KEYS: 1 = hash con los cupos del evento (ver RedisCupoEventoService), 2 = waitlist (un sorted set, ver
+     * WaitlistRedisOrdenada), 3 = flag de inicialización de la waitlist, 4 = contador de llegadas a la waitlist. ARGV:
+     * 1 = campo del hash con los cupos disponibles, 2 = valor del flag cuando la waitlist está inicializada, 3 = id de
+     * la inscripción.
+     *
+     * Si los cupos o la waitlist no están inicializados, no hace nada y devuelve -1. Si no hay nadie esperando en la
+     * waitlist y hay cupo, lo toma y devuelve 1. Si no, agrega la inscripción al final de la waitlist y devuelve 0.
+     * Mientras haya gente en la waitlist, los cupos que se liberen son para ellos: así se respeta el orden de llegada.
+     */
+    private static final String SCRIPT_RESERVAR_CUPO_O_ENCOLAR = """
+            local disponibles = redis.call('hget', KEYS[1], ARGV[1])
+            if not disponibles or redis.call('get', KEYS[3]) ~= ARGV[2] then
+                return -1
+            end
+            if redis.call('zcard', KEYS[2]) == 0 and tonumber(disponibles) > 0 then
+                redis.call('hincrby', KEYS[1], ARGV[1], -1)
+                return 1
+            end
+            redis.call('zadd', KEYS[2], 'NX', redis.call('incr', KEYS[4]), ARGV[3])
+            return 0
+            """;
+
+    /*
+     * Mismas KEYS que el anterior. ARGV: 1 = campo de los cupos disponibles, 2 = valor del flag de la waitlist
+     * inicializada, 3 = cantidad máxima a sacar.
+     *
+     * Saca de la waitlist tantas inscripciones como cupos haya disponibles (hasta el máximo), y reserva un cupo para
+     * cada una. Devuelve los ids intercalados con sus scores, como ZPOPMIN. Si los cupos o la waitlist no están
+     * inicializados, devuelve nil.
+     */
+    private static final String SCRIPT_RESERVAR_CUPOS_PARA_WAITLIST = """
+            local disponibles = redis.call('hget', KEYS[1], ARGV[1])
+            if not disponibles or redis.call('get', KEYS[3]) ~= ARGV[2] then
+                return false
+            end
+            local cantidad = math.min(tonumber(disponibles), redis.call('zcard', KEYS[2]), tonumber(ARGV[3]))
+            if cantidad <= 0 then
+                return {}
+            end
+            redis.call('hincrby', KEYS[1], ARGV[1], -cantidad)
+            return redis.call('zpopmin', KEYS[2], cantidad)
+            """;
+
+    private final RedissonClient redisson;
+    private final FlagsInicializacionRedis flagsInicializacion;
+
+    public enum ResultadoReserva {
+        CUPO_OBTENIDO, EN_WAITLIST, NO_INICIALIZADO
+    }
+
+    /**
+     * Intenta tomar un cupo del evento, y si no hay (o hay gente esperando), agrega la inscripción a la waitlist.
+     *
+     * @param evento
+     * @param idInscripcion
+     *            id de la inscripción pendiente, que ya tiene que estar guardada
+     *
+     * @return qué pasó. Si devuelve NO_INICIALIZADO, no se modificó nada y hay que seguir el camino lento, que
+     *         inicializa los cupos y la waitlist.
+     */
+    public ResultadoReserva reservarCupoOEncolar(Evento evento, String idInscripcion) {
+        Long resultado = redisson.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                SCRIPT_RESERVAR_CUPO_O_ENCOLAR, RScript.ReturnType.INTEGER, keys(evento),
+                RedisCupoEventoService.campoDisponibles(),
+                flagsInicializacion.valorEnRedis(EstadoInicializacionRedis.LISTO), idInscripcion);
+        return switch (resultado.intValue()) {
+        case 1 -> ResultadoReserva.CUPO_OBTENIDO;
+        case 0 -> ResultadoReserva.EN_WAITLIST;
+        default -> ResultadoReserva.NO_INICIALIZADO;
+        };
+    }
+
+    /**
+     * Saca de la waitlist, en orden de llegada, tantas inscripciones como cupos libres haya en el evento, y les reserva
+     * un cupo a cada una.
+     *
+     * @param evento
+     * @param maximo
+     *            cantidad máxima de inscripciones a sacar
+     *
+     * @return los ids de las inscripciones que salieron de la waitlist, en orden de llegada y con el score que tenían
+     *         en la waitlist, o null si los cupos o la waitlist no están inicializados en Redis
+     */
+    public Map<String, Double> reservarCuposParaWaitlist(Evento evento, int maximo) {
+        List<String> sacados = redisson.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                SCRIPT_RESERVAR_CUPOS_PARA_WAITLIST, RScript.ReturnType.MULTI, keys(evento),
+                RedisCupoEventoService.campoDisponibles(),
+                flagsInicializacion.valorEnRedis(EstadoInicializacionRedis.LISTO), String.valueOf(maximo));
+        if (sacados == null)
+            return null;
+        Map<String, Double> conScores = new LinkedHashMap<>();
+        for (int i = 0; i < sacados.size(); i += 2)
+            conScores.put(sacados.get(i), Double.valueOf(sacados.get(i + 1)));
+        return conScores;
+    }
+
+    /**
+     * Vuelve a poner en la waitlist, con el score que tenían (y por lo tanto en el mismo lugar), inscripciones que se
+     * sacaron con {@link #reservarCuposParaWaitlist(Evento, int)} pero no se pudieron confirmar. No devuelve sus cupos.
+     */
+    public void devolverAWaitlist(Evento evento, Map<String, Double> sacadas) {
+        if (!sacadas.isEmpty())
+            redisson.<String> getScoredSortedSet(RedisWaitlistService.keyCola(evento), StringCodec.INSTANCE)
+                    .addAll(sacadas);
+    }
+
+    private static List<Object> keys(Evento evento) {
+        return List.of(RedisCupoEventoService.keyCupos(evento), RedisWaitlistService.keyCola(evento),
+                InicializacionWaitlistRedisService.flagInicializacionCola(evento),
+                RedisWaitlistService.keySecuenciaCola(evento));
+    }
+}
@@ -1,7 +1,7 @@
 package tacs.eventos.service.inscripciones;
 
 import lombok.AllArgsConstructor;
-import org.springframework.scheduling.annotation.Async;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import tacs.eventos.controller.error.handlers.EventoCerradoHandler;
 import tacs.eventos.model.Usuario;
@@ -12,8 +12,14 @@ import tacs.eventos.model.inscripcion.InscripcionEvento;
 import tacs.eventos.model.inscripcion.InscripcionFactory;
 import tacs.eventos.repository.inscripcion.InscripcionesRepository;
 import tacs.eventos.service.WaitlistService;
+import tacs.eventos.service.estadisticas.ContadoresEstadisticas;
+import tacs.eventos.service.inscripciones.MetricasInscripciones.Etapa;
+import tacs.eventos.service.inscripciones.MetricasInscripciones.Resultado;
+import tacs.eventos.service.tareas.EjecutorTareasPorEvento;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -22,10 +28,18 @@ import java.util.Optional;
  */
 @Service
 @AllArgsConstructor
+@Slf4j
 public class InscripcionesService {
+    private static final int TAMANIO_LOTE_PROMOCION = 500;
+    private static final String TAREA_PROMOVER_WAITLIST = "promover-waitlist";
+
     private InscripcionesRepository inscripcionesRepository;
     private WaitlistService waitlistService;
     private CupoEventoService cupoEventoService;
+    private InscripcionAtomicaRedis inscripcionAtomica;
+    private EjecutorTareasPorEvento ejecutorTareas;
+    private ContadoresEstadisticas contadores;
+    private MetricasInscripciones metricas;
 
     /**
      * Intenta inscribir al usuario al evento. Si no hay lugar, lo manda a la waitlist.
@@ -39,15 +53,86 @@ public class InscripcionesService {
      *             si el evento está cerrado y ya no recibe inscripciones
      */
     public Optional<InscripcionEvento> inscribirOMandarAWaitlist(Evento evento, Usuario usuario) {
-        if (evento.getEstado() != EstadoEvento.ABIERTO)
+        if (evento.getEstado() != EstadoEvento.ABIERTO) {
+            metricas.resultado(Resultado.EVENTO_CERRADO, evento.getId());
             throw new EventoCerradoHandler(evento);
-        // Primero intenta inscribirlo directamente. Si no, lo manda a la waitlist.
-        return intentarInscribir(InscripcionFactory.confirmada(usuario, evento)).or(() -> {
-            InscripcionEvento inscripcionEvento = InscripcionFactory.pendiente(usuario, evento);
-            inscripcionesRepository.save(inscripcionEvento);
-            waitlistService.waitlist(evento).agregar(inscripcionEvento.getId());
+        }
+
+        /*
+         * La inscripción se guarda como pendiente antes de decidir si tiene cupo: así, cuando su id llega a la waitlist
+         * de Redis, ya está en Mongo, y una promoción que la saque enseguida siempre la encuentra. Si obtiene un cupo,
+         * se reemplaza por la confirmada, con el mismo id.
+         */
+        InscripcionEvento pendiente = InscripcionFactory.pendiente(usuario, evento);
+        metricas.medir(Etapa.GUARDADO, evento.getId(), () -> inscripcionesRepository.insert(pendiente));
+        Optional<InscripcionEvento> confirmada;
+        try {
+            confirmada = confirmarOEncolar(evento, pendiente);
+        } catch (RuntimeException e) {
+            descartarPendiente(pendiente);
+            throw e;
+        }
+        EstadoInscripcion estado = confirmada.isPresent() ? EstadoInscripcion.CONFIRMADA : EstadoInscripcion.PENDIENTE;
+        metricas.resultado(confirmada.isPresent() ? Resultado.CONFIRMADA : Resultado.EN_WAITLIST, evento.getId());
+        contadores.inscripcionCreada(evento.getId(), estado);
+        return confirmada;
+    }
+
+    /**
+     * Toma un cupo para la inscripción pendiente ya guardada y la confirma, o la agrega a la waitlist.
+     *
+     * @return la inscripción confirmada, o un Optional vacío si quedó en la waitlist
+     */
+    private Optional<InscripcionEvento> confirmarOEncolar(Evento evento, InscripcionEvento pendiente) {
+        // Camino rápido, si los cupos están en Redis: un solo script decide si toma un cupo o va a la waitlist
+        if (cupoEventoService.cuposEnRedis()) {
+            switch (metricas.medir(Etapa.CUPO, evento.getId(),
+                    () -> inscripcionAtomica.reservarCupoOEncolar(evento, pendiente.getId()))) {
+            case CUPO_OBTENIDO:
+                return Optional.of(guardarConfirmada(evento, InscripcionFactory.confirmadaEnLugarDe(pendiente)));
+            case EN_WAITLIST:
+                return Optional.empty();
+            default:
+                break; // Los cupos o la waitlist todavía no están en Redis
+            }
+        }
+
+        /*
+         * Camino lento: primero intenta inscribirlo directamente. Si no, lo manda a la waitlist. Si hay pendientes que
+         * llegaron antes, un lugar libre es para ellas: va a la waitlist, y la promoción confirma en orden de llegada.
+         */
+        if (hayPendientesAnteriores(evento, pendiente)) {
+            metricas.medir(Etapa.WAITLIST, evento.getId(),
+                    () -> waitlistService.waitlist(evento).agregar(pendiente.getId()));
+            programarPromocionWaitlist(evento);
             return Optional.empty();
-        });
+        }
+        Optional<InscripcionEvento> inscripcion = intentarInscribir(evento,
+                InscripcionFactory.confirmadaEnLugarDe(pendiente));
+        if (inscripcion.isEmpty())
+            metricas.medir(Etapa.WAITLIST, evento.getId(),
+                    () -> waitlistService.waitlist(evento).agregar(pendiente.getId()));
+        return inscripcion;
+    }
+
+    private boolean hayPendientesAnteriores(Evento evento, InscripcionEvento pendiente) {
+        return pendiente.getFechaHoraIngresoAWaitlist()
+                .map(fecha -> inscripcionesRepository.existsByEventoIdAndEstadoAndFechaHoraIngresoAWaitlistLessThan(
+                        evento.getId(), EstadoInscripcion.PENDIENTE, fecha))
+                .orElse(false);
+    }
+
+    /*
+     * Si no se pudo resolver la inscripción, borra la pendiente que se había guardado, para que el usuario pueda volver
+     * a intentarlo. Si su id quedó en la waitlist, la promoción lo descarta al no encontrarla.
+     */
+    private void descartarPendiente(InscripcionEvento pendiente) {
+        try {
+            inscripcionesRepository.deleteById(pendiente.getId());
+        } catch (RuntimeException e) {
+            log.warn("No se pudo borrar la inscripción pendiente {} del evento {}", pendiente.getId(),
+                    pendiente.getEventoId(), e);
+        }
     }
 
     /**
@@ -64,9 +149,13 @@ public class InscripcionesService {
         if (optInscripcionACancelar.isEmpty())
             return; // Si ya está cancelada, no hago nada.
         var inscripcion = optInscripcionACancelar.get();
+        var estadoAnterior = inscripcion.getEstado();
         var estabaConfirmada = inscripcion.estaConfirmada();
         inscripcion.cancelar();
         inscripcionesRepository.save(inscripcion);
+        contadores.inscripcionesCambiaronDeEstado(evento.getId(), estadoAnterior, EstadoInscripcion.CANCELADA, 1);
+        if (estadoAnterior == EstadoInscripcion.PENDIENTE)
+            quitarDeWaitlist(evento, inscripcion);
         if (estabaConfirmada) { // Si se eliminó una inscripción confirmada (se liberó un lugar)
             /*
              * Promueve al próximo de la waitlist (si hay alguien). Hace esto en forma asincrónica, porque es una acción
@@ -75,7 +164,7 @@ public class InscripcionesService {
              * cancelada.
              */
             cupoEventoService.devolverCupo(evento);
-            inscribirProximo(evento);
+            programarPromocionWaitlist(evento);
         }
     }
 
@@ -89,13 +178,38 @@ public class InscripcionesService {
         return inscripcionesRepository.noCanceladaParaParticipanteYEvento(usuario, evento);
     }
 
+    /*
+     * La inscripción ya quedó cancelada en la base, así que si no se puede sacar de la waitlist no se pierde nada: la
+     * saca CompactadorWaitlistsRedis, o se descarta al promover.
+     */
+    private void quitarDeWaitlist(Evento evento, InscripcionEvento inscripcion) {
+        try {
+            waitlistService.waitlist(evento).quitar(inscripcion.getId());
+        } catch (RuntimeException e) {
+            log.warn("No se pudo sacar la inscripción {} de la waitlist del evento {}", inscripcion.getId(),
+                    evento.getId(), e);
+        }
+    }
+
+    /**
+     * @param evento
+     * @param usuario
+     *
+     * @return la posición del usuario en la waitlist del evento, empezando en 1, o un Optional vacío si no está
+     *         esperando
+     */
+    public Optional<Long> posicionEnWaitlist(Evento evento, Usuario usuario) {
+        return inscripcionNoCancelada(evento, usuario).filter(InscripcionEvento::estaPendiente)
+                .flatMap(i -> waitlistService.waitlist(evento).posicion(i.getId()));
+    }
+
     /**
      * @param evento
      *
      * @return todas las inscripciones (confirmadas, canceladas, o pendientes) de ese evento
      */
     public List<InscripcionEvento> inscripcionesConfirmadas(Evento evento) {
-        return inscripcionesRepository.findByEventoAndEstado(evento, EstadoInscripcion.CONFIRMADA);
+        return inscripcionesRepository.findByEventoIdAndEstado(evento.getId(), EstadoInscripcion.CONFIRMADA);
     }
 
     /**
@@ -104,44 +218,155 @@ public class InscripcionesService {
      * @return las inscripciones pendientes de ese evento
      */
     public List<InscripcionEvento> inscripcionesPendientes(Evento evento) {
-        return inscripcionesRepository.findByEventoAndEstado(evento, EstadoInscripcion.PENDIENTE);
+        return inscripcionesRepository.findByEventoIdAndEstado(evento.getId(), EstadoInscripcion.PENDIENTE);
     }
 
     /**
      * Intenta inscribir al usuario directamente al evento (sin pasar por la waitlist).
      *
+     * @param evento
+     *            evento de la inscripción
      * @param inscripcion
      *            la inscripción que se quiere intentar realizar
      *
      * @return la inscripción realizada, o un Optional vacío si no pudo realizar la inscripción porque no había lugar o
      *         porque el evento fue cerrado.
      */
-    private Optional<InscripcionEvento> intentarInscribir(InscripcionEvento inscripcion) {
-        boolean hayCupo = cupoEventoService.obtenerCupo(inscripcion.getEvento());
+    private Optional<InscripcionEvento> intentarInscribir(Evento evento, InscripcionEvento inscripcion) {
+        boolean hayCupo = metricas.medir(Etapa.CUPO, evento.getId(), () -> cupoEventoService.obtenerCupo(evento));
         if (!hayCupo)
             return Optional.empty();
+        return Optional.of(guardarConfirmada(evento, inscripcion));
+    }
+
+    /**
+     * Confirma y guarda una inscripción para la que ya se reservó un cupo. Si no se puede guardar, devuelve el cupo.
+     */
+    private InscripcionEvento guardarConfirmada(Evento evento, InscripcionEvento inscripcion) {
         try {
             inscripcion.confirmar();
             /* Guarda una inscripción nueva, o la actualiza con el estado CONFIRMADA */
-            inscripcionesRepository.save(inscripcion);
-            return Optional.of(inscripcion);
+            metricas.medir(Etapa.GUARDADO, evento.getId(), () -> inscripcionesRepository.save(inscripcion));
         } catch (Exception e) {
-            cupoEventoService.devolverCupo(inscripcion.getEvento());
+            cupoEventoService.devolverCupo(evento);
             throw e;
         }
+        return inscripcion;
+    }
+
+    /**
+     * Como {@link #guardarConfirmada(Evento, InscripcionEvento)}, y además actualiza los contadores de las
+     * estadísticas.
+     */
+    private InscripcionEvento guardarConCupoReservado(Evento evento, InscripcionEvento inscripcion) {
+        boolean estabaPendiente = inscripcion.estaPendiente();
+        guardarConfirmada(evento, inscripcion);
+        if (estabaPendiente)
+            contadores.inscripcionesCambiaronDeEstado(evento.getId(), EstadoInscripcion.PENDIENTE,
+                    EstadoInscripcion.CONFIRMADA, 1);
+        else
+            contadores.inscripcionCreada(evento.getId(), EstadoInscripcion.CONFIRMADA);
+        return inscripcion;
+    }
+
+    /**
+     * Actualiza los cupos disponibles después de que se modificó el cupo máximo del evento. Si se liberaron lugares,
+     * confirma las inscripciones que estaban en la waitlist.
+     *
+     * @param evento
+     *            evento con el cupo máximo nuevo
+     */
+    public void ajustarCupoMaximo(Evento evento) {
+        if (cupoEventoService.reconciliarCupoMaximo(evento) > 0)
+            programarPromocionWaitlist(evento);
+    }
+
+    /**
+     * Programa la promoción de la waitlist del evento, para que se haga en segundo plano y no demore al pedido que
+     * liberó los lugares. Las promociones de un mismo evento nunca se ejecutan en paralelo.
+     *
+     * @param evento
+     */
+    public void programarPromocionWaitlist(Evento evento) {
+        ejecutorTareas.ejecutar(evento.getId(), TAREA_PROMOVER_WAITLIST,
+                () -> metricas.medir(Etapa.PROMOCION, evento.getId(), () -> promoverWaitlist(evento)));
     }
 
     /**
-     * Confirma la siguiente inscripción no cancelada en la waitlist. Este métod0 es asincrónico.
+     * Confirma, en orden de llegada, tantas inscripciones de la waitlist como lugares libres haya en el evento.
+     * <p>
+     * Cada vuelta saca de Redis un lote de ids junto con sus cupos (un solo script), los lee de Mongo con una sola
+     * query, y los confirma con un solo update. Los cupos de las inscripciones que ya no estaban pendientes se
+     * devuelven, y se vuelve a intentar con las siguientes de la waitlist.
      *
      * @param evento
      */
+    void promoverWaitlist(Evento evento) {
+        if (!cupoEventoService.cuposEnRedis()) { // Los cupos no se pueden tomar en el mismo script que la waitlist
+            promoverWaitlistDeAUna(evento);
+            return;
+        }
+        Map<String, Double> sacadas;
+        while ((sacadas = inscripcionAtomica.reservarCuposParaWaitlist(evento, TAMANIO_LOTE_PROMOCION)) != null
+                && !sacadas.isEmpty()) {
+            long confirmadas;
+            try {
+                List<String> pendientes = pendientesEntre(List.copyOf(sacadas.keySet()));
+                confirmadas = inscripcionesRepository.confirmarPendientes(pendientes);
+            } catch (RuntimeException e) {
+                devolverLote(evento, sacadas);
+                throw e;
+            }
+            contadores.inscripcionesCambiaronDeEstado(evento.getId(), EstadoInscripcion.PENDIENTE,
+                    EstadoInscripcion.CONFIRMADA, confirmadas);
+            cupoEventoService.devolverCupos(evento, sacadas.size() - (int) confirmadas);
+        }
+        if (sacadas == null) // Los cupos o la waitlist no están en Redis: las promueve de a una
+            promoverWaitlistDeAUna(evento);
+    }
+
     /*
-     * TODO: hacer esto N veces, por si por algún error en el sistema habían quedado lugares libres en el evento sin
-     * llenar
+     * Si falló la confirmación de un lote, vuelve a poner en la waitlist (en el mismo lugar) las inscripciones que no
+     * llegaron a confirmarse, y devuelve sus cupos. Si no se puede saber cuáles se confirmaron, las trata a todas como
+     * no confirmadas.
+     */
+    private void devolverLote(Evento evento, Map<String, Double> sacadas) {
+        Map<String, Double> noConfirmadas = new LinkedHashMap<>(sacadas);
+        try {
+            inscripcionesRepository.findAllById(sacadas.keySet()).stream().filter(InscripcionEvento::estaConfirmada)
+                    .forEach(i -> noConfirmadas.remove(i.getId()));
+        } catch (RuntimeException e) {
+            log.warn("No se pudo verificar qué inscripciones del evento {} se confirmaron", evento.getId(), e);
+        }
+        try {
+            inscripcionAtomica.devolverAWaitlist(evento, noConfirmadas);
+            cupoEventoService.devolverCupos(evento, noConfirmadas.size());
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron devolver a la waitlist del evento {} las inscripciones {}", evento.getId(),
+                    noConfirmadas.keySet(), e);
+        }
+    }
+
+    /**
+     * @return los ids de las inscripciones pendientes entre las pasadas por parámetro
      */
-    @Async
-    protected void inscribirProximo(Evento evento) {
-        waitlistService.waitlist(evento).proxima().ifPresent(this::intentarInscribir);
+    private List<String> pendientesEntre(List<String> ids) {
+        /*
+         * Las inscripciones se guardan antes de que su id llegue a la waitlist, así que las que no están es porque se
+         * descartaron.
+         */
+        return inscripcionesRepository.findAllById(ids).stream().filter(InscripcionEvento::estaPendiente)
+                .map(InscripcionEvento::getId).toList();
+    }
+
+    private void promoverWaitlistDeAUna(Evento evento) {
+        while (cupoEventoService.obtenerCupo(evento)) {
+            var proxima = waitlistService.waitlist(evento).proxima();
+            if (proxima.isEmpty()) { // No hay nadie esperando: devuelve el cupo
+                cupoEventoService.devolverCupo(evento);
+                return;
+            }
+            guardarConCupoReservado(evento, proxima.get());
+        }
     }
 }
@@ -0,0 +1,153 @@
+package tacs.eventos.service.inscripciones;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Métricas del circuito de inscripción, para ver qué pasa durante la apertura de un evento con mucha demanda:
+ * <ul>
+ * <li>inscripciones.etapa.duracion (timer con histograma de percentiles, por etapa y evento): cuánto tarda cada etapa
+ * (obtener un cupo, encolar en la waitlist, guardar en Mongo, promover la waitlist).</li>
+ * <li>inscripciones.resultado (contador, por resultado y evento): cuántos pedidos de inscripción terminaron
+ * confirmados, en la waitlist, rechazados por duplicados, o rechazados porque el evento estaba cerrado.</li>
+ * <li>inscripciones.inicializaciones.en_curso (gauge, por tipo): cuántas inicializaciones de los cupos o de la waitlist
+ * de un evento se están haciendo en esta instancia.</li>
+ * </ul>
+ * Para que la cantidad de series no crezca con la cantidad de eventos, se etiquetan con su id como mucho
+ * <code>app.metricas.eventos-etiquetados-max</code> eventos a la vez. Cuando llega uno nuevo y ya no hay lugar, deja su
+ * lugar el que hace más tiempo que no se usa, y se borran sus series, siempre que lleve al menos
+ * <code>app.metricas.eventos-etiquetados-inactividad-segundos</code> sin usarse. Si no, el nuevo se etiqueta como
+ * "otros" hasta que se libere un lugar. Así el evento de la próxima apertura siempre tiene sus propias series, aunque
+ * la instancia lleve mucho tiempo andando.
+ */
+@Component
+public class MetricasInscripciones {
+    static final String OTROS_EVENTOS = "otros";
+
+    private final MeterRegistry metricas;
+    private final int eventosEtiquetadosMax;
+    private final long inactividadMinimaNanos;
+    /* Eventos etiquetados con su id, con la última vez (System.nanoTime) que se usaron */
+    private final Map<String, Long> eventosEtiquetados = new ConcurrentHashMap<>();
+    private final Map<TipoInicializacion, AtomicInteger> inicializacionesEnCurso = new EnumMap<>(
+            TipoInicializacion.class);
+
+    public enum Etapa {
+        CUPO, WAITLIST, GUARDADO, PROMOCION
+    }
+
+    public enum Resultado {
+        CONFIRMADA, EN_WAITLIST, DUPLICADA, EVENTO_CERRADO
+    }
+
+    public enum TipoInicializacion {
+        CUPOS, WAITLIST
+    }
+
+    public MetricasInscripciones(MeterRegistry metricas,
+            @Value("${app.metricas.eventos-etiquetados-max:200}") int eventosEtiquetadosMax,
+            @Value("${app.metricas.eventos-etiquetados-inactividad-segundos:600}") long inactividadMinimaSegundos) {
+        this.metricas = metricas;
+        this.eventosEtiquetadosMax = eventosEtiquetadosMax;
+        this.inactividadMinimaNanos = TimeUnit.SECONDS.toNanos(inactividadMinimaSegundos);
+        for (TipoInicializacion tipo : TipoInicializacion.values()) {
+            AtomicInteger enCurso = new AtomicInteger();
+            inicializacionesEnCurso.put(tipo, enCurso);
+            Gauge.builder("inscripciones.inicializaciones.en_curso", enCurso, AtomicInteger::get)
+                    .tag("tipo", etiqueta(tipo)).description("Inicializaciones en Redis en curso en esta instancia")
+                    .register(metricas);
+        }
+    }
+
+    /**
+     * Ejecuta la acción midiendo cuánto tarda.
+     *
+     * @return lo que devuelve la acción
+     */
+    public <T> T medir(Etapa etapa, String eventoId, Supplier<T> accion) {
+        return timer(etapa, eventoId).record(accion);
+    }
+
+    /**
+     * Ejecuta la acción midiendo cuánto tarda.
+     */
+    public void medir(Etapa etapa, String eventoId, Runnable accion) {
+        timer(etapa, eventoId).record(accion);
+    }
+
+    /**
+     * Cuenta un pedido de inscripción que terminó con el resultado.
+     */
+    public void resultado(Resultado resultado, String eventoId) {
+        Counter.builder("inscripciones.resultado").tag("resultado", etiqueta(resultado))
+                .tag("evento", etiquetaEvento(eventoId)).register(metricas).increment();
+    }
+
+    /**
+     * Ejecuta la inicialización, contándola como en curso mientras dura.
+     */
+    public void inicializando(TipoInicializacion tipo, Runnable inicializacion) {
+        AtomicInteger enCurso = inicializacionesEnCurso.get(tipo);
+        enCurso.incrementAndGet();
+        try {
+            inicializacion.run();
+        } finally {
+            enCurso.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return el id del evento, si es uno de los que se etiquetan, u "otros"
+     */
+    String etiquetaEvento(String eventoId) {
+        long ahora = System.nanoTime();
+        // Camino rápido, sin lock: el evento ya está etiquetado
+        if (eventosEtiquetados.computeIfPresent(eventoId, (id, usado) -> ahora) != null)
+            return eventoId;
+        return etiquetarNuevo(eventoId, ahora);
+    }
+
+    private synchronized String etiquetarNuevo(String eventoId, long ahora) {
+        if (eventosEtiquetados.computeIfPresent(eventoId, (id, usado) -> ahora) != null)
+            return eventoId; // Lo etiquetó otro hilo mientras esperaba
+        if (eventosEtiquetados.size() >= eventosEtiquetadosMax) {
+            var menosReciente = eventosEtiquetados.entrySet().stream().min(Map.Entry.comparingByValue());
+            if (menosReciente.isEmpty() || ahora - menosReciente.get().getValue() < inactividadMinimaNanos)
+                return OTROS_EVENTOS;
+            String desplazado = menosReciente.get().getKey();
+            eventosEtiquetados.remove(desplazado);
+            quitarSeries(desplazado);
+        }
+        eventosEtiquetados.put(eventoId, ahora);
+        return eventoId;
+    }
+
+    private void quitarSeries(String eventoId) {
+        for (String nombre : List.of("inscripciones.etapa.duracion", "inscripciones.resultado"))
+            metricas.find(nombre).tag("evento", eventoId).meters().forEach(metricas::remove);
+    }
+
+    private Timer timer(Etapa etapa, String eventoId) {
+        return Timer.builder("inscripciones.etapa.duracion").tag("etapa", etiqueta(etapa))
+                .tag("evento", etiquetaEvento(eventoId)).publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1)).maximumExpectedValue(Duration.ofSeconds(10))
+                .register(metricas);
+    }
+
+    private static String etiqueta(Enum<?> valor) {
+        return valor.name().toLowerCase();
+    }
+}
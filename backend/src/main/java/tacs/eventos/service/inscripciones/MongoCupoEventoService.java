@@ -0,0 +1,120 @@
+package tacs.eventos.service.inscripciones;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import tacs.eventos.model.evento.Evento;
+import tacs.eventos.model.inscripcion.EstadoInscripcion;
+import tacs.eventos.repository.inscripcion.InscripcionesRepository;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lleva la cuenta de los cupos de cada evento sólo en Mongo, sin depender de Redis
+ * (<code>app.cupos.estrategia=mongo</code>).
+ * <p>
+ * Cada evento tiene un documento con la cantidad de inscripciones confirmadas y el cupo máximo con el que se cuentan.
+ * Tomar un cupo es un solo update condicional: incrementa las confirmadas sólo si todavía están por debajo del cupo
+ * máximo. El documento no es el del evento porque los eventos se guardan enteros (y con versión), así que cada
+ * modificación del evento pisaría la cuenta.
+ * <p>
+ * Si el documento no existe, se crea contando las inscripciones confirmadas. Si dos instancias lo crean a la vez, gana
+ * la primera.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.cupos.estrategia", havingValue = "mongo")
+public class MongoCupoEventoService implements CupoEventoService {
+    static final String COLECCION = "cupos_eventos";
+    private static final String CAMPO_CONFIRMADAS = "confirmadas";
+    private static final String CAMPO_CUPO_MAXIMO = "cupoMaximo";
+
+    private final MongoTemplate mongoTemplate;
+    private final InscripcionesRepository inscripcionesRepository;
+    private final MetricasInscripciones metricas;
+
+    /* Eventos cuyo documento ya se sabe que existe, para no buscarlo cada vez que un evento lleno rechaza un pedido */
+    private final Set<String> inicializados = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean obtenerCupo(Evento evento) {
+        if (tomarCupo(evento))
+            return true;
+        if (inicializados.contains(evento.getId()) || existe(evento)) {
+            inicializados.add(evento.getId());
+            return false; // No había cupo
+        }
+        inicializar(evento);
+        return tomarCupo(evento);
+    }
+
+    private boolean tomarCupo(Evento evento) {
+        Query conCupo = new Query(Criteria.where("_id").is(evento.getId()))
+                .addCriteria(Criteria.expr(ComparisonOperators.valueOf(CAMPO_CONFIRMADAS).lessThan(CAMPO_CUPO_MAXIMO)));
+        return mongoTemplate.updateFirst(conCupo, new Update().inc(CAMPO_CONFIRMADAS, 1), COLECCION)
+                .getModifiedCount() > 0;
+    }
+
+    /* Si los cupos no están inicializados no hace nada: se van a calcular a partir de las inscripciones */
+    @Override
+    public void devolverCupos(Evento evento, int cantidad) {
+        if (cantidad > 0)
+            mongoTemplate.updateFirst(porEvento(evento), new Update().inc(CAMPO_CONFIRMADAS, -cantidad), COLECCION);
+    }
+
+    /*
+     * Como la condición para tomar un cupo compara contra el cupo máximo guardado, si el cupo se achica por debajo de
+     * los inscriptos no entra nadie hasta que se liberen suficientes lugares.
+     */
+    @Override
+    public long reconciliarCupoMaximo(Evento evento) {
+        Document anterior = mongoTemplate.findAndModify(porEvento(evento),
+                new Update().set(CAMPO_CUPO_MAXIMO, evento.getCupoMaximo()), FindAndModifyOptions.none(),
+                Document.class, COLECCION);
+        if (anterior == null)
+            return 0;
+        return evento.getCupoMaximo() - anterior.getInteger(CAMPO_CUPO_MAXIMO);
+    }
+
+    @Override
+    public void inicializarSiFalta(Evento evento) {
+        if (!existe(evento))
+            inicializar(evento);
+    }
+
+    @Override
+    public boolean cuposEnRedis() {
+        return false;
+    }
+
+    private boolean existe(Evento evento) {
+        return mongoTemplate.exists(porEvento(evento), COLECCION);
+    }
+
+    private void inicializar(Evento evento) {
+        metricas.inicializando(MetricasInscripciones.TipoInicializacion.CUPOS, () -> {
+            int confirmadas = inscripcionesRepository.countByEventoIdAndEstado(evento.getId(),
+                    EstadoInscripcion.CONFIRMADA);
+            try {
+                mongoTemplate.insert(new Document("_id", evento.getId()).append(CAMPO_CONFIRMADAS, confirmadas)
+                        .append(CAMPO_CUPO_MAXIMO, evento.getCupoMaximo()), COLECCION);
+            } catch (DuplicateKeyException e) {
+                // Otra instancia lo creó mientras contaba
+            }
+        });
+        inicializados.add(evento.getId());
+    }
+
+    private static Query porEvento(Evento evento) {
+        return new Query(Criteria.where("_id").is(evento.getId()));
+    }
+}
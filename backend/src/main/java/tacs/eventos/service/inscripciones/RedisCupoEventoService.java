@@ -0,0 +1,185 @@
+package tacs.eventos.service.inscripciones;
+
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import tacs.eventos.model.evento.Evento;
+import tacs.eventos.model.inscripcion.EstadoInscripcion;
+import tacs.eventos.repository.inscripcion.InscripcionesRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Lleva la cuenta de los cupos disponibles de cada evento en Redis.
+ * <p>
+ * Los cupos de un evento se guardan en un hash con el cupo máximo con el que se calcularon y la cantidad disponible. Si
+ * el hash no existe, hay que inicializarlo contando las inscripciones confirmadas en Mongo. Para que no cuenten todas
+ * las instancias a la vez, sólo lo hace la que obtiene un lease (una key con vencimiento); las demás esperan a que
+ * aparezca el hash. Si la que tenía el lease se cae, el lease vence y lo toma otra.
+ * <p>
+ * Las keys llevan la versión del formato, para no confundirlas con las que guardaban los cupos como un semáforo.
+ * <p>
+ * Es la estrategia por defecto (<code>app.cupos.estrategia=redis</code>).
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.cupos.estrategia", havingValue = "redis", matchIfMissing = true)
+public class RedisCupoEventoService implements CupoEventoService {
+    private static final String PREFIJO_KEYS = "cupos-evento:v2:";
+    private static final String CAMPO_DISPONIBLES = "disponibles";
+    private static final String CAMPO_CUPO_MAXIMO = "cupoMaximo";
+
+    /* Tiempo máximo que una instancia puede tener tomada la inicialización de los cupos de un evento */
+    private static final Duration DURACION_LEASE = Duration.ofSeconds(10);
+    private static final long ESPERA_INICIALIZACION_MS = 25;
+
+    /* Devuelve -1 si los cupos no están inicializados, 1 si tomó un cupo, o 0 si no había */
+    private static final String SCRIPT_OBTENER_CUPO = """
+            local disponibles = redis.call('hget', KEYS[1], ARGV[1])
+            if not disponibles then
+                return -1
+            end
+            if tonumber(disponibles) > 0 then
+                redis.call('hincrby', KEYS[1], ARGV[1], -1)
+                return 1
+            end
+            return 0
+            """;
+
+    /* Si los cupos no están inicializados no hace nada: se van a calcular a partir de las inscripciones en Mongo */
+    private static final String SCRIPT_DEVOLVER_CUPO = """
+            if redis.call('exists', KEYS[1]) == 1 then
+                redis.call('hincrby', KEYS[1], ARGV[1], ARGV[2])
+            end
+            return 0
+            """;
+
+    /* Inicializa los cupos, salvo que otra instancia ya lo haya hecho */
+    private static final String SCRIPT_INICIALIZAR = """
+            if redis.call('exists', KEYS[1]) == 0 then
+                redis.call('hset', KEYS[1], ARGV[1], ARGV[3], ARGV[2], ARGV[4])
+            end
+            return 0
+            """;
+
+    /*
+     * Ajusta los cupos disponibles según la diferencia entre el nuevo cupo máximo y el que se usó para calcularlos. Si
+     * el cupo se achica por debajo de los inscriptos, los disponibles quedan negativos y no entra nadie hasta que se
+     * liberen suficientes lugares.
+     */
+    private static final String SCRIPT_RECONCILIAR = """
+            local cupoAnterior = redis.call('hget', KEYS[1], ARGV[2])
+            if not cupoAnterior then
+                return 0
+            end
+            local diferencia = tonumber(ARGV[3]) - tonumber(cupoAnterior)
+            if diferencia ~= 0 then
+                redis.call('hincrby', KEYS[1], ARGV[1], diferencia)
+                redis.call('hset', KEYS[1], ARGV[2], ARGV[3])
+            end
+            return diferencia
+            """;
+
+    private final RedissonClient redisson;
+    private final InscripcionesRepository inscripcionesRepository;
+    private final MetricasInscripciones metricas;
+
+    @Override
+    public boolean obtenerCupo(Evento evento) {
+        long resultado = ejecutar(SCRIPT_OBTENER_CUPO, evento, CAMPO_DISPONIBLES);
+        if (resultado < 0) { // Si los cupos no estaban inicializados, los inicializa y vuelve a intentar
+            inicializarOEsperarInicializacion(evento);
+            resultado = ejecutar(SCRIPT_OBTENER_CUPO, evento, CAMPO_DISPONIBLES);
+        }
+        return resultado > 0;
+    }
+
+    @Override
+    public void devolverCupos(Evento evento, int cantidad) {
+        if (cantidad > 0)
+            ejecutar(SCRIPT_DEVOLVER_CUPO, evento, CAMPO_DISPONIBLES, String.valueOf(cantidad));
+    }
+
+    @Override
+    public long reconciliarCupoMaximo(Evento evento) {
+        return ejecutar(SCRIPT_RECONCILIAR, evento, CAMPO_DISPONIBLES, CAMPO_CUPO_MAXIMO,
+                String.valueOf(evento.getCupoMaximo()));
+    }
+
+    @Override
+    public void inicializarSiFalta(Evento evento) {
+        if (redisson.getKeys().countExists(keyCupos(evento)) == 0)
+            inicializarOEsperarInicializacion(evento);
+    }
+
+    @Override
+    public boolean cuposEnRedis() {
+        return true;
+    }
+
+    private void inicializarOEsperarInicializacion(Evento evento) {
+        RBucket<String> lease = redisson.getBucket(keyLeaseInicializacion(evento), StringCodec.INSTANCE);
+        String token = UUID.randomUUID().toString();
+        long limite = System.currentTimeMillis() + DURACION_LEASE.toMillis();
+        while (System.currentTimeMillis() < limite) {
+            if (redisson.getKeys().countExists(keyCupos(evento)) > 0)
+                return; // Otra instancia ya los inicializó
+            if (lease.setIfAbsent(token, DURACION_LEASE)) {
+                try {
+                    metricas.inicializando(MetricasInscripciones.TipoInicializacion.CUPOS, () -> inicializar(evento));
+                } finally {
+                    lease.compareAndSet(token, null); // Libera el lease, si todavía es suyo
+                }
+                return;
+            }
+            try {
+                Thread.sleep(ESPERA_INICIALIZACION_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        /*
+         * Si pasó todo el lease sin que nadie inicialice los cupos, los inicializa esta instancia. Es seguro hacerlo,
+         * porque el script no pisa los cupos si otra los inicializó mientras tanto.
+         */
+        inicializar(evento);
+    }
+
+    private void inicializar(Evento evento) {
+        int confirmadas = inscripcionesRepository.countByEventoIdAndEstado(evento.getId(),
+                EstadoInscripcion.CONFIRMADA);
+        ejecutar(SCRIPT_INICIALIZAR, evento, CAMPO_DISPONIBLES, CAMPO_CUPO_MAXIMO,
+                String.valueOf(evento.getCupoMaximo() - confirmadas), String.valueOf(evento.getCupoMaximo()));
+    }
+
+    private long ejecutar(String script, Evento evento, Object... argumentos) {
+        Long resultado = redisson.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, script,
+                RScript.ReturnType.INTEGER, List.<Object> of(keyCupos(evento)), argumentos);
+        return resultado;
+    }
+
+    /**
+     * @return la key del hash con los cupos del evento
+     */
+    static String keyCupos(Evento evento) {
+        return PREFIJO_KEYS + evento.getId();
+    }
+
+    /**
+     * @return el nombre del campo del hash de cupos con la cantidad disponible
+     */
+    static String campoDisponibles() {
+        return CAMPO_DISPONIBLES;
+    }
+
+    private static String keyLeaseInicializacion(Evento evento) {
+        return PREFIJO_KEYS + "inicializacion:" + evento.getId();
+    }
+}
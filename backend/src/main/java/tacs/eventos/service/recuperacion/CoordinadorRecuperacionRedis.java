@@ -0,0 +1,167 @@
+package tacs.eventos.service.recuperacion;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tacs.eventos.model.evento.EstadoEvento;
+import tacs.eventos.model.evento.Evento;
+import tacs.eventos.repository.evento.EventosRepository;
+import tacs.eventos.repository.inscripcion.InscripcionesRepository;
+import tacs.eventos.service.cache.VersionColeccionEventos;
+import tacs.eventos.service.inscripciones.CupoEventoService;
+import tacs.eventos.service.waitlist.redis.RedisWaitlistService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Después de que Redis perdió sus datos (ver EpocaRedis), reconstruye los cupos y las waitlists de todos los eventos
+ * con inscripciones, en lugar de esperar a que los reconstruya, de a uno, el primer pedido que llegue a cada evento.
+ * <p>
+ * Reconstruye hasta <code>app.recuperacion-redis.concurrencia</code> eventos en paralelo, empezando por los abiertos
+ * que empiezan antes. Si mientras tanto llega un pedido a un evento que todavía no se reconstruyó, lo reconstruye ese
+ * pedido como siempre: las dos inicializaciones están protegidas para que la haga uno solo.
+ * <p>
+ * Métricas: redis.recuperacion.duracion (timer), redis.recuperacion.eventos.pendientes (gauge) y
+ * redis.recuperacion.eventos (contador, por resultado), en /actuator/metrics y /actuator/prometheus.
+ */
+@Slf4j
+@Component
+public class CoordinadorRecuperacionRedis {
+    private static final int TAMANIO_LOTE = 500;
+
+    private final InscripcionesRepository inscripcionesRepository;
+    private final EventosRepository eventosRepository;
+    private final CupoEventoService cupoEventoService;
+    private final RedisWaitlistService waitlistService;
+    private final VersionColeccionEventos versionColeccion;
+    private final MeterRegistry metricas;
+    private final int concurrencia;
+    private final AtomicBoolean enCurso = new AtomicBoolean();
+    /* Si hay que recuperar (otra vez), porque se detectó un flush de Redis después de que arrancó la última vuelta */
+    private final AtomicBoolean pedida = new AtomicBoolean();
+    private final AtomicInteger pendientes = new AtomicInteger();
+    private final Timer duracion;
+
+    public CoordinadorRecuperacionRedis(InscripcionesRepository inscripcionesRepository,
+            EventosRepository eventosRepository, CupoEventoService cupoEventoService,
+            RedisWaitlistService waitlistService, VersionColeccionEventos versionColeccion, MeterRegistry metricas,
+            @Value("${app.recuperacion-redis.concurrencia:8}") int concurrencia) {
+        this.inscripcionesRepository = inscripcionesRepository;
+        this.eventosRepository = eventosRepository;
+        this.cupoEventoService = cupoEventoService;
+        this.waitlistService = waitlistService;
+        this.versionColeccion = versionColeccion;
+        this.metricas = metricas;
+        this.concurrencia = concurrencia;
+        this.duracion = Timer.builder("redis.recuperacion.duracion")
+                .description("Cuánto tardó en reconstruirse el estado de los eventos después de perder Redis")
+                .register(metricas);
+        Gauge.builder("redis.recuperacion.eventos.pendientes", pendientes, AtomicInteger::get)
+                .description("Eventos que faltan reconstruir en la recuperación en curso").register(metricas);
+    }
+
+    /**
+     * Arranca la recuperación en un hilo aparte. Si ya hay una en curso en esta instancia, no arranca otra, pero la que
+     * está en curso vuelve a recuperar al terminar: Redis volvió a perder sus datos, y puede que ya haya reconstruido
+     * eventos que se perdieron de nuevo.
+     */
+    public void recuperarEnSegundoPlano() {
+        pedida.set(true);
+        if (!enCurso.compareAndSet(false, true))
+            return;
+        Thread hilo = new Thread(this::recuperarMientrasSeaPedida, "recuperacion-redis");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    private void recuperarMientrasSeaPedida() {
+        do {
+            while (pedida.getAndSet(false)) {
+                try {
+                    recuperar();
+                } catch (RuntimeException e) {
+                    log.error("Falló la recuperación de Redis", e);
+                }
+            }
+            enCurso.set(false);
+            // Si se pidió otra justo después de la última vuelta, la hace este hilo, salvo que ya haya arrancado otro
+        } while (pedida.get() && enCurso.compareAndSet(false, true));
+    }
+
+    void recuperar() {
+        long inicio = System.nanoTime();
+        // La versión de los listados volvió a 0: la lleva por encima de cualquier ETag que hayan visto los clientes
+        versionColeccion.asegurarMinimo(System.currentTimeMillis());
+        List<Evento> eventos = eventosConInscripcionesPorPrioridad();
+        pendientes.set(eventos.size());
+        log.info("Redis perdió sus datos: se van a reconstruir los cupos y las waitlists de {} eventos",
+                eventos.size());
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(concurrencia);
+        try {
+            // El pool toma las tareas en el orden en que se encolan, así que respeta la prioridad
+            eventos.forEach(evento -> ejecutor.execute(() -> reconstruir(evento)));
+            ejecutor.shutdown();
+            ejecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ejecutor.shutdownNow();
+        }
+        long nanos = System.nanoTime() - inicio;
+        duracion.record(nanos, TimeUnit.NANOSECONDS);
+        log.info("Se reconstruyeron los cupos y las waitlists de {} eventos en {} ms", eventos.size(),
+                TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    private void reconstruir(Evento evento) {
+        try {
+            cupoEventoService.inicializarSiFalta(evento);
+            waitlistService.inicializarSiFalta(evento);
+            metricas.counter("redis.recuperacion.eventos", "resultado", "ok").increment();
+        } catch (RuntimeException e) {
+            // Lo reconstruye el primer pedido que llegue al evento
+            metricas.counter("redis.recuperacion.eventos", "resultado", "error").increment();
+            log.warn("No se pudo reconstruir el estado en Redis del evento {}", evento.getId(), e);
+        } finally {
+            pendientes.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return los eventos con inscripciones: primero los abiertos, y entre ellos los que empiezan antes (los que ya
+     *         empezaron van al final)
+     */
+    List<Evento> eventosConInscripcionesPorPrioridad() {
+        List<Evento> eventos = new ArrayList<>();
+        try (Stream<String> ids = inscripcionesRepository.idsEventosConInscripciones()) {
+            List<String> lote = new ArrayList<>(TAMANIO_LOTE);
+            for (var iterador = ids.iterator(); iterador.hasNext();) {
+                lote.add(iterador.next());
+                if (lote.size() == TAMANIO_LOTE || !iterador.hasNext()) {
+                    eventos.addAll(eventosRepository.findAllById(lote));
+                    lote = new ArrayList<>(TAMANIO_LOTE);
+                }
+            }
+        }
+        eventos.sort(prioridad(LocalDateTime.now()));
+        return eventos;
+    }
+
+    static Comparator<Evento> prioridad(LocalDateTime ahora) {
+        return Comparator.comparing((Evento e) -> e.getEstado() != EstadoEvento.ABIERTO)
+                .thenComparing(e -> e.getFechaHoraInicio() == null || e.getFechaHoraInicio().isBefore(ahora))
+                .thenComparing(Evento::getFechaHoraInicio, Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+}
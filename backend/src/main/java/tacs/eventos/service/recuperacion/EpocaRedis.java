@@ -0,0 +1,65 @@
+package tacs.eventos.service.recuperacion;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Detecta cuándo Redis perdió sus datos (corre sin persistencia, así que pasa cada vez que se reinicia).
+ * <p>
+ * En Redis se guarda una época: un valor al azar que sólo se crea si no existe. Cada
+ * <code>app.recuperacion-redis.verificacion-ms</code>, cada instancia la lee: si no está, Redis se vació, y la
+ * instancia que logra crear la nueva época es la que coordina la recuperación (ver CoordinadorRecuperacionRedis). Las
+ * demás se enteran porque la época cambió.
+ */
+@Slf4j
+@Component
+public class EpocaRedis {
+    private static final String KEY_EPOCA = "redis:epoca";
+
+    private final RBucket<String> epoca;
+    private final CoordinadorRecuperacionRedis coordinador;
+    private volatile String epocaConocida;
+
+    public EpocaRedis(RedissonClient redisson, CoordinadorRecuperacionRedis coordinador) {
+        this.epoca = redisson.getBucket(KEY_EPOCA, StringCodec.INSTANCE);
+        this.coordinador = coordinador;
+    }
+
+    /* Después de las migraciones, para contar las inscripciones ya migradas */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void verificarAlIniciar() {
+        verificar();
+    }
+
+    @Scheduled(fixedDelayString = "${app.recuperacion-redis.verificacion-ms}", initialDelayString = "${app.recuperacion-redis.verificacion-ms}")
+    public void verificar() {
+        try {
+            String actual = epoca.get();
+            if (actual == null) {
+                String nueva = UUID.randomUUID().toString();
+                if (epoca.setIfAbsent(nueva)) {
+                    epocaConocida = nueva;
+                    coordinador.recuperarEnSegundoPlano();
+                    return;
+                }
+                actual = epoca.get(); // Otra instancia la creó primero, y es la que recupera
+            }
+            if (epocaConocida != null && !epocaConocida.equals(actual))
+                log.info("Redis perdió sus datos; la recuperación la coordina otra instancia");
+            epocaConocida = actual;
+        } catch (RuntimeException e) {
+            log.warn("No se pudo verificar la época de Redis", e);
+        }
+    }
+}
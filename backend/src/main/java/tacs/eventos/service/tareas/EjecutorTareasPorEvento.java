@@ -0,0 +1,173 @@
+package tacs.eventos.service.tareas;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecuta en segundo plano las tareas que se hacen sobre un evento pero no tienen que demorar la respuesta al usuario
+ * (promover la waitlist, inicializarla en Redis, etc.).
+ * <p>
+ * Las tareas de un mismo evento se ejecutan de a una y en orden, para que dos promociones del mismo evento nunca se
+ * intercalen. Las de eventos distintos corren en paralelo, en virtual threads si la JVM los soporta.
+ * <p>
+ * Como todas estas tareas son idempotentes (por ejemplo, "promover la waitlist" ocupa todos los lugares libres que
+ * haya), si ya hay una tarea del mismo tipo esperando para ese evento, no se encola otra. La cantidad de tareas
+ * esperando tiene un máximo. Si se llega a él, las tareas de eventos que ya tienen una cola se siguen encolando (como
+ * no se repiten tipos, cada evento tiene pocas), pero las de eventos sin cola se postergan: quedan anotadas, una por
+ * evento y tipo, y se encolan cuando se libera lugar. Así la cantidad de colas no crece sin límite, ninguna tarea corre
+ * fuera de la cola de su evento, y ninguna se pierde (por ejemplo, una promoción de la waitlist).
+ * <p>
+ * Métricas: eventos.tareas.pendientes y eventos.tareas.postergadas.eventos (gauges), eventos.tareas.espera y
+ * eventos.tareas.duracion (timers, por tipo), y eventos.tareas.descartadas y eventos.tareas.postergadas (contadores,
+ * por tipo).
+ */
+@Slf4j
+@Component
+public class EjecutorTareasPorEvento {
+    private final SimpleAsyncTaskExecutor ejecutor;
+    private final ConcurrentHashMap<String, Deque<Tarea>> colas = new ConcurrentHashMap<>();
+    /* Tareas que llegaron con el ejecutor lleno, por evento y tipo, hasta que haya lugar para encolarlas */
+    private final ConcurrentHashMap<String, Map<String, Runnable>> postergadas = new ConcurrentHashMap<>();
+    private final AtomicInteger pendientes = new AtomicInteger();
+    private final int capacidad;
+    private final MeterRegistry metricas;
+
+    private record Tarea(String tipo, Runnable accion, long encoladaNanos) {
+    }
+
+    public EjecutorTareasPorEvento(MeterRegistry metricas, @Value("${app.tareas.capacidad:10000}") int capacidad,
+            @Value("${app.tareas.concurrencia-maxima:256}") int concurrenciaMaxima) {
+        this.metricas = metricas;
+        this.capacidad = capacidad;
+        this.ejecutor = new SimpleAsyncTaskExecutor("tareas-evento-");
+        this.ejecutor.setVirtualThreads(Runtime.version().feature() >= 21);
+        this.ejecutor.setConcurrencyLimit(concurrenciaMaxima);
+        Gauge.builder("eventos.tareas.pendientes", pendientes, AtomicInteger::get)
+                .description("Tareas de eventos esperando para ejecutarse").register(metricas);
+        Gauge.builder("eventos.tareas.postergadas.eventos", postergadas, Map::size)
+                .description("Eventos con tareas postergadas hasta que se libere lugar").register(metricas);
+    }
+
+    /**
+     * Encola una tarea para el evento. Si el ejecutor está lleno y el evento no tiene cola, la posterga hasta que haya
+     * lugar.
+     *
+     * @param eventoId
+     *            id del evento. Las tareas del mismo evento se ejecutan de a una.
+     * @param tipo
+     *            tipo de tarea. Si ya hay una del mismo tipo esperando para ese evento, esta se descarta.
+     * @param accion
+     *            lo que hay que ejecutar
+     */
+    public void ejecutar(String eventoId, String tipo, Runnable accion) {
+        if (encolar(eventoId, tipo, accion, pendientes.get() >= capacidad))
+            return;
+
+        postergadas.compute(eventoId, (id, tareas) -> {
+            if (tareas == null)
+                tareas = new LinkedHashMap<>();
+            tareas.putIfAbsent(tipo, accion);
+            return tareas;
+        });
+        metricas.counter("eventos.tareas.postergadas", "tipo", tipo).increment();
+        log.warn("Se postergó la tarea {} del evento {}: hay {} tareas esperando", tipo, eventoId, pendientes.get());
+        // Si mientras tanto se vaciaron las colas, nadie más va a retomarla
+        retomarPostergadas();
+    }
+
+    /**
+     * @return false si no se encoló porque el ejecutor está saturado y el evento no tenía cola
+     */
+    private boolean encolar(String eventoId, String tipo, Runnable accion, boolean saturado) {
+        boolean[] encolada = { false };
+        boolean[] rechazada = { false };
+        boolean[] hayQueDrenar = { false };
+        colas.compute(eventoId, (id, cola) -> {
+            if (cola == null) { // No había nada corriendo para este evento: hay que arrancar a procesar su cola
+                if (saturado) {
+                    rechazada[0] = true;
+                    return null;
+                }
+                cola = new ArrayDeque<>();
+                hayQueDrenar[0] = true;
+            }
+            if (cola.stream().noneMatch(t -> t.tipo().equals(tipo))) {
+                cola.add(new Tarea(tipo, accion, System.nanoTime()));
+                encolada[0] = true;
+            }
+            return cola;
+        });
+
+        if (rechazada[0])
+            return false;
+        if (encolada[0])
+            pendientes.incrementAndGet();
+        else
+            metricas.counter("eventos.tareas.descartadas", "tipo", tipo).increment();
+        if (hayQueDrenar[0])
+            ejecutor.execute(() -> drenar(eventoId));
+        return true;
+    }
+
+    /*
+     * Encola las tareas postergadas mientras haya lugar. Lo llama cada hilo después de sacar una tarea de su cola, y
+     * quien posterga una tarea después de anotarla: si el ejecutor estaba lleno, alguno de los dos la ve.
+     */
+    private void retomarPostergadas() {
+        for (String eventoId : postergadas.keySet()) {
+            if (pendientes.get() >= capacidad)
+                return;
+            Map<String, Runnable> tareas = postergadas.remove(eventoId);
+            if (tareas != null)
+                tareas.forEach((tipo, accion) -> encolar(eventoId, tipo, accion, false));
+        }
+    }
+
+    /*
+     * Ejecuta las tareas del evento hasta que su cola quede vacía. Mientras la cola esté en el mapa, hay un hilo
+     * drenándola, así que las tareas que se encolen mientras tanto las ejecuta este mismo hilo.
+     */
+    private void drenar(String eventoId) {
+        while (true) {
+            Tarea[] siguiente = { null };
+            colas.computeIfPresent(eventoId, (id, cola) -> {
+                siguiente[0] = cola.poll();
+                return siguiente[0] == null ? null : cola;
+            });
+            if (siguiente[0] == null)
+                return;
+            pendientes.decrementAndGet();
+            if (!postergadas.isEmpty())
+                retomarPostergadas();
+            ejecutarMidiendo(siguiente[0]);
+        }
+    }
+
+    private void ejecutarMidiendo(Tarea tarea) {
+        long inicio = System.nanoTime();
+        Timer.builder("eventos.tareas.espera").tag("tipo", tarea.tipo()).register(metricas)
+                .record(inicio - tarea.encoladaNanos(), TimeUnit.NANOSECONDS);
+        try {
+            tarea.accion().run();
+        } catch (Exception e) {
+            log.error("Falló la tarea {}", tarea.tipo(), e);
+        } finally {
+            Timer.builder("eventos.tareas.duracion").tag("tipo", tarea.tipo()).register(metricas)
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+}
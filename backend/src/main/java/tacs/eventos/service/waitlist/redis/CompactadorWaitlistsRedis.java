@@ -0,0 +1,109 @@
+package tacs.eventos.service.waitlist.redis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.options.KeysScanOptions;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.client.protocol.ScoredEntry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tacs.eventos.model.inscripcion.EstadoInscripcion;
+import tacs.eventos.model.inscripcion.InscripcionEvento;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Saca de las waitlists de Redis, cada <code>app.waitlist.compactacion-ms</code>, los ids de inscripciones que ya no
+ * están pendientes. Normalmente se sacan al cancelarlas (ver Waitlist.quitar), pero pueden quedar algunas si falló
+ * Redis, o si se cancelaron mientras se inicializaba la waitlist.
+ * <p>
+ * Recorre cada waitlist por lotes, en orden de llegada, y por cada lote hace una sola query a Mongo y un solo ZREM. Los
+ * ids que no están en Mongo también se sacan: las inscripciones se guardan antes de agregarlas a la waitlist, así que
+ * son de inscripciones que se descartaron. Como el reconciliador de estadísticas, sólo compacta la instancia que
+ * obtiene el lease del intervalo.
+ */
+@Component
+@Slf4j
+public class CompactadorWaitlistsRedis {
+    private static final String KEY_LEASE = "waitlist:compactacion";
+    private static final int TAMANIO_LOTE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final RedissonClient redisson;
+    private final Duration intervalo;
+
+    public CompactadorWaitlistsRedis(MongoTemplate mongoTemplate, RedissonClient redisson,
+            @Value("${app.waitlist.compactacion-ms}") long intervaloMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.redisson = redisson;
+        this.intervalo = Duration.ofMillis(intervaloMs);
+    }
+
+    @Scheduled(fixedDelayString = "${app.waitlist.compactacion-ms}", initialDelayString = "${app.waitlist.compactacion-ms}")
+    public void compactar() {
+        RBucket<String> lease = redisson.getBucket(KEY_LEASE, StringCodec.INSTANCE);
+        // El lease no se libera: vence solo, así hay como mucho una compactación por intervalo
+        if (!lease.setIfAbsent(UUID.randomUUID().toString(), intervalo))
+            return;
+        try (Stream<String> keys = redisson.getKeys().getKeysStream(KeysScanOptions.defaults()
+                .pattern(RedisWaitlistService.PREFIJO_KEY_COLA + "*").chunkSize(TAMANIO_LOTE))) {
+            long quitadas = keys.mapToLong(this::compactar).sum();
+            if (quitadas > 0)
+                log.info("Se sacaron {} inscripciones que ya no estaban pendientes de las waitlists", quitadas);
+        } catch (RuntimeException e) {
+            log.error("No se pudieron compactar las waitlists", e);
+        }
+    }
+
+    /**
+     * @param keyCola
+     *            key del sorted set con la waitlist (ver WaitlistRedisOrdenada)
+     *
+     * @return cuántas inscripciones se sacaron
+     */
+    long compactar(String keyCola) {
+        RScoredSortedSet<String> cola = redisson.getScoredSortedSet(keyCola, StringCodec.INSTANCE);
+        long quitadas = 0;
+        double ultimoScore = Double.NEGATIVE_INFINITY;
+        Collection<ScoredEntry<String>> lote;
+        /*
+         * Avanza por score y no por posición, porque mientras tanto se pueden promover (sacar del principio)
+         * inscripciones
+         */
+        while (!(lote = cola.entryRange(ultimoScore, false, Double.POSITIVE_INFINITY, true, 0, TAMANIO_LOTE))
+                .isEmpty()) {
+            List<String> noPendientes = noPendientes(lote.stream().map(ScoredEntry::getValue).toList());
+            if (!noPendientes.isEmpty()) {
+                cola.removeAll(noPendientes);
+                quitadas += noPendientes.size();
+            }
+            ultimoScore = lote.stream().mapToDouble(ScoredEntry::getScore).max().getAsDouble();
+        }
+        return quitadas;
+    }
+
+    /**
+     * @return los ids, entre los pasados por parámetro, de las inscripciones que no existen o no están pendientes
+     */
+    private List<String> noPendientes(List<String> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids).and("estado").is(EstadoInscripcion.PENDIENTE.name()));
+        query.fields().include("_id");
+        Set<String> pendientes = mongoTemplate
+                .find(query, Document.class, mongoTemplate.getCollectionName(InscripcionEvento.class)).stream()
+                .map(d -> d.get("_id").toString()).collect(Collectors.toSet());
+        return ids.stream().filter(id -> !pendientes.contains(id)).toList();
+    }
+}
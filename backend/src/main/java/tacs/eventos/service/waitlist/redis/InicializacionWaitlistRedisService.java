@@ -1,61 +1,169 @@
 package tacs.eventos.service.waitlist.redis;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.scheduling.annotation.Async;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import tacs.eventos.model.evento.Evento;
-import tacs.eventos.model.inscripcion.EstadoInscripcion;
-import tacs.eventos.model.inscripcion.InscripcionEvento;
-import tacs.eventos.model.waitlist.Waitlist;
 import tacs.eventos.redis_utils.EstadoInicializacionRedis;
 import tacs.eventos.redis_utils.FlagsInicializacionRedis;
 import tacs.eventos.repository.inscripcion.InscripcionesRepository;
+import tacs.eventos.repository.inscripcion.PendienteEnWaitlist;
+import tacs.eventos.service.inscripciones.MetricasInscripciones;
+import tacs.eventos.service.inscripciones.MetricasInscripciones.TipoInicializacion;
+import tacs.eventos.service.tareas.EjecutorTareasPorEvento;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static tacs.eventos.redis_utils.EstadoInicializacionRedis.INICIALIZANDO;
 import static tacs.eventos.redis_utils.EstadoInicializacionRedis.LISTO;
+import static tacs.eventos.redis_utils.EstadoInicializacionRedis.NO_INICIALIZADO;
 
+/**
+ * Reconstruye la waitlist de un evento en Redis a partir de las inscripciones pendientes de Mongo (por ejemplo, después
+ * de que se reinició Redis, que corre sin persistencia).
+ * <p>
+ * Recorre las pendientes con un cursor, en orden de llegada, y las agrega de a lotes con un solo script por lote. Cada
+ * lote guarda como checkpoint la última inscripción agregada: si la instancia que estaba reconstruyendo se cae, el flag
+ * INICIALIZANDO vence, otra instancia retoma desde el checkpoint, y no vuelve a leer lo que ya estaba agregado.
+ * <p>
+ * La fecha de ingreso a la waitlist se asigna antes de guardar la inscripción, así que una pendiente puede aparecer en
+ * Mongo después de otras más nuevas. Por eso cada pasada retoma un poco antes del checkpoint
+ * ({@link #VENTANA_RELECTURA}) y vuelve a leer esas inscripciones: las que ya estaban en la waitlist no se agregan de
+ * nuevo.
+ */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class InicializacionWaitlistRedisService {
+    private static final int TAMANIO_LOTE = 1000;
+    /* Se renueva con cada lote, así que alcanza con que dure bastante más que un lote */
+    private static final Duration VIGENCIA_INICIALIZANDO = Duration.ofSeconds(30);
+    private static final String SEPARADOR_CHECKPOINT = "|";
+    /*
+     * Cuánto antes del checkpoint se vuelve a leer; tiene que alcanzar para lo que tarda en guardarse una inscripción
+     */
+    static final Duration VENTANA_RELECTURA = Duration.ofSeconds(10);
+
     private final InscripcionesRepository inscripcionesRepository;
     private final FlagsInicializacionRedis flagsInicializacion;
+    private final EjecutorTareasPorEvento ejecutorTareas;
+    private final MetricasInscripciones metricas;
+
+    private static final String TAREA_INICIALIZAR_WAITLIST = "inicializar-waitlist";
+
+    /**
+     * Programa la inicialización de la waitlist del evento en Redis, para que se haga en segundo plano.
+     */
+    void programarInicializacion(Evento evento, WaitlistRedisOrdenada waitlistAInicializar) {
+        ejecutorTareas.ejecutar(evento.getId(), TAREA_INICIALIZAR_WAITLIST, () -> {
+            // Las tareas del evento se ejecutan de a una, así que si otra ya la inicializó, se entera acá
+            inicializarSiFalta(evento, waitlistAInicializar);
+        });
+    }
 
-    @Async
-    void inicializarWaitlist(Evento evento, Waitlist waitlistAInicializar) {
+    void inicializarWaitlist(Evento evento, WaitlistRedisOrdenada waitlistAInicializar) {
+        String flag = flagInicializacionCola(evento);
         /* Avisa que está inicializando esta cola, para que ninguna otra instancia de este servicio intente hacerlo */
-        flagsInicializacion.setEstadoInicializacion(flagInicializacionCola(evento), INICIALIZANDO);
+        if (!flagsInicializacion.tomarInicializacion(flag, VIGENCIA_INICIALIZANDO))
+            return; // Otra instancia (o la recuperación de Redis) la está inicializando, o ya terminó
+        long inicio = System.currentTimeMillis();
+        long agregadas = 0;
+        long agregadasEnLaPasada;
         /*
-         * TODO: esta operación de inicialización es muy pesada. Capaz estaría bueno activar en Redis la característica
-         * de snapshots, aof, o algún otro tipo de backup a disco, y después, en esta inicialización, hacer un peek a la
-         * última inscripción en la cola Redis, y solamente insertar las posteriores a esa
+         * Mientras se agregaba, se pueden haber guardado nuevas inscripciones pendientes (por el camino lento, que no
+         * usa la cola de Redis). Repite desde el checkpoint hasta que una pasada no agregue ninguna.
          */
-        /* Busca a todos los pendientes y los inserta en la waitlist en el orden correspondiente */
-        List<InscripcionEvento> inscripcionesPendientes = inscripcionesRepository
-                .findByEventoAndEstadoOrderByFechaHoraIngresoAWaitlist(evento, EstadoInscripcion.PENDIENTE);
-        agregarAWaitlist(inscripcionesPendientes, waitlistAInicializar);
-
-        var ultimaAgregada = inscripcionesPendientes.get(inscripcionesPendientes.size() - 1);
-        /* Mientras estábamos agregando, se guardaron nuevas inscripciones en la base. Agrego esas. */
-        List<InscripcionEvento> nuevasInscripcionesPendientes = inscripcionesRepository
-                .pendientesPosterioresALaFechaOrdenados(evento,
-                        ultimaAgregada.getFechaHoraIngresoAWaitlist().orElse(null));
-        agregarAWaitlist(nuevasInscripcionesPendientes, waitlistAInicializar);
+        do {
+            agregadasEnLaPasada = agregarPendientesPosteriores(evento, waitlistAInicializar, flag);
+            agregadas += agregadasEnLaPasada;
+        } while (agregadasEnLaPasada > 0);
 
         /* Marca como inicializado */
-        flagsInicializacion.setEstadoInicializacion(flagInicializacionCola(evento), LISTO);
+        flagsInicializacion.setEstadoInicializacion(flag, LISTO);
+        /*
+         * Las que se guardaron entre la última pasada y el cambio de flag no las agregó nadie: las agrega ahora. Las
+         * que llegan desde acá las agrega InscripcionAtomicaRedis.
+         */
+        agregadas += agregarPendientesPosteriores(evento, waitlistAInicializar, null);
+        log.info("Se reconstruyó la waitlist del evento {} con {} inscripciones en {} ms", evento.getId(), agregadas,
+                System.currentTimeMillis() - inicio);
+    }
+
+    /**
+     * Inicializa ya, en este hilo, la waitlist del evento, salvo que esté inicializada o inicializándose.
+     */
+    void inicializarSiFalta(Evento evento, WaitlistRedisOrdenada waitlistAInicializar) {
+        if (estadoInicializacionWaitlist(evento) == NO_INICIALIZADO)
+            metricas.inicializando(TipoInicializacion.WAITLIST,
+                    () -> inicializarWaitlist(evento, waitlistAInicializar));
     }
 
     EstadoInicializacionRedis estadoInicializacionWaitlist(Evento evento) {
         return flagsInicializacion.getEstadoInicializacion(flagInicializacionCola(evento));
     }
 
-    private void agregarAWaitlist(List<InscripcionEvento> inscripciones, Waitlist waitlist) {
-        inscripciones.stream().forEach(i -> waitlist.agregar(i.getId()));
+    /**
+     * Agrega a la waitlist, de a lotes, las inscripciones pendientes posteriores al checkpoint, menos la ventana de
+     * relectura.
+     *
+     * @param flag
+     *            flag INICIALIZANDO a renovar después de cada lote, o null si ya no hay que renovarlo
+     *
+     * @return cuántas inscripciones agregó (sin contar las releídas que ya estaban)
+     */
+    private long agregarPendientesPosteriores(Evento evento, WaitlistRedisOrdenada waitlist, String flag) {
+        PendienteEnWaitlist checkpoint = waitlist.checkpoint().map(InicializacionWaitlistRedisService::leerCheckpoint)
+                .orElse(null);
+        PendienteEnWaitlist desde = checkpoint == null ? null : new PendienteEnWaitlist(checkpoint.id(),
+                checkpoint.fechaHoraIngresoAWaitlist().minus(VENTANA_RELECTURA));
+        long agregadas = 0;
+        try (Stream<PendienteEnWaitlist> pendientes = inscripcionesRepository
+                .pendientesEnWaitlistPosteriores(evento.getId(), desde)) {
+            Iterator<PendienteEnWaitlist> iterador = pendientes.iterator();
+            List<String> lote = new ArrayList<>(TAMANIO_LOTE);
+            PendienteEnWaitlist ultima = checkpoint;
+            while (iterador.hasNext()) {
+                PendienteEnWaitlist pendiente = iterador.next();
+                lote.add(pendiente.id());
+                // Lo releído no hace retroceder el checkpoint
+                if (ultima == null || esPosterior(pendiente, ultima))
+                    ultima = pendiente;
+                if (lote.size() == TAMANIO_LOTE || !iterador.hasNext()) {
+                    agregadas += waitlist.agregarLote(lote, escribirCheckpoint(ultima));
+                    lote = new ArrayList<>(TAMANIO_LOTE);
+                    if (flag != null)
+                        flagsInicializacion.setEstadoInicializacion(flag, INICIALIZANDO, VIGENCIA_INICIALIZANDO);
+                }
+            }
+        }
+        return agregadas;
     }
 
-    private static String flagInicializacionCola(Evento e) {
-        return "estado-inicializacion-cola:" + e.getId();
+    private static boolean esPosterior(PendienteEnWaitlist a, PendienteEnWaitlist b) {
+        int porFecha = a.fechaHoraIngresoAWaitlist().compareTo(b.fechaHoraIngresoAWaitlist());
+        return porFecha > 0 || porFecha == 0 && a.id().compareTo(b.id()) > 0;
+    }
+
+    private static String escribirCheckpoint(PendienteEnWaitlist ultima) {
+        return ultima.fechaHoraIngresoAWaitlist().toEpochMilli() + SEPARADOR_CHECKPOINT + ultima.id();
+    }
+
+    private static PendienteEnWaitlist leerCheckpoint(String checkpoint) {
+        int separador = checkpoint.indexOf(SEPARADOR_CHECKPOINT);
+        return new PendienteEnWaitlist(checkpoint.substring(separador + 1),
+                Instant.ofEpochMilli(Long.parseLong(checkpoint.substring(0, separador))));
+    }
+
+    public static String flagInicializacionCola(Evento e) {
+        /*
+         * Cuando la waitlist era una lista de Redis el flag se llamaba estado-inicializacion-cola. Con otro nombre, las
+         * waitlists que ya estaban en Redis como listas se vuelven a inicializar desde Mongo como sorted sets.
+         */
+        return "estado-inicializacion-waitlist:" + e.getId();
     }
 }
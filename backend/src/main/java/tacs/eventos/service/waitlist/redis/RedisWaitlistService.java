@@ -6,7 +6,6 @@ import org.redisson.api.RedissonClient;
 import org.springframework.stereotype.Service;
 import tacs.eventos.model.evento.Evento;
 import tacs.eventos.model.waitlist.Waitlist;
-import tacs.eventos.model.waitlist.WaitlistEnMemoriaCompartida;
 import tacs.eventos.model.waitlist.WaitlistMongo;
 import tacs.eventos.repository.inscripcion.InscripcionesRepository;
 import tacs.eventos.service.WaitlistService;
@@ -17,6 +16,8 @@ import static tacs.eventos.redis_utils.EstadoInicializacionRedis.NO_INICIALIZADO
 @Service
 @RequiredArgsConstructor
 public class RedisWaitlistService implements WaitlistService {
+    static final String PREFIJO_KEY_COLA = "evento:waitlist-ordenada:";
+
     private final InscripcionesRepository inscripcionesRepository;
     private final RedissonClient redisson;
     private final InicializacionWaitlistRedisService inicializacion;
@@ -24,15 +25,44 @@ public class RedisWaitlistService implements WaitlistService {
     @Override
     public Waitlist waitlist(Evento evento) {
         if (inicializacion.estadoInicializacionWaitlist(evento) == NO_INICIALIZADO)
-            inicializacion.inicializarWaitlist(evento, watilistPermanente(evento));
+            inicializacion.programarInicializacion(evento, watilistPermanente(evento));
 
         return inicializacion.estadoInicializacionWaitlist(evento) == LISTO ? watilistPermanente(evento)
                 : waitlistTemporal(evento);
     }
 
-    private @NonNull WaitlistEnMemoriaCompartida watilistPermanente(Evento evento) {
-        return new WaitlistEnMemoriaCompartida(evento, redisson.getQueue("evento:waitlist:" + evento.getId()),
-                inscripcionesRepository);
+    /**
+     * Reconstruye la waitlist del evento en Redis, en este hilo, si todavía no estaba. La usa la recuperación de Redis
+     * (ver CoordinadorRecuperacionRedis), para que no tenga que esperarla el primer pedido que llegue.
+     */
+    public void inicializarSiFalta(Evento evento) {
+        inicializacion.inicializarSiFalta(evento, watilistPermanente(evento));
+    }
+
+    private @NonNull WaitlistRedisOrdenada watilistPermanente(Evento evento) {
+        return new WaitlistRedisOrdenada(evento, redisson, inscripcionesRepository);
+    }
+
+    /**
+     * @return la key del sorted set de Redis con la waitlist del evento (ver WaitlistRedisOrdenada)
+     */
+    public static String keyCola(Evento evento) {
+        return PREFIJO_KEY_COLA + evento.getId();
+    }
+
+    /**
+     * @return la key con la última inscripción agregada a la waitlist del evento al reconstruirla desde Mongo (ver
+     *         InicializacionWaitlistRedisService)
+     */
+    public static String keyCheckpointCola(Evento evento) {
+        return "evento:waitlist-checkpoint:" + evento.getId();
+    }
+
+    /**
+     * @return la key del contador con el que se numeran las llegadas a la waitlist del evento
+     */
+    public static String keySecuenciaCola(Evento evento) {
+        return "evento:waitlist-secuencia:" + evento.getId();
     }
 
     private @NonNull WaitlistMongo waitlistTemporal(Evento evento) {
@@ -0,0 +1,138 @@
+package tacs.eventos.service.waitlist.redis;
+
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import tacs.eventos.model.evento.Evento;
+import tacs.eventos.model.inscripcion.InscripcionEvento;
+import tacs.eventos.model.waitlist.Waitlist;
+import tacs.eventos.repository.inscripcion.InscripcionesRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Waitlist guardada en Redis como un sorted set, cuyo score es el número de llegada de cada inscripción (un contador
+ * del evento que sólo crece). Así la posición de una inscripción, el tamaño, y cualquier rango de la waitlist se
+ * resuelven con un solo comando, en tiempo logarítmico, sin importar cuánta gente esté esperando.
+ */
+public class WaitlistRedisOrdenada implements Waitlist {
+    /*
+     * KEYS: 1 = waitlist, 2 = contador de llegadas. ARGV: 1 = id de la inscripción. Si la inscripción ya estaba, no
+     * hace nada y conserva su lugar.
+     */
+    static final String SCRIPT_AGREGAR = """
+            if redis.call('zscore', KEYS[1], ARGV[1]) then
+                return 0
+            end
+            redis.call('zadd', KEYS[1], redis.call('incr', KEYS[2]), ARGV[1])
+            return 1
+            """;
+
+    /*
+     * KEYS: 1 = waitlist, 2 = contador de llegadas, 3 = checkpoint. ARGV: 1 = checkpoint, 2.. = ids de las
+     * inscripciones, en orden de llegada.
+     *
+     * Como SCRIPT_AGREGAR, pero para un lote entero con un solo ZADD, y guarda el checkpoint en la misma operación: así
+     * el checkpoint nunca apunta a una inscripción que no se agregó. Las que ya estaban dejan un hueco en los números
+     * de llegada, que no afecta el orden.
+     */
+    private static final String SCRIPT_AGREGAR_LOTE = """
+            local cantidad = #ARGV - 1
+            local ultimo = redis.call('incrby', KEYS[2], cantidad)
+            local argumentos = {}
+            for i = 1, cantidad do
+                argumentos[2 * i - 1] = ultimo - cantidad + i
+                argumentos[2 * i] = ARGV[i + 1]
+            end
+            local agregadas = redis.call('zadd', KEYS[1], 'NX', unpack(argumentos))
+            redis.call('set', KEYS[3], ARGV[1])
+            return agregadas
+            """;
+
+    private final Evento evento;
+    private final RedissonClient redisson;
+    private final RScoredSortedSet<String> items;
+    private final InscripcionesRepository inscripcionesRepository;
+
+    public WaitlistRedisOrdenada(Evento evento, RedissonClient redisson,
+            InscripcionesRepository inscripcionesRepository) {
+        this.evento = evento;
+        this.redisson = redisson;
+        /*
+         * Se guardan los ids como texto plano, para que también los pueda agregar el script de InscripcionAtomicaRedis
+         */
+        this.items = redisson.getScoredSortedSet(RedisWaitlistService.keyCola(evento), StringCodec.INSTANCE);
+        this.inscripcionesRepository = inscripcionesRepository;
+    }
+
+    public void agregar(String idInscripcion) {
+        redisson.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, SCRIPT_AGREGAR,
+                RScript.ReturnType.INTEGER,
+                List.of(RedisWaitlistService.keyCola(evento), RedisWaitlistService.keySecuenciaCola(evento)),
+                idInscripcion);
+    }
+
+    /**
+     * Agrega un lote de inscripciones al final de la waitlist, en un solo round trip, y guarda el checkpoint de la
+     * reconstrucción.
+     *
+     * @param idsInscripciones
+     *            ids de las inscripciones, en orden de llegada
+     * @param checkpoint
+     *            valor que devuelve {@link #checkpoint()} desde ahora
+     *
+     * @return cuántas se agregaron (las que ya estaban conservan su lugar)
+     */
+    public long agregarLote(List<String> idsInscripciones, String checkpoint) {
+        Object[] argumentos = new Object[idsInscripciones.size() + 1];
+        argumentos[0] = checkpoint;
+        for (int i = 0; i < idsInscripciones.size(); i++)
+            argumentos[i + 1] = idsInscripciones.get(i);
+        Long agregadas = redisson.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, SCRIPT_AGREGAR_LOTE,
+                RScript.ReturnType.INTEGER, List.of(RedisWaitlistService.keyCola(evento),
+                        RedisWaitlistService.keySecuenciaCola(evento), RedisWaitlistService.keyCheckpointCola(evento)),
+                argumentos);
+        return agregadas;
+    }
+
+    /**
+     * @return el checkpoint guardado por el último {@link #agregarLote(List, String)}
+     */
+    public Optional<String> checkpoint() {
+        return Optional.ofNullable(redisson
+                .<String> getBucket(RedisWaitlistService.keyCheckpointCola(evento), StringCodec.INSTANCE).get());
+    }
+
+    public Optional<InscripcionEvento> proxima() {
+        String idInscripcion;
+        while ((idInscripcion = items.pollFirst()) != null) {
+            var inscripcion = inscripcionesRepository.findById(idInscripcion);
+            // Si la inscripción existe y está pendiente, la retorna. Si no, revisa la próxima
+            if (inscripcion.isPresent() && inscripcion.get().estaPendiente())
+                return inscripcion;
+        }
+        return Optional.empty();
+    }
+
+    public void quitar(String idInscripcion) {
+        items.remove(idInscripcion);
+    }
+
+    public Optional<Long> posicion(String idInscripcion) {
+        // ZRANK: empieza en 0
+        return Optional.ofNullable(items.rank(idInscripcion)).map(rank -> rank + 1L);
+    }
+
+    public long tamanio() {
+        return items.size();
+    }
+
+    public List<String> rango(long desde, int cantidad) {
+        if (cantidad <= 0)
+            return List.of();
+        int inicio = (int) Math.min(desde, Integer.MAX_VALUE);
+        return List.copyOf(items.valueRange(inicio, (int) Math.min((long) inicio + cantidad - 1, Integer.MAX_VALUE)));
+    }
+}
@@ -1,16 +1,22 @@
 package tacs.eventos.auth;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import tacs.eventos.config.TestMongoConfiguration;
+import tacs.eventos.controller.error.handlers.DemasiadosIntentosHandler;
 import tacs.eventos.config.TestRedisConfiguration;
 import tacs.eventos.model.RolUsuario;
 import tacs.eventos.model.Session;
@@ -18,6 +24,10 @@ import tacs.eventos.model.Usuario;
 import tacs.eventos.repository.sesion.SessionRepository;
 import tacs.eventos.repository.usuario.UsuarioRepository;
 import tacs.eventos.service.SessionService;
+import tacs.eventos.service.TokenFirmadoService;
+import tacs.eventos.service.auth.HasheadorContrasenias;
+import tacs.eventos.service.auth.LimitadorIntentosLogin;
+import tacs.eventos.service.cache.CacheSesiones;
 
 import java.time.Instant;
 import java.util.Optional;
@@ -37,6 +47,7 @@ class SessionServiceTest {
     private UsuarioRepository usuarios;
     private SessionRepository sesiones;
     private PasswordEncoder encoder;
+    private LimitadorIntentosLogin limitador;
     private SessionService service;
 
     @BeforeEach
@@ -44,7 +55,13 @@ class SessionServiceTest {
         this.usuarios = mock(UsuarioRepository.class);
         this.sesiones = mock(SessionRepository.class);
         this.encoder = mock(PasswordEncoder.class);
-        this.service = new SessionService(usuarios, sesiones, encoder, 30);
+        RedissonClient redisson = mock(RedissonClient.class);
+        when(redisson.getTopic(any(), eq(StringCodec.INSTANCE))).thenReturn(mock(RTopic.class));
+        var cacheSesiones = new CacheSesiones(redisson, new SimpleMeterRegistry(), 100, 10);
+        this.limitador = mock(LimitadorIntentosLogin.class);
+        this.service = new SessionService(usuarios, sesiones,
+                new HasheadorContrasenias(encoder, new SimpleMeterRegistry(), 1, 4, 1000), limitador, cacheSesiones,
+                new TokenFirmadoService(redisson, mock(MongoTemplate.class), "opaco", "", 15), 30);
 
         var u = new Usuario("user@mail.com", "hash", Set.of(RolUsuario.USUARIO));
         when(usuarios.findByEmail("user@mail.com")).thenReturn(Optional.of(u));
@@ -56,7 +73,7 @@ class SessionServiceTest {
     void login_ok_creaSessionYGuarda() {
         when(sesiones.save(any(Session.class))).thenAnswer(inv -> inv.getArgument(0));
 
-        var out = service.login("user@mail.com", "pass");
+        var out = service.login("user@mail.com", "pass", "10.0.0.1");
 
         assertTrue(out.isPresent());
         verify(sesiones, times(1)).save(any(Session.class));
@@ -66,18 +83,51 @@ class SessionServiceTest {
 
     @Test
     void login_mailInexistente_vacio() {
-        var out = service.login("userNoExiste@mail.com", "pass");
+        var out = service.login("userNoExiste@mail.com", "pass", "10.0.0.1");
         assertTrue(out.isEmpty());
         verifyNoInteractions(sesiones);
     }
 
     @Test
     void login_contraseniaIncorrecta_vacio() {
-        var out = service.login("user@mail.com", "otraClave"); // intento con clave "pass"
+        var out = service.login("user@mail.com", "otraClave", "10.0.0.1"); // intento con clave "pass"
 
         assertTrue(out.isEmpty());
         // nunca debería intentar guardar una sesión si la clave está mal
         verifyNoInteractions(sesiones);
+        verify(limitador).registrarFallo("user@mail.com");
+    }
+
+    @Test
+    void login_superaElLimiteDeIntentos_noVerificaLaContrasenia() {
+        doThrow(new DemasiadosIntentosHandler("Demasiados intentos", 60)).when(limitador).admitir("user@mail.com",
+                "10.0.0.1");
+
+        assertThrows(DemasiadosIntentosHandler.class, () -> service.login("user@mail.com", "pass", "10.0.0.1"));
+        verifyNoInteractions(encoder, sesiones);
+    }
+
+    @Test
+    void iniciarSesionRegistrado_noPasaPorElLimiteNiVuelveAVerificarLaContrasenia() {
+        when(sesiones.save(any(Session.class))).thenAnswer(inv -> inv.getArgument(0));
+        var nuevo = new Usuario("nuevo@mail.com", "hash", Set.of(RolUsuario.USUARIO));
+
+        Session sesion = service.iniciarSesionRegistrado(nuevo);
+
+        assertEquals(nuevo.getId(), sesion.getUserId());
+        verify(sesiones).save(sesion);
+        verifyNoInteractions(limitador, encoder);
+    }
+
+    @Test
+    void login_hashConCostoViejo_seRecalculaEnSegundoPlano() {
+        when(sesiones.save(any(Session.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(encoder.upgradeEncoding("hash")).thenReturn(true);
+        when(encoder.encode("pass")).thenReturn("hashNuevo");
+
+        service.login("user@mail.com", "pass", "10.0.0.1");
+
+        verify(usuarios, timeout(1000)).actualizarHashContrasenia(anyString(), eq("hash"), eq("hashNuevo"));
     }
 
     @Nested
@@ -0,0 +1,141 @@
+package tacs.eventos.config;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.redisson.spring.data.connection.RedissonConnectionFactory;
+import org.redisson.spring.starter.RedissonAutoConfigurationV2;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Como {@link TestMongoConfiguration} y {@link TestRedisConfiguration}, pero sin Docker: levanta un Mongo embebido
+ * (flapdoodle) y un proceso <code>redis-server</code> local, para poder generar mucha carga sin la latencia de red de
+ * los contenedores.
+ * <p>
+ * Si se define la propiedad de sistema <code>simulacion.redis.url</code> (por ejemplo redis://localhost:6379), se usa
+ * ese Redis en lugar de levantar uno. El ejecutable de Redis se puede cambiar con
+ * <code>simulacion.redis.comando</code>.
+ */
+@TestConfiguration
+@AutoConfigureBefore({ RedissonAutoConfigurationV2.class, RedisAutoConfiguration.class })
+public class TestProcesosLocalesConfiguration {
+    private static final long ESPERA_REDIS_MS = 10_000;
+
+    private static final TransitionWalker.ReachedState<RunningMongodProcess> MONGO;
+    private static final String MONGO_URL;
+    private static final String REDIS_URL;
+
+    static {
+        MONGO = Mongod.instance().start(Version.Main.V7_0);
+        ServerAddress direccion = MONGO.current().getServerAddress();
+        MONGO_URL = "mongodb://" + direccion.getHost() + ":" + direccion.getPort();
+        String redisExistente = System.getProperty("simulacion.redis.url");
+        REDIS_URL = redisExistente != null ? redisExistente : iniciarRedis();
+        Runtime.getRuntime().addShutdownHook(new Thread(MONGO::close));
+        System.setProperty("spring.session.store-type", "none");
+    }
+
+    private static String iniciarRedis() {
+        String comando = System.getProperty("simulacion.redis.comando", "redis-server");
+        try {
+            int puerto = puertoLibre();
+            Process redis = new ProcessBuilder(comando, "--port", String.valueOf(puerto), "--save", "", "--appendonly",
+                    "no").redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+            Runtime.getRuntime().addShutdownHook(new Thread(redis::destroy));
+            esperarPuerto(redis, puerto);
+            return "redis://localhost:" + puerto;
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo iniciar " + comando
+                    + ": instalar Redis, o pasar -Dsimulacion.redis.url con la URL de uno que ya esté corriendo", e);
+        }
+    }
+
+    private static int puertoLibre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void esperarPuerto(Process redis, int puerto) throws IOException {
+        long limite = System.currentTimeMillis() + ESPERA_REDIS_MS;
+        while (System.currentTimeMillis() < limite) {
+            if (!redis.isAlive())
+                throw new IOException("redis-server terminó con código " + redis.exitValue());
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("localhost", puerto), 100);
+                return;
+            } catch (IOException e) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(50);
+                } catch (InterruptedException interrumpido) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Se interrumpió la espera de redis-server", interrumpido);
+                }
+            }
+        }
+        redis.destroy();
+        throw new IOException("redis-server no empezó a escuchar en el puerto " + puerto);
+    }
+
+    @Bean
+    @Primary
+    public MongoClient mongoClient() {
+        return MongoClients.create(MONGO_URL);
+    }
+
+    @Bean
+    @Primary
+    public MongoTemplate mongoTemplate(MongoClient mongoClient) {
+        return new MongoTemplate(mongoClient, "simulacion");
+    }
+
+    @Bean
+    @Primary
+    public RedissonClient redisson() {
+        Config config = new Config();
+        // Pool grande: en la simulación todos los pedidos llegan a la vez
+        config.useSingleServer().setAddress(REDIS_URL).setConnectionMinimumIdleSize(8).setConnectionPoolSize(64);
+        return Redisson.create(config);
+    }
+
+    @Bean
+    @Primary
+    public RedisConnectionFactory redisConnectionFactory(RedissonClient redisson) {
+        return new RedissonConnectionFactory(redisson);
+    }
+
+    @Bean
+    @Primary
+    public StringRedisTemplate stringRedisTemplate(RedisConnectionFactory redisConnectionFactory) {
+        return new StringRedisTemplate(redisConnectionFactory);
+    }
+
+    @Bean
+    @Primary
+    public RedisTemplate<Object, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory) {
+        RedisTemplate<Object, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(redisConnectionFactory);
+        return template;
+    }
+}
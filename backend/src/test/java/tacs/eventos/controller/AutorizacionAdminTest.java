@@ -0,0 +1,115 @@
+package tacs.eventos.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import tacs.eventos.auth.SessionAuthFilter;
+import tacs.eventos.config.SecurityConfig;
+import tacs.eventos.model.RolUsuario;
+import tacs.eventos.model.Usuario;
+import tacs.eventos.repository.usuario.ResumenUsuario;
+import tacs.eventos.service.EstadisticaService;
+import tacs.eventos.service.EventoService;
+import tacs.eventos.service.SessionService;
+import tacs.eventos.service.UsuarioService;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Prueba la autorización de los endpoints de admin y de estadísticas con la cadena de filtros de seguridad real: el
+ * usuario se autentica una sola vez en {@link SessionAuthFilter}, y los controllers sólo chequean su rol.
+ */
+@WebMvcTest(controllers = { AdminController.class, EstadisticasController.class })
+@Import({ SecurityConfig.class, SessionAuthFilter.class })
+@ActiveProfiles("test")
+class AutorizacionAdminTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SessionService sessionService;
+    @MockBean
+    private UsuarioService usuarioService;
+    @MockBean
+    private EstadisticaService estadisticaService;
+    @MockBean
+    private EventoService eventoService;
+
+    @BeforeEach
+    void setUp() {
+        var admin = new Usuario("admin@test.com", "hash", Set.of(RolUsuario.ADMIN));
+        var usuario = new Usuario("user@test.com", "hash", Set.of(RolUsuario.USUARIO));
+        when(sessionService.validate("token-admin")).thenReturn(Optional.of(admin));
+        when(sessionService.validate("token-usuario")).thenReturn(Optional.of(usuario));
+        when(usuarioService.listarUsuarios(any(), anyInt())).thenReturn(List
+                .of(new ResumenUsuario(admin.getId(), admin.getEmail(), admin.getRoles(), admin.getFechaCreacion())));
+    }
+
+    @Test
+    void cadaPedidoDeAdminValidaLaSesionUnaSolaVez() throws Exception {
+        mockMvc.perform(get("/api/v1/admin/usuarios").header(HttpHeaders.AUTHORIZATION, "Bearer token-admin"))
+                .andExpect(status().isOk());
+
+        verify(sessionService, times(1)).validate(anyString());
+    }
+
+    @Test
+    void siHayMasUsuariosDevuelveElCursorDeLaPaginaSiguiente() throws Exception {
+        var otro = new ResumenUsuario("id-2", "otro@test.com", Set.of(RolUsuario.USUARIO), Instant.now());
+        when(usuarioService.listarUsuarios(null, 2)).thenReturn(List.of(otro, otro));
+
+        mockMvc.perform(get("/api/v1/admin/usuarios").param("limite", "1").header(HttpHeaders.AUTHORIZATION,
+                "Bearer token-admin")).andExpect(status().isOk())
+                .andExpect(header().string("X-Siguiente-Cursor", "id-2")).andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].passwordHash").doesNotExist());
+    }
+
+    @Test
+    void cadaPedidoDeEstadisticasValidaLaSesionUnaSolaVez() throws Exception {
+        when(estadisticaService.cantidadInscripciones()).thenReturn(20L);
+
+        mockMvc.perform(
+                get("/api/v1/estadisticas/inscripciones/total").header(HttpHeaders.AUTHORIZATION, "Bearer token-admin"))
+                .andExpect(status().isOk());
+
+        verify(sessionService, times(1)).validate(anyString());
+    }
+
+    @Test
+    void unUsuarioQueNoEsAdminNoPuedeVerLasEstadisticas() throws Exception {
+        mockMvc.perform(get("/api/v1/estadisticas/inscripciones/total").header(HttpHeaders.AUTHORIZATION,
+                "Bearer token-usuario")).andExpect(status().isForbidden());
+
+        verify(estadisticaService, never()).cantidadInscripciones();
+    }
+
+    @Test
+    void unUsuarioQueNoEsAdminNoPuedeVerLosUsuarios() throws Exception {
+        mockMvc.perform(get("/api/v1/admin/usuarios").header(HttpHeaders.AUTHORIZATION, "Bearer token-usuario"))
+                .andExpect(status().isForbidden());
+
+        verify(usuarioService, never()).listarUsuarios(any(), anyInt());
+    }
+
+    @Test
+    void sinSesionNoSePuedeVerLasEstadisticas() throws Exception {
+        mockMvc.perform(get("/api/v1/estadisticas/eventos/total")).andExpect(status().isForbidden());
+
+        verifyNoInteractions(estadisticaService);
+    }
+}
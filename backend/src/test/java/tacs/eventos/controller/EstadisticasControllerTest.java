@@ -11,14 +11,8 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.http.ResponseEntity;
 
 import tacs.eventos.service.EstadisticaService;
-import tacs.eventos.service.SessionService;
 import tacs.eventos.service.EventoService;
 import tacs.eventos.service.UsuarioService;
-import tacs.eventos.model.Usuario;
-import tacs.eventos.controller.error.handlers.AccesoDenegadoHandler;
-import tacs.eventos.model.RolUsuario;
-import java.util.Optional;
-import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
@@ -28,9 +22,6 @@ class EstadisticasControllerTest {
     @Mock
     private EstadisticaService estadisticaService;
 
-    @Mock
-    private SessionService sessionService;
-
     @Mock
     private EventoService eventoService;
 
@@ -40,25 +31,16 @@ class EstadisticasControllerTest {
     @InjectMocks
     private EstadisticasController controller;
 
-    private final String VALID_AUTH_HEADER = "Bearer valid-admin-token";
-    private Usuario adminUser;
-
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-
-        // Setup admin user mock
-        adminUser = new Usuario("admin@test.com", "hashedPassword", Set.of(RolUsuario.ADMIN));
-
-        // Mock session service to return admin user for valid token
-        when(sessionService.validate("valid-admin-token")).thenReturn(Optional.of(adminUser));
     }
 
     @Test
     void testCantidadEventos() throws Exception {
         when(estadisticaService.cantidadEventos()).thenReturn(10);
 
-        ResponseEntity<Integer> response = controller.cantidadEventos(VALID_AUTH_HEADER);
+        ResponseEntity<Integer> response = controller.cantidadEventos();
 
         assertEquals(200, response.getStatusCode().value());
         assertEquals(10, response.getBody());
@@ -69,7 +51,7 @@ class EstadisticasControllerTest {
     void testCantidadInscripciones() {
         when(estadisticaService.cantidadInscripciones()).thenReturn(20l);
 
-        ResponseEntity<Long> response = controller.cantidadInscripciones(VALID_AUTH_HEADER);
+        ResponseEntity<Long> response = controller.cantidadInscripciones();
 
         assertEquals(200, response.getStatusCode().value());
         assertEquals(20, response.getBody());
@@ -81,29 +63,12 @@ class EstadisticasControllerTest {
         String eventoId = "123";
         when(estadisticaService.calcularTasaConversionWL(eventoId)).thenReturn(50);
 
-        ResponseEntity<Integer> response = controller.tasaConversionWL(eventoId, VALID_AUTH_HEADER);
+        ResponseEntity<Integer> response = controller.tasaConversionWL(eventoId);
 
         assertEquals(200, response.getStatusCode().value());
         assertEquals(50, response.getBody());
         assertDoesNotThrow(() -> verify(estadisticaService).calcularTasaConversionWL(eventoId));
     }
 
-    @Test
-    void testCantidadEventos_Unauthorized() throws Exception {
-        // Mock invalid token
-        when(sessionService.validate("invalid-token")).thenReturn(Optional.empty());
-
-        assertThrows(AccesoDenegadoHandler.class, () -> controller.cantidadInscripciones("Bearer regular-token"));
-        verify(estadisticaService, never()).cantidadEventos();
-    }
-
-    @Test
-    void testCantidadInscripciones_Unauthorized() {
-        // Mock non-admin user
-        Usuario regularUser = new Usuario("user@test.com", "hashedPassword", Set.of(RolUsuario.USUARIO));
-        when(sessionService.validate("regular-token")).thenReturn(Optional.of(regularUser));
-
-        assertThrows(AccesoDenegadoHandler.class, () -> controller.cantidadInscripciones("Bearer regular-token"));
-        verify(estadisticaService, never()).cantidadInscripciones();
-    }
-}
\ No newline at end of file
+    // Los pedidos sin rol ADMIN los rechaza Spring Security antes de llegar al controller: ver AutorizacionAdminTest
+}
@@ -0,0 +1,29 @@
+package tacs.eventos.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EtagsEventosTest {
+
+    @Test
+    void coincideConElMismoEtagAunqueSeaDebilOEsteEnUnaLista() {
+        String etag = EtagsEventos.deEvento(3);
+
+        assertTrue(EtagsEventos.coincide(etag, etag));
+        assertTrue(EtagsEventos.coincide("W/" + etag, etag));
+        assertTrue(EtagsEventos.coincide("\"otro\", " + etag, etag));
+        assertTrue(EtagsEventos.coincide("*", etag));
+    }
+
+    @Test
+    void noCoincideConOtraVersionNiSinHeader() {
+        assertFalse(EtagsEventos.coincide(EtagsEventos.deEvento(2), EtagsEventos.deEvento(3)));
+        assertFalse(EtagsEventos.coincide(null, EtagsEventos.deEvento(3)));
+    }
+
+    @Test
+    void losEtagsDeEventosYDeListadosNoSeConfunden() {
+        assertNotEquals(EtagsEventos.deEvento(5), EtagsEventos.deListado(5));
+    }
+}
@@ -5,7 +5,6 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.mockito.Mockito;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -23,7 +22,6 @@ import tacs.eventos.config.TestMongoConfiguration;
 import tacs.eventos.config.TestRedisConfiguration;
 import tacs.eventos.controller.error.ManejadorDeExcepciones;
 import tacs.eventos.dto.CreacionEventoRequest;
-import tacs.eventos.dto.EventoResponse;
 import tacs.eventos.model.RolUsuario;
 import tacs.eventos.model.Usuario;
 import tacs.eventos.model.evento.Evento;
@@ -40,6 +38,7 @@ import java.util.Set;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -70,13 +69,8 @@ class EventoControllerTest {
     @MockBean
     private SessionService sessionService;
 
-    @MockBean
-    private ModelMapper modelMapper;
-
     Evento e1;
-    EventoResponse r1;
     Evento e2;
-    EventoResponse r2;
 
     Usuario usuario;
 
@@ -88,20 +82,13 @@ class EventoControllerTest {
         e1.setId("e1");
         e1.setTitulo("Concierto");
         e1.setOrganizador(usuario);
-        r1 = new EventoResponse();
-        r1.setId("e1");
-        r1.setTitulo("Concierto");
 
         e2 = new Evento();
         e2.setId("e2");
-        r2 = new EventoResponse();
-        r2.setId("e2");
 
         Mockito.when(eventoService.buscarEventoPorId("e1")).thenReturn(Optional.of(e1));
 
-        Mockito.when(eventoService.listarEventos()).thenReturn(List.of(e1, e2));
-        Mockito.when(modelMapper.map(e1, EventoResponse.class)).thenReturn(r1);
-        Mockito.when(modelMapper.map(e2, EventoResponse.class)).thenReturn(r2);
+        Mockito.when(eventoService.listarEventos(any(), any(), anyInt())).thenReturn(List.of(e1, e2));
 
         Authentication auth = new UsernamePasswordAuthenticationToken(usuario, null);
         SecurityContextHolder.getContext().setAuthentication(auth);
@@ -118,8 +105,6 @@ class EventoControllerTest {
         request.setDescripcion("descripcion");
         request.setUbicacion("ubic");
 
-        Mockito.when(modelMapper.map(any(CreacionEventoRequest.class), any())).thenReturn(e1);
-
         assertDoesNotThrow(() -> mockMvc
                 .perform(post("/api/v1/evento").contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)).principal(() -> usuario.getId())
@@ -147,91 +132,144 @@ class EventoControllerTest {
                 .andExpect(jsonPath("$", hasSize(2))).andExpect(jsonPath("$[0].id", is("e1")))
                 .andExpect(jsonPath("$[1].id", is("e2"))));
     }
-}/*
-  * package tacs.eventos.controller;
-  *
-  * import com.fasterxml.jackson.databind.ObjectMapper; import org.junit.jupiter.api.BeforeEach; import
-  * org.junit.jupiter.api.Test; import org.mockito.Mockito; import org.modelmapper.ModelMapper; import
-  * org.springframework.beans.factory.annotation.Autowired; import
-  * org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc; import
-  * org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest; import
-  * org.springframework.boot.test.mock.mockito.MockBean; import org.springframework.http.MediaType; import
-  * org.springframework.security.authentication.UsernamePasswordAuthenticationToken; import
-  * org.springframework.security.core.Authentication; import
-  * org.springframework.security.core.context.SecurityContextHolder; import
-  * org.springframework.test.web.servlet.MockMvc; import tacs.eventos.dto.CreacionEventoRequest; import
-  * tacs.eventos.dto.EventoResponse; import tacs.eventos.model.RolUsuario; import tacs.eventos.model.Usuario; import
-  * tacs.eventos.model.evento.Evento; import tacs.eventos.service.EventoService; import
-  * tacs.eventos.service.SessionService; import tacs.eventos.service.UsuarioService; import
-  * tacs.eventos.service.inscripciones.InscripcionesService;
-  *
-  * import java.time.LocalDateTime; import java.util.List; import java.util.Optional; import java.util.Set;
-  *
-  * import static org.hamcrest.Matchers.*; import static org.junit.jupiter.api.Assertions.assertDoesNotThrow; import
-  * static org.mockito.ArgumentMatchers.any; import static
-  * org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get; import static
-  * org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post; import static
-  * org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
-  *
-  * @WebMvcTest(EventoController.class)
-  *
-  * @AutoConfigureMockMvc(addFilters = false) class EventoControllerTest {
-  *
-  * @Autowired private MockMvc mockMvc;
-  *
-  * @Autowired private ObjectMapper objectMapper; // para serializar JSON
-  *
-  * @MockBean private EventoService eventoService;
-  *
-  * @MockBean private UsuarioService usuarioService;
-  *
-  * @MockBean private InscripcionesService inscripcionesService;
-  *
-  * @MockBean private SessionService sessionService;
-  *
-  * @MockBean private ModelMapper modelMapper;
-  *
-  * Evento e1; EventoResponse r1; Evento e2; EventoResponse r2;
-  *
-  * Usuario usuario;
-  *
-  * @BeforeEach void setUp() { usuario = new Usuario("user@mail.com", "hash", Set.of(RolUsuario.USUARIO));
-  *
-  * e1 = new Evento(); e1.setId("e1"); e1.setTitulo("Concierto"); e1.setOrganizador(usuario); r1 = new EventoResponse();
-  * r1.setId("e1"); r1.setTitulo("Concierto");
-  *
-  * e2 = new Evento(); e2.setId("e2"); r2 = new EventoResponse(); r2.setId("e2");
-  *
-  * Mockito.when(eventoService.buscarEventoPorId("e1")).thenReturn(Optional.of(e1));
-  *
-  * Mockito.when(eventoService.listarEventos()).thenReturn(List.of(e1, e2)); Mockito.when(modelMapper.map(e1,
-  * EventoResponse.class)).thenReturn(r1); Mockito.when(modelMapper.map(e2, EventoResponse.class)).thenReturn(r2);
-  *
-  * Authentication auth = new UsernamePasswordAuthenticationToken(usuario, null);
-  * SecurityContextHolder.getContext().setAuthentication(auth); }
-  *
-  * @Test void crearEvento_devuelve201Created() throws Exception { CreacionEventoRequest request = new
-  * CreacionEventoRequest(); request.setCategoria("Música"); request.setCupoMaximo(100); request.setTitulo("Concierto");
-  * request.setFechaHoraInicio(LocalDateTime.now()); request.setDuracionMinutos(120);
-  * request.setDescripcion("descripcion"); request.setUbicacion("ubic");
-  *
-  * Mockito.when(modelMapper.map(any(CreacionEventoRequest.class), any())).thenReturn(e1);
-  *
-  * assertDoesNotThrow(() -> mockMvc .perform(post("/api/v1/evento").contentType(MediaType.APPLICATION_JSON)
-  * .content(objectMapper.writeValueAsString(request)).principal(() -> usuario.getId()) .header("Authorization",
-  * "Bearer token")) // simula usuario autenticado .andExpect(status().isCreated())
-  * .andExpect(header().string("Location", containsString("/api/v1/evento")))); }
-  *
-  * @Test void obtenerEvento_existente_devuelve200() throws Exception { assertDoesNotThrow(() ->
-  * mockMvc.perform(get("/api/v1/evento/e1")).andExpect(status().isOk()) .andExpect(jsonPath("$.id",
-  * is("e1"))).andExpect(jsonPath("$.titulo", is("Concierto")))); }
-  *
-  * @Test void obtenerEvento_inexistente_devuelve404() throws Exception {
-  * Mockito.when(eventoService.buscarEventoPorId("noExiste")).thenReturn(Optional.empty());
-  *
-  * assertDoesNotThrow(() -> mockMvc.perform(get("/api/v1/evento/noExiste")).andExpect(status().isNotFound())); }
-  *
-  * @Test void listarEventos_sinFiltros_devuelveLista() throws Exception { assertDoesNotThrow(() ->
-  * mockMvc.perform(get("/api/v1/evento")).andExpect(status().isOk()) .andExpect(jsonPath("$",
-  * hasSize(2))).andExpect(jsonPath("$[0].id", is("e1"))) .andExpect(jsonPath("$[1].id", is("e2")))); } }
-  */
\ No newline at end of file
+
+    @Test
+    void listarEventos_sinLimiteNiCursor_noPagina() throws Exception {
+        assertDoesNotThrow(() -> mockMvc.perform(get("/api/v1/evento")).andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().doesNotExist(EventoController.HEADER_SIGUIENTE_CURSOR)));
+        Mockito.verify(eventoService).listarEventos(any(), Mockito.isNull(), Mockito.eq(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void listarEventos_conMasEventosQueElLimite_devuelveCursorSiguiente() throws Exception {
+        assertDoesNotThrow(() -> mockMvc.perform(get("/api/v1/evento").param("limite", "1")).andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1))).andExpect(jsonPath("$[0].id", is("e1")))
+                .andExpect(header().exists(EventoController.HEADER_SIGUIENTE_CURSOR)));
+    }
+
+    @Test
+    void listarEventos_conCursorInvalido_devuelve400() throws Exception {
+        assertDoesNotThrow(() -> mockMvc.perform(get("/api/v1/evento").param("cursor", "no es un cursor!"))
+                .andExpect(status().isBadRequest()));
+    }
+
+    @Test
+    void obtenerEvento_conElEtagDeLaVersionEnCache_devuelve304() throws Exception {
+        Mockito.when(eventoService.versionEnCache("e1")).thenReturn(Optional.of(3L));
+
+        assertDoesNotThrow(() -> mockMvc.perform(get("/api/v1/evento/e1").header("If-None-Match", "\"e3\""))
+                .andExpect(status().isNotModified()).andExpect(header().string("ETag", "\"e3\"")));
+        Mockito.verify(eventoService, Mockito.never()).buscarEventoPorId("e1");
+    }
+
+    @Test
+    void listarEventos_devuelveElEtagDeLaColeccionY304SiNoCambio() throws Exception {
+        Mockito.when(eventoService.versionColeccion()).thenReturn(Optional.of(7L));
+
+        assertDoesNotThrow(() -> mockMvc.perform(get("/api/v1/evento")).andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"l7\"")));
+        assertDoesNotThrow(() -> mockMvc.perform(get("/api/v1/evento").header("If-None-Match", "\"l7\""))
+                .andExpect(status().isNotModified()));
+        Mockito.verify(eventoService, Mockito.times(1)).listarEventos(any(), any(), anyInt());
+    }
+
+    @Test
+    void posicionEnWaitlist_devuelveElLugarDelUsuarioO404SiNoEstaEsperando() throws Exception {
+        Mockito.when(inscripcionesService.posicionEnWaitlist(e1, usuario)).thenReturn(Optional.of(42L));
+
+        assertDoesNotThrow(() -> mockMvc.perform(get("/api/v1/evento/e1/waitlist/posicion")).andExpect(status().isOk())
+                .andExpect(jsonPath("$.posicion", is(42))));
+
+        Mockito.when(inscripcionesService.posicionEnWaitlist(e1, usuario)).thenReturn(Optional.empty());
+        assertDoesNotThrow(
+                () -> mockMvc.perform(get("/api/v1/evento/e1/waitlist/posicion")).andExpect(status().isNotFound()));
+    }
+}
+/*
+ * package tacs.eventos.controller;
+ *
+ * import com.fasterxml.jackson.databind.ObjectMapper; import org.junit.jupiter.api.BeforeEach; import
+ * org.junit.jupiter.api.Test; import org.mockito.Mockito; import org.modelmapper.ModelMapper; import
+ * org.springframework.beans.factory.annotation.Autowired; import
+ * org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc; import
+ * org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest; import
+ * org.springframework.boot.test.mock.mockito.MockBean; import org.springframework.http.MediaType; import
+ * org.springframework.security.authentication.UsernamePasswordAuthenticationToken; import
+ * org.springframework.security.core.Authentication; import
+ * org.springframework.security.core.context.SecurityContextHolder; import org.springframework.test.web.servlet.MockMvc;
+ * import tacs.eventos.dto.CreacionEventoRequest; import tacs.eventos.dto.EventoResponse; import
+ * tacs.eventos.model.RolUsuario; import tacs.eventos.model.Usuario; import tacs.eventos.model.evento.Evento; import
+ * tacs.eventos.service.EventoService; import tacs.eventos.service.SessionService; import
+ * tacs.eventos.service.UsuarioService; import tacs.eventos.service.inscripciones.InscripcionesService;
+ *
+ * import java.time.LocalDateTime; import java.util.List; import java.util.Optional; import java.util.Set;
+ *
+ * import static org.hamcrest.Matchers.*; import static org.junit.jupiter.api.Assertions.assertDoesNotThrow; import
+ * static org.mockito.ArgumentMatchers.any; import static
+ * org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get; import static
+ * org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post; import static
+ * org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+ *
+ * @WebMvcTest(EventoController.class)
+ *
+ * @AutoConfigureMockMvc(addFilters = false) class EventoControllerTest {
+ *
+ * @Autowired private MockMvc mockMvc;
+ *
+ * @Autowired private ObjectMapper objectMapper; // para serializar JSON
+ *
+ * @MockBean private EventoService eventoService;
+ *
+ * @MockBean private UsuarioService usuarioService;
+ *
+ * @MockBean private InscripcionesService inscripcionesService;
+ *
+ * @MockBean private SessionService sessionService;
+ *
+ * @MockBean private ModelMapper modelMapper;
+ *
+ * Evento e1; EventoResponse r1; Evento e2; EventoResponse r2;
+ *
+ * Usuario usuario;
+ *
+ * @BeforeEach void setUp() { usuario = new Usuario("user@mail.com", "hash", Set.of(RolUsuario.USUARIO));
+ *
+ * e1 = new Evento(); e1.setId("e1"); e1.setTitulo("Concierto"); e1.setOrganizador(usuario); r1 = new EventoResponse();
+ * r1.setId("e1"); r1.setTitulo("Concierto");
+ *
+ * e2 = new Evento(); e2.setId("e2"); r2 = new EventoResponse(); r2.setId("e2");
+ *
+ * Mockito.when(eventoService.buscarEventoPorId("e1")).thenReturn(Optional.of(e1));
+ *
+ * Mockito.when(eventoService.listarEventos()).thenReturn(List.of(e1, e2)); Mockito.when(modelMapper.map(e1,
+ * EventoResponse.class)).thenReturn(r1); Mockito.when(modelMapper.map(e2, EventoResponse.class)).thenReturn(r2);
+ *
+ * Authentication auth = new UsernamePasswordAuthenticationToken(usuario, null);
+ * SecurityContextHolder.getContext().setAuthentication(auth); }
+ *
+ * @Test void crearEvento_devuelve201Created() throws Exception { CreacionEventoRequest request = new
+ * CreacionEventoRequest(); request.setCategoria("Música"); request.setCupoMaximo(100); request.setTitulo("Concierto");
+ * request.setFechaHoraInicio(LocalDateTime.now()); request.setDuracionMinutos(120);
+ * request.setDescripcion("descripcion"); request.setUbicacion("ubic");
+ *
+ * Mockito.when(modelMapper.map(any(CreacionEventoRequest.class), any())).thenReturn(e1);
+ *
+ * assertDoesNotThrow(() -> mockMvc .perform(post("/api/v1/evento").contentType(MediaType.APPLICATION_JSON)
+ * .content(objectMapper.writeValueAsString(request)).principal(() -> usuario.getId()) .header("Authorization",
+ * "Bearer token")) // simula usuario autenticado .andExpect(status().isCreated())
+ * .andExpect(header().string("Location", containsString("/api/v1/evento")))); }
+ *
+ * @Test void obtenerEvento_existente_devuelve200() throws Exception { assertDoesNotThrow(() ->
+ * mockMvc.perform(get("/api/v1/evento/e1")).andExpect(status().isOk()) .andExpect(jsonPath("$.id",
+ * is("e1"))).andExpect(jsonPath("$.titulo", is("Concierto")))); }
+ *
+ * @Test void obtenerEvento_inexistente_devuelve404() throws Exception {
+ * Mockito.when(eventoService.buscarEventoPorId("noExiste")).thenReturn(Optional.empty());
+ *
+ * assertDoesNotThrow(() -> mockMvc.perform(get("/api/v1/evento/noExiste")).andExpect(status().isNotFound())); }
+ *
+ * @Test void listarEventos_sinFiltros_devuelveLista() throws Exception { assertDoesNotThrow(() ->
+ * mockMvc.perform(get("/api/v1/evento")).andExpect(status().isOk()) .andExpect(jsonPath("$",
+ * hasSize(2))).andExpect(jsonPath("$[0].id", is("e1"))) .andExpect(jsonPath("$[1].id", is("e2")))); } }
+ */
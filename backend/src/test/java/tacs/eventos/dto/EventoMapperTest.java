@@ -0,0 +1,72 @@
+package tacs.eventos.dto;
+
+import org.junit.jupiter.api.Test;
+import tacs.eventos.model.RolUsuario;
+import tacs.eventos.model.Usuario;
+import tacs.eventos.model.evento.Evento;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventoMapperTest {
+    private final LocalDateTime inicio = LocalDateTime.of(2030, 5, 1, 20, 0);
+
+    @Test
+    void mapeaTodosLosCamposDelEventoYElOrganizadorSinRoles() {
+        Usuario organizador = new Usuario("org@mail.com", "hash", Set.of(RolUsuario.ORGANIZADOR));
+        Evento evento = new Evento("Concierto", "Un concierto", inicio, 120, "Teatro", 100, 50.0, "Musica");
+        evento.setOrganizador(organizador);
+
+        EventoResponse response = EventoMapper.aResponse(evento);
+
+        assertEquals(evento.getId(), response.getId());
+        assertEquals("Concierto", response.getTitulo());
+        assertEquals("Un concierto", response.getDescripcion());
+        assertEquals(inicio, response.getFechaHoraInicio());
+        assertEquals(120, response.getDuracionMinutos());
+        assertEquals("Teatro", response.getUbicacion());
+        assertEquals(100, response.getCupoMaximo());
+        assertEquals(50.0, response.getPrecio());
+        assertEquals("Musica", response.getCategoria());
+        assertTrue(response.isAbierto());
+        assertEquals(new UsuarioResponse(organizador.getId(), "org@mail.com", Set.of()), response.getOrganizador());
+    }
+
+    @Test
+    void unEventoCerradoYSinOrganizadorSeMapeaCerradoYConOrganizadorNull() {
+        Evento evento = new Evento("Concierto", "Un concierto", inicio, 120, "Teatro", 100, 50.0, "Musica");
+        evento.cerrarEvento();
+
+        EventoResponse response = EventoMapper.aResponse(evento);
+
+        assertFalse(response.isAbierto());
+        assertNull(response.getOrganizador());
+    }
+
+    @Test
+    void creaElEventoConLosDatosDelPedido() {
+        CreacionEventoRequest request = new CreacionEventoRequest();
+        request.setTitulo("Taller");
+        request.setDescripcion("Un taller de cocina");
+        request.setFechaHoraInicio(inicio);
+        request.setDuracionMinutos(90);
+        request.setUbicacion("Centro");
+        request.setCupoMaximo(30);
+        request.setPrecio(10.0);
+        request.setCategoria("Educacion");
+
+        Evento evento = EventoMapper.aEvento(request);
+
+        assertEquals("Taller", evento.getTitulo());
+        assertEquals("Un taller de cocina", evento.getDescripcion());
+        assertEquals(inicio, evento.getFechaHoraInicio());
+        assertEquals(90, evento.getDuracionMinutos());
+        assertEquals("Centro", evento.getUbicacion());
+        assertEquals(30, evento.getCupoMaximo());
+        assertEquals(10.0, evento.getPrecio());
+        assertEquals("Educacion", evento.getCategoria());
+        assertNull(evento.getOrganizador());
+    }
+}
@@ -0,0 +1,313 @@
+package tacs.eventos.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import tacs.eventos.config.TestProcesosLocalesConfiguration;
+import tacs.eventos.model.RolUsuario;
+import tacs.eventos.model.Session;
+import tacs.eventos.model.Usuario;
+import tacs.eventos.model.evento.Evento;
+import tacs.eventos.model.inscripcion.EstadoInscripcion;
+import tacs.eventos.model.inscripcion.InscripcionEvento;
+import tacs.eventos.repository.evento.EventosRepository;
+import tacs.eventos.repository.inscripcion.InscripcionesRepository;
+import tacs.eventos.repository.sesion.SessionRepository;
+import tacs.eventos.repository.usuario.UsuarioRepository;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Simula la apertura de inscripciones de un evento con mucha demanda: miles de usuarios se inscriben al mismo evento a
+ * la vez, y después algunos de los confirmados cancelan mientras siguen llegando inscripciones tardías.
+ * <p>
+ * Corre contra la aplicación completa (HTTP, seguridad, Redis y Mongo), con un Mongo embebido y un Redis local (ver
+ * {@link TestProcesosLocalesConfiguration}). Reporta el throughput y la latencia (p50, p99 y p999) de cada fase, y
+ * chequea que:
+ * <ul>
+ * <li>nunca haya más inscripciones confirmadas que el cupo máximo,</li>
+ * <li>la waitlist se promueva en orden de llegada,</li>
+ * <li>no se pierdan promociones: si quedan pendientes, el evento está lleno, y</li>
+ * <li>ningún usuario tenga más de una inscripción no cancelada.</li>
+ * </ul>
+ * No corre con los tests normales. Se corre con el perfil <code>simulacion</code>:
+ *
+ * <pre>
+ * mvn -Psimulacion verify -Dsimulacion.usuarios=5000 -Dsimulacion.cupo=500
+ * </pre>
+ *
+ * El reporte también se escribe en <code>target/simulacion/apertura-inscripciones.json</code>. Para comparar las
+ * estrategias de cupos con la misma carga, se corre una vez con cada una (<code>-Dapp.cupos.estrategia=mongo</code>).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Import(TestProcesosLocalesConfiguration.class)
+@ActiveProfiles("test")
+class AperturaInscripcionesSimulacionIT {
+    private static final Set<Integer> ESTADOS_INSCRIBIR = Set.of(201, 303);
+    private static final Set<Integer> ESTADOS_CANCELAR = Set.of(204);
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private UsuarioRepository usuarios;
+    @Autowired
+    private SessionRepository sesiones;
+    @Autowired
+    private EventosRepository eventos;
+    @Autowired
+    private InscripcionesRepository inscripciones;
+
+    /* Usuarios que se inscriben en la apertura */
+    @Value("${simulacion.usuarios:5000}")
+    private int cantidadUsuarios;
+    @Value("${simulacion.cupo:500}")
+    private int cupoMaximo;
+    /* Confirmados que cancelan en la segunda fase */
+    @Value("${simulacion.cancelaciones:250}")
+    private int cantidadCancelaciones;
+    /* Usuarios nuevos que se inscriben en la segunda fase, mientras los otros cancelan */
+    @Value("${simulacion.inscripciones-tardias:250}")
+    private int cantidadTardias;
+    /* Pedidos en vuelo a la vez, como máximo */
+    @Value("${simulacion.concurrencia:2000}")
+    private int concurrencia;
+    /*
+     * La fecha de ingreso a la waitlist se toma antes de encolar en Redis, así que dos pedidos casi simultáneos pueden
+     * quedar en la waitlist en otro orden que el de sus fechas
+     */
+    @Value("${simulacion.tolerancia-fifo-ms:100}")
+    private long toleranciaFifoMs;
+    @Value("${simulacion.espera-promociones-segundos:60}")
+    private long esperaPromocionesSegundos;
+    @Value("${app.cupos.estrategia:redis}")
+    private String estrategiaCupos;
+
+    private final HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30)).build();
+
+    @Test
+    void aperturaDeInscripcionesConCancelaciones() throws Exception {
+        Usuario organizador = new Usuario("organizador@simulacion.com", "sin-login", Set.of(RolUsuario.ORGANIZADOR));
+        usuarios.insert(organizador);
+        Evento evento = new Evento("Recital", "Apertura de inscripciones simulada", LocalDateTime.now().plusDays(30),
+                120, "Estadio", cupoMaximo, 100.0, "Musica");
+        evento.setOrganizador(organizador);
+        eventos.save(evento);
+
+        List<Participante> primeros = crearParticipantes("apertura", cantidadUsuarios);
+        List<Participante> tardios = crearParticipantes("tardio", cantidadTardias);
+        Map<String, Object> reporte = new LinkedHashMap<>();
+        reporte.put("usuarios", cantidadUsuarios);
+        reporte.put("cupoMaximo", cupoMaximo);
+        reporte.put("estrategiaCupos", estrategiaCupos);
+
+        // Fase 1: todos se inscriben a la vez
+        Fase apertura = new Fase("apertura");
+        apertura.ejecutar(primeros.stream().map(p -> pedido("POST", evento, p, ESTADOS_INSCRIBIR)).toList());
+        reporte.put(apertura.nombre, apertura.reporte());
+        assertTrue(confirmadas(evento).size() <= cupoMaximo, "Overbooking después de la apertura");
+
+        // Fase 2: cancelan algunos confirmados mientras llegan inscripciones tardías
+        Map<String, Participante> porId = primeros.stream().collect(Collectors.toMap(p -> p.usuario.getId(), p -> p));
+        List<InscripcionEvento> confirmadasApertura = new ArrayList<>(confirmadas(evento));
+        Collections.shuffle(confirmadasApertura, new Random(42));
+        List<Pedido> pedidos = new ArrayList<>();
+        confirmadasApertura.stream().limit(cantidadCancelaciones).forEach(
+                i -> pedidos.add(pedido("DELETE", evento, porId.get(i.getParticipanteId()), ESTADOS_CANCELAR)));
+        tardios.forEach(p -> pedidos.add(pedido("POST", evento, p, ESTADOS_INSCRIBIR)));
+        Collections.shuffle(pedidos, new Random(42));
+        Fase cancelaciones = new Fase("cancelaciones");
+        cancelaciones.ejecutar(pedidos);
+        reporte.put(cancelaciones.nombre, cancelaciones.reporte());
+
+        long inicioEspera = System.nanoTime();
+        boolean estable = esperarPromociones(evento);
+        reporte.put("esperaPromocionesMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicioEspera));
+
+        List<InscripcionEvento> confirmadas = confirmadas(evento);
+        List<InscripcionEvento> pendientes = inscripciones.findByEventoIdAndEstado(evento.getId(),
+                EstadoInscripcion.PENDIENTE);
+        reporte.put("confirmadas", confirmadas.size());
+        reporte.put("pendientes", pendientes.size());
+        reporte.put("adelantosFifo", adelantosFifo(confirmadas, pendientes));
+        escribirReporte(reporte);
+
+        assertEquals(0, apertura.errores.get() + cancelaciones.errores.get(), "Hubo respuestas inesperadas");
+        assertTrue(confirmadas.size() <= cupoMaximo, "Overbooking: " + confirmadas.size() + " confirmadas");
+        assertTrue(estable, "Se perdieron promociones: quedaron " + pendientes.size() + " pendientes con "
+                + confirmadas.size() + " confirmadas");
+        assertEquals(0, adelantosFifo(confirmadas, pendientes), "La waitlist no se promovió en orden de llegada");
+        assertEquals(0, usuariosConVariasInscripciones(evento), "Hay usuarios con varias inscripciones");
+    }
+
+    private List<Participante> crearParticipantes(String prefijo, int cantidad) {
+        List<Usuario> nuevos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++)
+            nuevos.add(new Usuario(prefijo + i + "@simulacion.com", "sin-login", Set.of(RolUsuario.USUARIO)));
+        usuarios.insert(nuevos);
+        Instant vencimiento = Instant.now().plus(Duration.ofHours(1));
+        // Sesiones creadas directamente: calcular miles de hashes de contraseñas no es lo que se quiere medir
+        return nuevos.stream().map(u -> {
+            Session sesion = sesiones.save(new Session(UUID.randomUUID().toString(), u.getId(), vencimiento));
+            return new Participante(u, sesion.getToken());
+        }).toList();
+    }
+
+    private Pedido pedido(String metodo, Evento evento, Participante participante, Set<Integer> estadosEsperados) {
+        HttpRequest request = HttpRequest
+                .newBuilder(URI.create("http://localhost:" + puerto + "/api/v1/evento/" + evento.getId()
+                        + "/inscripcion/" + participante.usuario.getId()))
+                .header("Authorization", "Bearer " + participante.token)
+                .method(metodo, HttpRequest.BodyPublishers.noBody()).timeout(Duration.ofSeconds(60)).build();
+        return new Pedido(metodo, request, estadosEsperados);
+    }
+
+    private List<InscripcionEvento> confirmadas(Evento evento) {
+        return inscripciones.findByEventoIdAndEstado(evento.getId(), EstadoInscripcion.CONFIRMADA);
+    }
+
+    /**
+     * Espera a que se terminen de promover las inscripciones de la waitlist a los lugares liberados.
+     *
+     * @return si quedó estable (no hay pendientes, o el evento está lleno) antes del tiempo máximo
+     */
+    private boolean esperarPromociones(Evento evento) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(esperaPromocionesSegundos);
+        while (System.nanoTime() < limite) {
+            int confirmadas = inscripciones.countByEventoIdAndEstado(evento.getId(), EstadoInscripcion.CONFIRMADA);
+            int pendientes = inscripciones.countByEventoIdAndEstado(evento.getId(), EstadoInscripcion.PENDIENTE);
+            if (pendientes == 0 || confirmadas == cupoMaximo)
+                return true;
+            Thread.sleep(100);
+        }
+        return false;
+    }
+
+    /**
+     * @return cuántas inscripciones promovidas desde la waitlist entraron después (más allá de la tolerancia) que la
+     *         primera de las que siguen pendientes
+     */
+    private long adelantosFifo(List<InscripcionEvento> confirmadas, List<InscripcionEvento> pendientes) {
+        Optional<LocalDateTime> primeraPendiente = pendientes.stream()
+                .flatMap(i -> i.getFechaHoraIngresoAWaitlist().stream()).min(Comparator.naturalOrder());
+        if (primeraPendiente.isEmpty())
+            return 0;
+        LocalDateTime limite = primeraPendiente.get().plus(Duration.ofMillis(toleranciaFifoMs));
+        return confirmadas.stream().flatMap(i -> i.getFechaHoraIngresoAWaitlist().stream())
+                .filter(ingreso -> ingreso.isAfter(limite)).count();
+    }
+
+    private long usuariosConVariasInscripciones(Evento evento) {
+        return Stream.of(EstadoInscripcion.CONFIRMADA, EstadoInscripcion.PENDIENTE)
+                .flatMap(estado -> inscripciones.findByEventoIdAndEstado(evento.getId(), estado).stream())
+                .collect(Collectors.groupingBy(InscripcionEvento::getParticipanteId, Collectors.counting())).values()
+                .stream().filter(cantidad -> cantidad > 1).count();
+    }
+
+    private void escribirReporte(Map<String, Object> reporte) throws IOException {
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        String json = mapper.writeValueAsString(reporte);
+        System.out.println("Reporte de la simulación:\n" + json);
+        File archivo = new File("target/simulacion/apertura-inscripciones.json");
+        archivo.getParentFile().mkdirs();
+        mapper.writeValue(archivo, reporte);
+    }
+
+    private record Participante(Usuario usuario, String token) {
+    }
+
+    private record Pedido(String metodo, HttpRequest request, Set<Integer> estadosEsperados) {
+    }
+
+    /**
+     * Una tanda de pedidos que se mandan todos juntos, con sus latencias y códigos de respuesta por método.
+     */
+    private class Fase {
+        private final String nombre;
+        private final Map<String, ConcurrentLinkedQueue<Long>> latenciasNanos = new ConcurrentHashMap<>();
+        private final Map<String, Map<Integer, AtomicInteger>> estados = new ConcurrentHashMap<>();
+        private final AtomicInteger errores = new AtomicInteger();
+        private long duracionNanos;
+
+        Fase(String nombre) {
+            this.nombre = nombre;
+        }
+
+        void ejecutar(List<Pedido> pedidos) throws InterruptedException {
+            Semaphore enVuelo = new Semaphore(concurrencia);
+            CountDownLatch terminados = new CountDownLatch(pedidos.size());
+            long inicio = System.nanoTime();
+            for (Pedido pedido : pedidos) {
+                enVuelo.acquire();
+                long enviado = System.nanoTime();
+                cliente.sendAsync(pedido.request, HttpResponse.BodyHandlers.discarding()).whenComplete((r, e) -> {
+                    long latencia = System.nanoTime() - enviado;
+                    int estado = e == null ? r.statusCode() : -1; // -1: no hubo respuesta
+                    latenciasNanos.computeIfAbsent(pedido.metodo, m -> new ConcurrentLinkedQueue<>()).add(latencia);
+                    estados.computeIfAbsent(pedido.metodo, m -> new ConcurrentHashMap<>())
+                            .computeIfAbsent(estado, s -> new AtomicInteger()).incrementAndGet();
+                    if (!pedido.estadosEsperados.contains(estado))
+                        errores.incrementAndGet();
+                    enVuelo.release();
+                    terminados.countDown();
+                });
+            }
+            terminados.await();
+            duracionNanos = System.nanoTime() - inicio;
+        }
+
+        Map<String, Object> reporte() {
+            Map<String, Object> reporte = new LinkedHashMap<>();
+            double segundos = duracionNanos / 1e9;
+            int total = latenciasNanos.values().stream().mapToInt(Collection::size).sum();
+            reporte.put("pedidos", total);
+            reporte.put("duracionMs", Math.round(segundos * 1000));
+            reporte.put("pedidosPorSegundo", Math.round(total / segundos));
+            reporte.put("errores", errores.get());
+            latenciasNanos.forEach((metodo, latencias) -> {
+                long[] ordenadas = latencias.stream().mapToLong(Long::longValue).sorted().toArray();
+                Map<String, Object> porMetodo = new LinkedHashMap<>();
+                porMetodo.put("pedidos", ordenadas.length);
+                porMetodo.put("p50Ms", percentilMs(ordenadas, 0.5));
+                porMetodo.put("p99Ms", percentilMs(ordenadas, 0.99));
+                porMetodo.put("p999Ms", percentilMs(ordenadas, 0.999));
+                porMetodo.put("maxMs", percentilMs(ordenadas, 1));
+                porMetodo.put("estados", new TreeMap<>(estados.get(metodo)));
+                reporte.put(metodo, porMetodo);
+            });
+            return reporte;
+        }
+
+        /* Percentil por el método del rango más cercano */
+        private double percentilMs(long[] ordenadas, double percentil) {
+            int indice = Math.max(0, (int) Math.ceil(percentil * ordenadas.length) - 1);
+            return ordenadas[indice] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package tacs.eventos.repository.evento;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorEventosTest {
+
+    @Test
+    void elCursorCodificadoSePuedeDecodificar() {
+        CursorEventos cursor = new CursorEventos(LocalDateTime.of(2025, 10, 10, 20, 30), "id-evento");
+        assertEquals(cursor, CursorEventos.decodificar(cursor.codificar()));
+    }
+
+    @Test
+    void elCursorSinFechaSePuedeDecodificar() {
+        CursorEventos cursor = new CursorEventos(null, "id-evento");
+        assertEquals(cursor, CursorEventos.decodificar(cursor.codificar()));
+    }
+
+    @Test
+    void unTokenInvalidoLanzaExcepcion() {
+        assertThrows(IllegalArgumentException.class, () -> CursorEventos.decodificar("no es un cursor!"));
+        assertThrows(IllegalArgumentException.class, () -> CursorEventos.decodificar("bm8tZmVjaGF8aWQ"));
+    }
+}
@@ -0,0 +1,27 @@
+package tacs.eventos.repository.evento.busqueda;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AnalizadorTextoEspanolTest {
+
+    @Test
+    void normalizaMayusculasAcentosYPalabrasVacias() {
+        assertEquals(List.of("music", "electronic"), AnalizadorTextoEspanol.terminos("Música  de la ELECTRÓNICA"));
+    }
+
+    @Test
+    void singularYPluralTienenLaMismaRaiz() {
+        assertEquals(AnalizadorTextoEspanol.terminos("concierto"), AnalizadorTextoEspanol.terminos("conciertos"));
+        assertEquals(AnalizadorTextoEspanol.terminos("luz"), AnalizadorTextoEspanol.terminos("luces"));
+    }
+
+    @Test
+    void noDevuelveTerminosRepetidos() {
+        assertEquals(List.of("charl", "tecnologi"),
+                AnalizadorTextoEspanol.terminos("Charla de tecnología", "charlas, tecnologías"));
+    }
+}
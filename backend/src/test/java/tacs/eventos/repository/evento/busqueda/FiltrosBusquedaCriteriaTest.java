@@ -0,0 +1,69 @@
+package tacs.eventos.repository.evento.busqueda;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import tacs.eventos.model.evento.Evento;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica que los filtros de búsqueda se traduzcan a los Criteria de Mongo esperados.
+ */
+class FiltrosBusquedaCriteriaTest {
+
+    @Test
+    void filtroPorCategoriaFiltraPorIgualdad() {
+        Document criteria = new FiltradoPorCategoria(" Moda ").comoCriteria().orElseThrow().getCriteriaObject();
+        assertEquals("Moda", criteria.get("categoria"));
+    }
+
+    @Test
+    void filtroPorCategoriaVacioNoFiltraNada() {
+        assertTrue(new FiltradoPorCategoria(" ").comoCriteria().orElseThrow().getCriteriaObject().isEmpty());
+    }
+
+    @Test
+    void filtroPorPrecioUsaAmbasCotas() {
+        Document criteria = new FiltradoPorPrecio(10.0, 100.0).comoCriteria().orElseThrow().getCriteriaObject();
+        Document precio = (Document) criteria.get("precio");
+        assertEquals(10.0, precio.get("$gte"));
+        assertEquals(100.0, precio.get("$lte"));
+    }
+
+    @Test
+    void filtroPorFechaSinCotasNoFiltraNada() {
+        var filtro = new FiltradoPorFechaInicio(LocalDate.MIN, LocalDate.MAX);
+        assertTrue(filtro.comoCriteria().orElseThrow().getCriteriaObject().isEmpty());
+    }
+
+    @Test
+    void filtroPorFechaIncluyeElDiaMaximoCompleto() {
+        var filtro = new FiltradoPorFechaInicio(LocalDate.of(2025, 10, 10), LocalDate.of(2025, 10, 31));
+        Document fecha = (Document) filtro.comoCriteria().orElseThrow().getCriteriaObject().get("fechaHoraInicio");
+        assertEquals(LocalDate.of(2025, 10, 10).atStartOfDay(), fecha.get("$gte"));
+        assertEquals(LocalDate.of(2025, 11, 1).atStartOfDay(), fecha.get("$lt"));
+    }
+
+    @Test
+    void filtroPorPalabrasClaveBuscaPrefijosDeLosTerminos() {
+        Document criteria = new FiltradoPorPalabrasClave(List.of("Conciertos", "rock")).comoCriteria().orElseThrow()
+                .getCriteriaObject();
+        List<?> prefijos = (List<?>) ((Document) criteria.get(FiltradoPorPalabrasClave.CAMPO_TERMINOS)).get("$in");
+        assertEquals(List.of("^conciert", "^rock"), prefijos.stream().map(Object::toString).toList());
+    }
+
+    @Test
+    void filtroPorPalabrasClaveMatcheaPalabrasIncompletasYSinAcentos() {
+        Evento evento = new Evento("Festival de Música", "Bandas en vivo", LocalDateTime.now(), 60, "CABA", 10, 100,
+                "Música");
+        assertTrue(new FiltradoPorPalabrasClave(List.of("musica")).aplicarCondicionfiltrado(evento));
+        assertTrue(new FiltradoPorPalabrasClave(List.of("fest")).aplicarCondicionfiltrado(evento));
+        assertTrue(new FiltradoPorPalabrasClave(List.of("banda")).aplicarCondicionfiltrado(evento));
+        assertFalse(new FiltradoPorPalabrasClave(List.of("teatro")).aplicarCondicionfiltrado(evento));
+    }
+}
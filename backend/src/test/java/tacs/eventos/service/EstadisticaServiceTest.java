@@ -0,0 +1,58 @@
+package tacs.eventos.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import tacs.eventos.model.inscripcion.EstadoInscripcion;
+import tacs.eventos.repository.evento.EventosRepository;
+import tacs.eventos.repository.inscripcion.InscripcionesRepository;
+import tacs.eventos.service.cache.CacheEventos;
+import tacs.eventos.service.estadisticas.ContadoresEstadisticas;
+import tacs.eventos.service.estadisticas.ContadoresEstadisticas.Contadores;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class EstadisticaServiceTest {
+    @Mock
+    private EventosRepository eventosRepository;
+    @Mock
+    private InscripcionesRepository inscripcionesRepository;
+    @Mock
+    private CacheEventos cacheEventos;
+    @Mock
+    private ContadoresEstadisticas contadores;
+
+    @InjectMocks
+    private EstadisticaService estadisticaService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void siHayContadoresNoCuentaEnMongo() throws Exception {
+        when(contadores.globales()).thenReturn(Optional
+                .of(new Contadores(3, 7, Map.of(EstadoInscripcion.CONFIRMADA, 5L, EstadoInscripcion.PENDIENTE, 2L))));
+
+        assertEquals(7, estadisticaService.cantidadInscripciones());
+        assertEquals(3, estadisticaService.cantidadEventos());
+        verifyNoInteractions(inscripcionesRepository, eventosRepository);
+    }
+
+    @Test
+    void siTodaviaNoSeCalcularonLosContadoresCuentaEnMongo() throws Exception {
+        when(contadores.globales()).thenReturn(Optional.empty());
+        when(inscripcionesRepository.count()).thenReturn(9L);
+        when(eventosRepository.count()).thenReturn(4L);
+
+        assertEquals(9, estadisticaService.cantidadInscripciones());
+        assertEquals(4, estadisticaService.cantidadEventos());
+    }
+}
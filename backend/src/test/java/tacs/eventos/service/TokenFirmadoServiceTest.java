@@ -0,0 +1,126 @@
+package tacs.eventos.service;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import tacs.eventos.model.RevocacionSesion;
+import tacs.eventos.model.RolUsuario;
+import tacs.eventos.model.Usuario;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TokenFirmadoServiceTest {
+    private static final String SECRETO = "un-secreto-de-prueba-de-al-menos-32-bytes";
+
+    private RedissonClient redisson;
+    private RTopic topico;
+    private MongoTemplate mongoTemplate;
+    private TokenFirmadoService tokens;
+    private final Usuario usuario = new Usuario("user@mail.com", "hash", Set.of(RolUsuario.ORGANIZADOR));
+
+    @BeforeEach
+    void setUp() {
+        redisson = mock(RedissonClient.class);
+        topico = mock(RTopic.class);
+        when(redisson.getTopic(any(), eq(StringCodec.INSTANCE))).thenReturn(topico);
+        mongoTemplate = mock(MongoTemplate.class);
+        tokens = new TokenFirmadoService(redisson, mongoTemplate, "firmado", SECRETO, 15);
+    }
+
+    @Test
+    void elTokenEmitidoSeVerificaSinIrARedis() {
+        String token = tokens.emitir(usuario).getToken();
+        clearInvocations(redisson);
+
+        Usuario autenticado = tokens.verificar(token).orElseThrow();
+
+        assertEquals(usuario.getId(), autenticado.getId());
+        assertEquals("user@mail.com", autenticado.getEmail());
+        assertEquals(Set.of(RolUsuario.ORGANIZADOR), autenticado.getRoles());
+        verifyNoInteractions(redisson);
+    }
+
+    @Test
+    void unTokenFirmadoConOtraClaveNoEsValido() {
+        var otro = new TokenFirmadoService(redisson, mongoTemplate, "firmado", SECRETO + "-distinto", 15);
+        assertTrue(tokens.verificar(otro.emitir(usuario).getToken()).isEmpty());
+    }
+
+    @Test
+    void unTokenRevocadoNoEsValidoYSeAvisaALasDemasInstancias() {
+        String token = tokens.emitir(usuario).getToken();
+
+        tokens.revocar(token);
+
+        assertTrue(tokens.verificar(token).isEmpty());
+        verify(mongoTemplate).save(any(RevocacionSesion.class));
+        verify(topico).publish(startsWith("token:"));
+    }
+
+    @Test
+    void lasRevocacionesSeRecuperanDeMongoAunqueRedisLasHayaPerdido() {
+        String revocado = tokens.emitir(usuario).getToken();
+        Usuario otroUsuario = new Usuario("otro@mail.com", "hash", Set.of(RolUsuario.USUARIO));
+        String deUsuarioRevocado = tokens.emitir(otroUsuario).getToken();
+        String jti = Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRETO.getBytes(StandardCharsets.UTF_8)))
+                .build().parseClaimsJws(revocado).getBody().getId();
+        long vence = System.currentTimeMillis() + 60_000;
+        // Una instancia nueva, que no recibió los avisos del tópico: sólo tiene lo que quedó en Mongo
+        var otraInstancia = new TokenFirmadoService(redisson, mongoTemplate, "firmado", SECRETO, 15);
+        when(mongoTemplate.find(any(Query.class), eq(RevocacionSesion.class))).thenReturn(
+                List.of(new RevocacionSesion("token:" + jti, vence, Instant.ofEpochMilli(vence)), new RevocacionSesion(
+                        "usuario:" + otroUsuario.getId(), System.currentTimeMillis(), Instant.ofEpochMilli(vence))));
+
+        otraInstancia.sincronizarRevocaciones();
+
+        assertTrue(otraInstancia.verificar(revocado).isEmpty());
+        assertTrue(otraInstancia.verificar(deUsuarioRevocado).isEmpty());
+        assertTrue(otraInstancia.verificar(tokens.emitir(usuario).getToken()).isPresent());
+    }
+
+    @Test
+    void alRevocarAlUsuarioSeInvalidanSusTokensAnteriores() {
+        String token = tokens.emitir(usuario).getToken();
+
+        tokens.revocarUsuario(usuario.getId());
+
+        assertTrue(tokens.verificar(token).isEmpty());
+    }
+
+    @Test
+    void unTokenEmitidoDespuesDeRevocarAlUsuarioEsValidoAunqueSeaEnElMismoSegundo() throws InterruptedException {
+        tokens.revocarUsuario(usuario.getId());
+        Thread.sleep(2);
+
+        String token = tokens.emitir(usuario).getToken();
+
+        assertTrue(tokens.verificar(token).isPresent());
+    }
+
+    @Test
+    void enModoOpacoNoSeConsideranTokensFirmados() {
+        var opaco = new TokenFirmadoService(redisson, mongoTemplate, "opaco", "", 15);
+        assertFalse(opaco.habilitado());
+        assertFalse(opaco.esTokenFirmado(tokens.emitir(usuario).getToken()));
+    }
+
+    @Test
+    void siElSecretoEsMuyCortoNoArranca() {
+        assertThrows(IllegalStateException.class,
+                () -> new TokenFirmadoService(redisson, mongoTemplate, "firmado", "corto", 15));
+    }
+}
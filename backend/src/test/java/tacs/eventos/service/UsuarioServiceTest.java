@@ -1,9 +1,11 @@
 package tacs.eventos.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
@@ -18,6 +20,7 @@ import tacs.eventos.model.inscripcion.InscripcionEvento;
 import tacs.eventos.model.inscripcion.InscripcionFactory;
 import tacs.eventos.repository.inscripcion.InscripcionesRepository;
 import tacs.eventos.repository.usuario.UsuarioRepository;
+import tacs.eventos.service.auth.HasheadorContrasenias;
 
 import java.util.HashSet;
 import java.util.List;
@@ -45,7 +48,9 @@ class UsuarioServiceTest {
         inscripcionesRepository = mock(InscripcionesRepository.class);
         passwordEncoder = mock(PasswordEncoder.class);
 
-        usuarioService = new UsuarioService(usuarioRepository, inscripcionesRepository, passwordEncoder);
+        usuarioService = new UsuarioService(usuarioRepository, inscripcionesRepository,
+                new HasheadorContrasenias(passwordEncoder, new SimpleMeterRegistry(), 1, 4, 1000),
+                mock(SessionService.class));
     }
 
     @Test
@@ -54,7 +59,6 @@ class UsuarioServiceTest {
         String password = "password123";
         String encodedPassword = "encodedPassword";
 
-        when(usuarioRepository.findByEmail(email)).thenReturn(Optional.empty());
         when(passwordEncoder.encode(password)).thenReturn(encodedPassword);
 
         Usuario usuario = usuarioService.registrar(email, password);
@@ -62,7 +66,7 @@ class UsuarioServiceTest {
         assertEquals(email, usuario.getEmail());
         assertTrue(usuario.getRoles().contains(RolUsuario.USUARIO));
 
-        verify(usuarioRepository).save(usuario);
+        verify(usuarioRepository).insert(usuario);
     }
 
     @Test
@@ -70,8 +74,8 @@ class UsuarioServiceTest {
         String email = "test@example.com";
         String password = "password123";
 
-        when(usuarioRepository.findByEmail(email))
-                .thenReturn(Optional.of(new Usuario(email, password, Set.of(RolUsuario.USUARIO))));
+        // El índice único rechaza el insert
+        when(usuarioRepository.insert(any(Usuario.class))).thenThrow(new DuplicateKeyException("E11000"));
 
         Exception exception = assertThrows(IllegalArgumentException.class,
                 () -> usuarioService.registrar(email, password));
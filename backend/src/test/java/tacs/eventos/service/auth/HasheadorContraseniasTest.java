@@ -0,0 +1,93 @@
+package tacs.eventos.service.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import tacs.eventos.controller.error.handlers.ServicioSaturadoHandler;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class HasheadorContraseniasTest {
+    private PasswordEncoder encoder;
+    private SimpleMeterRegistry metricas;
+    private HasheadorContrasenias hasheador;
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private final CountDownLatch arranco = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        encoder = mock(PasswordEncoder.class);
+        metricas = new SimpleMeterRegistry();
+        hasheador = new HasheadorContrasenias(encoder, metricas, 1, 1, 5000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        liberar.countDown();
+        hasheador.cerrar();
+    }
+
+    private void bloquearElPool() throws InterruptedException {
+        when(encoder.matches("lenta", "hash")).thenAnswer(inv -> {
+            arranco.countDown();
+            while (true) { // Como BCrypt, no se puede interrumpir
+                try {
+                    liberar.await();
+                    return true;
+                } catch (InterruptedException e) {
+                    // sigue esperando
+                }
+            }
+        });
+        CompletableFuture.runAsync(() -> hasheador.coincide("lenta", "hash"));
+        assertTrue(arranco.await(1, TimeUnit.SECONDS));
+    }
+
+    /* Ocupa el único lugar de la cola */
+    private void llenarLaCola() throws InterruptedException {
+        CompletableFuture.runAsync(() -> hasheador.coincide("encolada", "hash"));
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (metricas.get("auth.hash.pendientes").gauge().value() < 1 && System.nanoTime() < limite)
+            Thread.sleep(5);
+    }
+
+    @Test
+    void verificaLaContraseniaEnElPool() {
+        when(encoder.matches("pass", "hash")).thenReturn(true);
+
+        assertTrue(hasheador.coincide("pass", "hash"));
+        assertFalse(hasheador.coincide("otra", "hash"));
+    }
+
+    @Test
+    void siElPoolYLaColaEstanLlenosFallaEnseguida() throws InterruptedException {
+        bloquearElPool();
+        llenarLaCola();
+
+        assertThrows(ServicioSaturadoHandler.class, () -> hasheador.coincide("pass", "hash"));
+        assertEquals(1, metricas.counter("auth.hash.rechazados").count());
+    }
+
+    @Test
+    void siElHashNoSeCalculaATiempoFalla() throws InterruptedException {
+        hasheador = new HasheadorContrasenias(encoder, new SimpleMeterRegistry(), 1, 10, 50);
+        bloquearElPool();
+
+        assertThrows(ServicioSaturadoHandler.class, () -> hasheador.coincide("pass", "hash"));
+    }
+
+    @Test
+    void siElPoolEstaSaturadoNoSeRecalculaElHash() throws InterruptedException {
+        bloquearElPool();
+        llenarLaCola();
+
+        assertDoesNotThrow(() -> hasheador.codificarEnSegundoPlano("pass", hash -> fail()));
+    }
+}
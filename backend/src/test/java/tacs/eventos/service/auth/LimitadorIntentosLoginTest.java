@@ -0,0 +1,38 @@
+package tacs.eventos.service.auth;
+
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class LimitadorIntentosLoginTest {
+    private LimitadorIntentosLogin limitador(List<String> clientesSinLimitePorIp) {
+        return new LimitadorIntentosLogin(mock(RedissonClient.class), 30, 60, 5, 900, clientesSinLimitePorIp);
+    }
+
+    @Test
+    void losClientesListadosPorNombreOIpNoTienenLimitePorIp() {
+        var limitador = limitador(List.of("localhost", " 10.0.0.7 "));
+
+        assertTrue(limitador.sinLimitePorIp("127.0.0.1"));
+        assertTrue(limitador.sinLimitePorIp("10.0.0.7"));
+        assertFalse(limitador.sinLimitePorIp("10.0.0.8"));
+    }
+
+    @Test
+    void sinClientesListadosTodasLasIpsTienenLimite() {
+        assertFalse(limitador(List.of()).sinLimitePorIp("127.0.0.1"));
+    }
+
+    @Test
+    void unClienteQueNoSePuedeResolverSeIgnora() {
+        var limitador = limitador(List.of("no-existe.invalid", "10.0.0.7"));
+
+        assertTrue(limitador.sinLimitePorIp("10.0.0.7"));
+        assertFalse(limitador.sinLimitePorIp("127.0.0.1"));
+    }
+}
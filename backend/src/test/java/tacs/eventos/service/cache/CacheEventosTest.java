@@ -0,0 +1,97 @@
+package tacs.eventos.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.test.util.ReflectionTestUtils;
+import tacs.eventos.model.evento.Evento;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CacheEventosTest {
+    private RTopic topico;
+    private SimpleMeterRegistry metricas;
+    private CacheEventos cache;
+    private final Evento evento = new Evento("Concierto", "Rock", LocalDateTime.now(), 60, "CABA", 10, 100, "Música");
+    private final AtomicInteger lecturas = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        RedissonClient redisson = mock(RedissonClient.class);
+        topico = mock(RTopic.class);
+        when(redisson.getTopic(any(), eq(StringCodec.INSTANCE))).thenReturn(topico);
+        metricas = new SimpleMeterRegistry();
+        cache = new CacheEventos(redisson, metricas, 100, 60);
+    }
+
+    private Optional<Evento> cargar(String id) {
+        lecturas.incrementAndGet();
+        return id.equals(evento.getId()) ? Optional.of(evento) : Optional.empty();
+    }
+
+    @Test
+    void laSegundaBusquedaNoVuelveAlRepositorio() {
+        assertEquals(evento, cache.buscar(evento.getId(), this::cargar).orElseThrow());
+        assertEquals(evento, cache.buscar(evento.getId(), this::cargar).orElseThrow());
+        assertEquals(1, lecturas.get());
+        assertEquals(1.0,
+                metricas.get("cache.gets").tag("cache", "eventos").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void devuelveCopiasDelEvento() {
+        cache.buscar(evento.getId(), this::cargar).orElseThrow().cerrarEvento();
+        assertTrue(cache.buscar(evento.getId(), this::cargar).orElseThrow().permiteInscripcion(0));
+    }
+
+    @Test
+    void losEventosInexistentesNoSeCachean() {
+        assertTrue(cache.buscar("no-existe", this::cargar).isEmpty());
+        assertTrue(cache.buscar("no-existe", this::cargar).isEmpty());
+        assertEquals(2, lecturas.get());
+    }
+
+    @Test
+    void invalidarSacaElEventoYAvisaALasDemasInstancias() {
+        cache.buscar(evento.getId(), this::cargar);
+        cache.invalidar(evento.getId());
+        cache.buscar(evento.getId(), this::cargar);
+        assertEquals(2, lecturas.get());
+        verify(topico).publish(evento.getId());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void unaInvalidacionDeOtraInstanciaSacaElEvento() {
+        var listener = ArgumentCaptor.forClass(MessageListener.class);
+        verify(topico).addListener(eq(String.class), listener.capture());
+
+        cache.buscar(evento.getId(), this::cargar);
+        listener.getValue().onMessage("canal", evento.getId());
+        cache.buscar(evento.getId(), this::cargar);
+        assertEquals(2, lecturas.get());
+    }
+
+    @Test
+    void laVersionSoloSeConoceSiElEventoEstaEnLaCache() {
+        ReflectionTestUtils.setField(evento, "version", 4L); // La asigna Spring Data al guardar
+        assertTrue(cache.versionEnCache(evento.getId()).isEmpty());
+
+        cache.buscar(evento.getId(), this::cargar);
+
+        assertEquals(Optional.of(4L), cache.versionEnCache(evento.getId()));
+        assertEquals(1, lecturas.get());
+    }
+}
@@ -0,0 +1,92 @@
+package tacs.eventos.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.redisson.client.codec.StringCodec;
+import tacs.eventos.model.RolUsuario;
+import tacs.eventos.model.Usuario;
+import tacs.eventos.service.cache.CacheSesiones.SesionCacheada;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CacheSesionesTest {
+    private RTopic topicoTokens;
+    private RTopic topicoUsuarios;
+    private CacheSesiones cache;
+    private final Usuario usuario = new Usuario("user@mail.com", "hash", Set.of(RolUsuario.USUARIO));
+    private final AtomicInteger validaciones = new AtomicInteger();
+    private Instant venceEn = Instant.now().plusSeconds(300);
+
+    @BeforeEach
+    void setUp() {
+        RedissonClient redisson = mock(RedissonClient.class);
+        topicoTokens = mock(RTopic.class);
+        topicoUsuarios = mock(RTopic.class);
+        when(redisson.getTopic(eq("sesion:cache:invalidacion:token"), eq(StringCodec.INSTANCE)))
+                .thenReturn(topicoTokens);
+        when(redisson.getTopic(eq("sesion:cache:invalidacion:usuario"), eq(StringCodec.INSTANCE)))
+                .thenReturn(topicoUsuarios);
+        cache = new CacheSesiones(redisson, new SimpleMeterRegistry(), 100, 60);
+    }
+
+    private Optional<SesionCacheada> validar(String token) {
+        validaciones.incrementAndGet();
+        return token.equals("tok") ? Optional.of(new SesionCacheada(usuario, venceEn)) : Optional.empty();
+    }
+
+    @Test
+    void laSegundaValidacionNoVuelveARedisNiAMongo() {
+        assertEquals(usuario, cache.buscar("tok", this::validar).orElseThrow());
+        assertEquals(usuario, cache.buscar("tok", this::validar).orElseThrow());
+        assertEquals(1, validaciones.get());
+    }
+
+    @Test
+    void lasSesionesInvalidasNoSeCachean() {
+        assertTrue(cache.buscar("otro", this::validar).isEmpty());
+        assertTrue(cache.buscar("otro", this::validar).isEmpty());
+        assertEquals(2, validaciones.get());
+    }
+
+    @Test
+    void unaSesionVencidaNoSeAceptaAunqueEsteEnLaCache() {
+        venceEn = Instant.now().minusSeconds(1);
+        assertTrue(cache.buscar("tok", this::validar).isEmpty());
+    }
+
+    @Test
+    void alCerrarLaSesionSeAvisaALasDemasInstancias() {
+        cache.buscar("tok", this::validar);
+        cache.invalidarToken("tok");
+
+        verify(topicoTokens).publish("tok");
+        cache.buscar("tok", this::validar);
+        assertEquals(2, validaciones.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void siOtraInstanciaCambiaLosRolesDelUsuarioSeSacanSusSesiones() {
+        ArgumentCaptor<MessageListener<String>> listener = ArgumentCaptor.forClass(MessageListener.class);
+        verify(topicoUsuarios).addListener(eq(String.class), listener.capture());
+        cache.buscar("tok", this::validar);
+
+        listener.getValue().onMessage("sesion:cache:invalidacion:usuario", usuario.getId());
+
+        cache.buscar("tok", this::validar);
+        assertEquals(2, validaciones.get());
+    }
+}
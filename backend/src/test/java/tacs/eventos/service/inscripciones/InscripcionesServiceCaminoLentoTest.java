@@ -0,0 +1,74 @@
+package tacs.eventos.service.inscripciones;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tacs.eventos.model.RolUsuario;
+import tacs.eventos.model.Usuario;
+import tacs.eventos.model.evento.Evento;
+import tacs.eventos.model.inscripcion.EstadoInscripcion;
+import tacs.eventos.model.inscripcion.InscripcionEvento;
+import tacs.eventos.model.waitlist.Waitlist;
+import tacs.eventos.repository.inscripcion.InscripcionesRepository;
+import tacs.eventos.service.WaitlistService;
+import tacs.eventos.service.estadisticas.ContadoresEstadisticas;
+import tacs.eventos.service.tareas.EjecutorTareasPorEvento;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Inscripciones por el camino lento: cuando los cupos o la waitlist del evento todavía no están en Redis.
+ */
+class InscripcionesServiceCaminoLentoTest {
+    private final Evento evento = new Evento("Concierto", "Un concierto", LocalDateTime.of(2030, 5, 1, 20, 0), 120,
+            "Teatro", 1, 50.0, "Musica");
+    private final Usuario usuario = new Usuario("nuevo@mail.com", "hash", Set.of(RolUsuario.USUARIO));
+    private InscripcionesRepository inscripcionesRepository;
+    private CupoEventoService cupoEventoService;
+    private Waitlist waitlist;
+    private EjecutorTareasPorEvento ejecutorTareas;
+    private InscripcionesService inscripcionesService;
+
+    @BeforeEach
+    void setUp() {
+        inscripcionesRepository = mock(InscripcionesRepository.class);
+        cupoEventoService = mock(CupoEventoService.class);
+        waitlist = mock(Waitlist.class);
+        ejecutorTareas = mock(EjecutorTareasPorEvento.class);
+        WaitlistService waitlistService = mock(WaitlistService.class);
+        when(waitlistService.waitlist(evento)).thenReturn(waitlist);
+        when(cupoEventoService.cuposEnRedis()).thenReturn(false);
+        when(cupoEventoService.obtenerCupo(evento)).thenReturn(true);
+        inscripcionesService = new InscripcionesService(inscripcionesRepository, waitlistService, cupoEventoService,
+                mock(InscripcionAtomicaRedis.class), ejecutorTareas, mock(ContadoresEstadisticas.class),
+                new MetricasInscripciones(new SimpleMeterRegistry(), 10, 600));
+    }
+
+    @Test
+    void conUnLugarLibreYSinPendientesAnterioresConfirma() {
+        var inscripcion = inscripcionesService.inscribirOMandarAWaitlist(evento, usuario);
+
+        assertTrue(inscripcion.isPresent());
+        assertEquals(EstadoInscripcion.CONFIRMADA, inscripcion.get().getEstado());
+        verify(waitlist, never()).agregar(anyString());
+    }
+
+    @Test
+    void conPendientesAnterioresVaALaWaitlistAunqueHayaUnLugarLibre() {
+        when(inscripcionesRepository.existsByEventoIdAndEstadoAndFechaHoraIngresoAWaitlistLessThan(eq(evento.getId()),
+                eq(EstadoInscripcion.PENDIENTE), any(LocalDateTime.class))).thenReturn(true);
+
+        var inscripcion = inscripcionesService.inscribirOMandarAWaitlist(evento, usuario);
+
+        assertTrue(inscripcion.isEmpty());
+        verify(cupoEventoService, never()).obtenerCupo(evento);
+        verify(waitlist).agregar(anyString());
+        // El lugar libre lo toma la primera de la waitlist
+        verify(ejecutorTareas).ejecutar(eq(evento.getId()), eq("promover-waitlist"), any(Runnable.class));
+    }
+}
@@ -0,0 +1,70 @@
+package tacs.eventos.service.inscripciones;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tacs.eventos.service.inscripciones.MetricasInscripciones.Etapa;
+import tacs.eventos.service.inscripciones.MetricasInscripciones.Resultado;
+import tacs.eventos.service.inscripciones.MetricasInscripciones.TipoInicializacion;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricasInscripcionesTest {
+    private SimpleMeterRegistry registry;
+    private MetricasInscripciones metricas;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metricas = new MetricasInscripciones(registry, 2, 600);
+    }
+
+    @Test
+    void cuentaLosResultadosPorEvento() {
+        metricas.resultado(Resultado.CONFIRMADA, "e1");
+        metricas.resultado(Resultado.CONFIRMADA, "e1");
+        metricas.resultado(Resultado.DUPLICADA, "e1");
+
+        assertEquals(2, registry.get("inscripciones.resultado").tags("resultado", "confirmada", "evento", "e1")
+                .counter().count());
+        assertEquals(1, registry.get("inscripciones.resultado").tags("resultado", "duplicada", "evento", "e1").counter()
+                .count());
+    }
+
+    @Test
+    void pasadoElMaximoDeEventosLosDemasSeEtiquetanComoOtros() {
+        metricas.medir(Etapa.CUPO, "e1", () -> true);
+        metricas.medir(Etapa.CUPO, "e2", () -> true);
+        metricas.medir(Etapa.CUPO, "e3", () -> true);
+        metricas.medir(Etapa.CUPO, "e4", () -> true);
+
+        assertEquals(1, registry.get("inscripciones.etapa.duracion").tag("evento", "e2").timer().count());
+        assertEquals(2, registry.get("inscripciones.etapa.duracion").tag("evento", MetricasInscripciones.OTROS_EVENTOS)
+                .timer().count());
+        assertEquals(3, registry.get("inscripciones.etapa.duracion").timers().size());
+    }
+
+    @Test
+    void unEventoNuevoDesplazaAlQueHaceMasQueNoSeUsaYSeBorranSusSeries() {
+        var metricas = new MetricasInscripciones(registry, 2, 0);
+        metricas.resultado(Resultado.CONFIRMADA, "e1");
+        metricas.resultado(Resultado.CONFIRMADA, "e2");
+        metricas.resultado(Resultado.CONFIRMADA, "e1");
+
+        metricas.resultado(Resultado.CONFIRMADA, "e3");
+
+        assertEquals(2, registry.get("inscripciones.resultado").tag("evento", "e1").counter().count());
+        assertEquals(1, registry.get("inscripciones.resultado").tag("evento", "e3").counter().count());
+        assertNull(registry.find("inscripciones.resultado").tag("evento", "e2").counter());
+        assertEquals(0, registry.find("inscripciones.resultado").tag("evento", MetricasInscripciones.OTROS_EVENTOS)
+                .counters().size());
+    }
+
+    @Test
+    void lasInicializacionesSeCuentanMientrasDuran() {
+        metricas.inicializando(TipoInicializacion.CUPOS, () -> assertEquals(1,
+                registry.get("inscripciones.inicializaciones.en_curso").tag("tipo", "cupos").gauge().value()));
+
+        assertEquals(0, registry.get("inscripciones.inicializaciones.en_curso").tag("tipo", "cupos").gauge().value());
+    }
+}
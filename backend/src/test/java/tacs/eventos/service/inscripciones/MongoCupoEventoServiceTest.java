@@ -0,0 +1,101 @@
+package tacs.eventos.service.inscripciones;
+
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import tacs.eventos.model.evento.Evento;
+import tacs.eventos.model.inscripcion.EstadoInscripcion;
+import tacs.eventos.repository.inscripcion.InscripcionesRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MongoCupoEventoServiceTest {
+    private static final String COLECCION = MongoCupoEventoService.COLECCION;
+
+    private MongoTemplate mongoTemplate;
+    private InscripcionesRepository inscripcionesRepository;
+    private MongoCupoEventoService cupos;
+    private final Evento evento = new Evento("Recital", "descripcion", LocalDateTime.now().plusDays(1), 60, "Estadio",
+            10, 0.0, "Musica");
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        inscripcionesRepository = mock(InscripcionesRepository.class);
+        cupos = new MongoCupoEventoService(mongoTemplate, inscripcionesRepository,
+                new MetricasInscripciones(new SimpleMeterRegistry(), 200, 600));
+    }
+
+    private void tomarCupoModifica(long... modificados) {
+        var stub = when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(COLECCION)));
+        for (long modificado : modificados)
+            stub = stub.thenReturn(UpdateResult.acknowledged(modificado, modificado, null));
+    }
+
+    @Test
+    void tomaElCupoConUnSoloUpdateQueIncrementaSiLasConfirmadasEstanPorDebajoDelCupo() {
+        tomarCupoModifica(1);
+
+        assertTrue(cupos.obtenerCupo(evento));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(COLECCION));
+        assertEquals(new Document("$lt", List.of("$confirmadas", "$cupoMaximo")),
+                ((AggregationExpression) query.getValue().getQueryObject().get("$expr"))
+                        .toDocument(Aggregation.DEFAULT_CONTEXT));
+        assertEquals(new Document("$inc", new Document("confirmadas", 1)), update.getValue().getUpdateObject());
+        verifyNoInteractions(inscripcionesRepository);
+    }
+
+    @Test
+    void siLosCuposNoEstanInicializadosLosCuentaEnMongoYVuelveAIntentar() {
+        tomarCupoModifica(0, 1);
+        when(mongoTemplate.exists(any(Query.class), eq(COLECCION))).thenReturn(false);
+        when(inscripcionesRepository.countByEventoIdAndEstado(evento.getId(), EstadoInscripcion.CONFIRMADA))
+                .thenReturn(4);
+
+        assertTrue(cupos.obtenerCupo(evento));
+
+        ArgumentCaptor<Document> creado = ArgumentCaptor.forClass(Document.class);
+        verify(mongoTemplate).insert(creado.capture(), eq(COLECCION));
+        assertEquals(new Document("_id", evento.getId()).append("confirmadas", 4).append("cupoMaximo", 10),
+                creado.getValue());
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), any(Update.class), eq(COLECCION));
+    }
+
+    @Test
+    void conElEventoLlenoRechazaSinVolverABuscarElDocumentoNiContar() {
+        tomarCupoModifica(0);
+        when(mongoTemplate.exists(any(Query.class), eq(COLECCION))).thenReturn(true);
+
+        assertFalse(cupos.obtenerCupo(evento));
+        assertFalse(cupos.obtenerCupo(evento));
+
+        verify(mongoTemplate, times(1)).exists(any(Query.class), eq(COLECCION));
+        verifyNoInteractions(inscripcionesRepository);
+    }
+
+    @Test
+    void alCambiarElCupoMaximoDevuelveLaDiferenciaConElAnterior() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Document.class), eq(COLECCION))).thenReturn(
+                        new Document("_id", evento.getId()).append("confirmadas", 10).append("cupoMaximo", 7));
+
+        assertEquals(3, cupos.reconciliarCupoMaximo(evento));
+    }
+}
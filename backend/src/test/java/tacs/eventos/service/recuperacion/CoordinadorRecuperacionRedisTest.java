@@ -0,0 +1,103 @@
+package tacs.eventos.service.recuperacion;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import tacs.eventos.model.evento.Evento;
+import tacs.eventos.repository.evento.EventosRepository;
+import tacs.eventos.repository.inscripcion.InscripcionesRepository;
+import tacs.eventos.service.cache.VersionColeccionEventos;
+import tacs.eventos.service.inscripciones.CupoEventoService;
+import tacs.eventos.service.waitlist.redis.RedisWaitlistService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class CoordinadorRecuperacionRedisTest {
+    private final LocalDateTime ahora = LocalDateTime.now();
+    private InscripcionesRepository inscripcionesRepository;
+    private EventosRepository eventosRepository;
+    private CupoEventoService cupoEventoService;
+    private RedisWaitlistService waitlistService;
+    private VersionColeccionEventos versionColeccion;
+    private SimpleMeterRegistry registry;
+    private CoordinadorRecuperacionRedis coordinador;
+
+    @BeforeEach
+    void setUp() {
+        inscripcionesRepository = mock(InscripcionesRepository.class);
+        eventosRepository = mock(EventosRepository.class);
+        cupoEventoService = mock(CupoEventoService.class);
+        waitlistService = mock(RedisWaitlistService.class);
+        versionColeccion = mock(VersionColeccionEventos.class);
+        registry = new SimpleMeterRegistry();
+        // Con un solo hilo, los eventos se reconstruyen en el orden de prioridad
+        coordinador = new CoordinadorRecuperacionRedis(inscripcionesRepository, eventosRepository, cupoEventoService,
+                waitlistService, versionColeccion, registry, 1);
+    }
+
+    private Evento evento(String titulo, LocalDateTime inicio) {
+        return new Evento(titulo, "descripcion", inicio, 60, "lugar", 10, 0.0, "categoria");
+    }
+
+    @Test
+    void reconstruyePrimeroLosAbiertosQueEmpiezanAntesYDespuesLosDemas() {
+        Evento cerrado = evento("cerrado", ahora.plusDays(1));
+        cerrado.cerrarEvento();
+        Evento yaEmpezado = evento("ya empezado", ahora.minusDays(1));
+        Evento enUnMes = evento("en un mes", ahora.plusDays(30));
+        Evento manana = evento("mañana", ahora.plusDays(1));
+        when(inscripcionesRepository.idsEventosConInscripciones())
+                .thenReturn(Stream.of(cerrado.getId(), yaEmpezado.getId(), enUnMes.getId(), manana.getId()));
+        when(eventosRepository.findAllById(anyCollection())).thenReturn(List.of(cerrado, yaEmpezado, enUnMes, manana));
+
+        coordinador.recuperar();
+
+        InOrder orden = inOrder(cupoEventoService);
+        for (Evento evento : List.of(manana, enUnMes, yaEmpezado, cerrado))
+            orden.verify(cupoEventoService).inicializarSiFalta(evento);
+        verify(waitlistService, times(4)).inicializarSiFalta(any());
+        verify(versionColeccion).asegurarMinimo(anyLong());
+        assertEquals(1, registry.get("redis.recuperacion.duracion").timer().count());
+    }
+
+    @Test
+    void siFallaUnEventoSigueConLosDemas() {
+        Evento primero = evento("primero", ahora.plusDays(1));
+        Evento segundo = evento("segundo", ahora.plusDays(2));
+        when(inscripcionesRepository.idsEventosConInscripciones())
+                .thenReturn(Stream.of(primero.getId(), segundo.getId()));
+        when(eventosRepository.findAllById(anyCollection())).thenReturn(List.of(primero, segundo));
+        doThrow(new IllegalStateException("Redis no responde")).when(cupoEventoService).inicializarSiFalta(primero);
+
+        coordinador.recuperar();
+
+        verify(waitlistService).inicializarSiFalta(segundo);
+        assertEquals(1, registry.get("redis.recuperacion.eventos").tag("resultado", "error").counter().count());
+        assertEquals(1, registry.get("redis.recuperacion.eventos").tag("resultado", "ok").counter().count());
+        assertEquals(0, registry.get("redis.recuperacion.eventos.pendientes").gauge().value());
+    }
+
+    @Test
+    void siRedisVuelveAPerderLosDatosDuranteLaRecuperacionVuelveARecuperarAlTerminar() {
+        Evento evento = evento("evento", ahora.plusDays(1));
+        when(inscripcionesRepository.idsEventosConInscripciones()).thenAnswer(i -> Stream.of(evento.getId()));
+        when(eventosRepository.findAllById(anyCollection())).thenReturn(List.of(evento));
+        // Mientras reconstruye el evento por primera vez, se detecta otro flush
+        doAnswer(i -> {
+            coordinador.recuperarEnSegundoPlano();
+            return null;
+        }).doNothing().when(cupoEventoService).inicializarSiFalta(evento);
+
+        coordinador.recuperarEnSegundoPlano();
+
+        verify(cupoEventoService, timeout(5000).times(2)).inicializarSiFalta(evento);
+        verify(versionColeccion, timeout(5000).times(2)).asegurarMinimo(anyLong());
+    }
+}
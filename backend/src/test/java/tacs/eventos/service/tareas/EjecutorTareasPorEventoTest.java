@@ -0,0 +1,143 @@
+package tacs.eventos.service.tareas;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class EjecutorTareasPorEventoTest {
+    private final SimpleMeterRegistry metricas = new SimpleMeterRegistry();
+
+    @Test
+    void lasTareasDeUnMismoEventoNoSeIntercalan() {
+        var ejecutor = new EjecutorTareasPorEvento(metricas, 1000, 16);
+        AtomicInteger enEjecucion = new AtomicInteger();
+        AtomicInteger maximoEnParalelo = new AtomicInteger();
+        AtomicInteger terminadas = new AtomicInteger();
+
+        for (int i = 0; i < 20; i++) {
+            ejecutor.ejecutar("evento", "tarea-" + i, () -> {
+                maximoEnParalelo.accumulateAndGet(enEjecucion.incrementAndGet(), Math::max);
+                dormir(5);
+                enEjecucion.decrementAndGet();
+                terminadas.incrementAndGet();
+            });
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> terminadas.get() == 20);
+        assertEquals(1, maximoEnParalelo.get());
+    }
+
+    @Test
+    void lasTareasDeUnEventoSeEjecutanEnOrden() {
+        var ejecutor = new EjecutorTareasPorEvento(metricas, 1000, 16);
+        List<Integer> orden = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            int numero = i;
+            ejecutor.ejecutar("evento", "tarea-" + i, () -> orden.add(numero));
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> orden.size() == 10);
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), orden);
+    }
+
+    @Test
+    void siYaHayUnaTareaDelMismoTipoEsperandoNoSeEncolaOtra() throws InterruptedException {
+        var ejecutor = new EjecutorTareasPorEvento(metricas, 1000, 16);
+        CountDownLatch bloqueo = new CountDownLatch(1);
+        AtomicInteger promociones = new AtomicInteger();
+
+        ejecutor.ejecutar("evento", "bloqueante", () -> esperar(bloqueo));
+        for (int i = 0; i < 5; i++)
+            ejecutor.ejecutar("evento", "promover", promociones::incrementAndGet);
+        bloqueo.countDown();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> promociones.get() == 1);
+        Thread.sleep(50);
+        assertEquals(1, promociones.get());
+        assertEquals(4, metricas.counter("eventos.tareas.descartadas", "tipo", "promover").count());
+    }
+
+    @Test
+    void siLaColaEstaLlenaLasTareasDeEventosSinColaSePosterganYLasDemasSeEncolanSinIntercalarse() {
+        var ejecutor = new EjecutorTareasPorEvento(metricas, 1, 16);
+        CountDownLatch bloqueo = new CountDownLatch(1);
+        AtomicInteger enEjecucion = new AtomicInteger();
+        AtomicInteger maximoEnParalelo = new AtomicInteger();
+        AtomicInteger terminadas = new AtomicInteger();
+        AtomicInteger postergadas = new AtomicInteger();
+
+        CountDownLatch arranco = new CountDownLatch(1);
+        ejecutor.ejecutar("evento", "bloqueante", () -> {
+            maximoEnParalelo.accumulateAndGet(enEjecucion.incrementAndGet(), Math::max);
+            arranco.countDown();
+            esperar(bloqueo);
+            enEjecucion.decrementAndGet();
+        });
+        esperar(arranco); // Hasta que la bloqueante salga de la cola, ocupa el único lugar
+        ejecutor.ejecutar("evento", "ocupa-la-cola", terminadas::incrementAndGet);
+        // Con la cola llena: la del evento que ya tiene cola espera su turno, la del otro evento se posterga
+        ejecutor.ejecutar("evento", "promover", () -> {
+            maximoEnParalelo.accumulateAndGet(enEjecucion.incrementAndGet(), Math::max);
+            enEjecucion.decrementAndGet();
+            terminadas.incrementAndGet();
+        });
+        ejecutor.ejecutar("otro-evento", "promover", postergadas::incrementAndGet);
+        assertEquals(0, terminadas.get());
+        assertEquals(0, postergadas.get());
+        bloqueo.countDown();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> terminadas.get() == 2);
+        assertEquals(1, maximoEnParalelo.get());
+        assertEquals(1, metricas.counter("eventos.tareas.postergadas", "tipo", "promover").count());
+        // Aunque no llegue ninguna otra tarea, la postergada corre cuando se libera lugar
+        await().atMost(5, TimeUnit.SECONDS).until(() -> postergadas.get() == 1);
+    }
+
+    @Test
+    void unaPromocionPostergadaVariasVecesCorreUnaSolaVez() throws InterruptedException {
+        var ejecutor = new EjecutorTareasPorEvento(metricas, 1, 16);
+        CountDownLatch bloqueo = new CountDownLatch(1);
+        CountDownLatch arranco = new CountDownLatch(1);
+        AtomicInteger promociones = new AtomicInteger();
+
+        ejecutor.ejecutar("evento", "bloqueante", () -> {
+            arranco.countDown();
+            esperar(bloqueo);
+        });
+        esperar(arranco);
+        ejecutor.ejecutar("evento", "ocupa-la-cola", () -> {
+        });
+        for (int i = 0; i < 3; i++)
+            ejecutor.ejecutar("otro-evento", "promover", promociones::incrementAndGet);
+        bloqueo.countDown();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> promociones.get() == 1);
+        Thread.sleep(50);
+        assertEquals(1, promociones.get());
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package tacs.eventos.service.waitlist.redis;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tacs.eventos.model.evento.Evento;
+import tacs.eventos.redis_utils.FlagsInicializacionRedis;
+import tacs.eventos.repository.inscripcion.InscripcionesRepository;
+import tacs.eventos.repository.inscripcion.PendienteEnWaitlist;
+import tacs.eventos.service.inscripciones.MetricasInscripciones;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static tacs.eventos.redis_utils.EstadoInicializacionRedis.LISTO;
+
+class InicializacionWaitlistRedisServiceTest {
+    private final Evento evento = new Evento("Concierto", "Un concierto", LocalDateTime.of(2030, 5, 1, 20, 0), 120,
+            "Teatro", 100, 50.0, "Musica");
+    private InscripcionesRepository inscripcionesRepository;
+    private FlagsInicializacionRedis flags;
+    private WaitlistRedisOrdenada waitlist;
+    private InicializacionWaitlistRedisService inicializacion;
+
+    @BeforeEach
+    void setUp() {
+        inscripcionesRepository = mock(InscripcionesRepository.class);
+        flags = mock(FlagsInicializacionRedis.class);
+        waitlist = mock(WaitlistRedisOrdenada.class);
+        when(flags.tomarInicializacion(anyString(), any(Duration.class))).thenReturn(true);
+        inicializacion = new InicializacionWaitlistRedisService(inscripcionesRepository, flags, null,
+                new MetricasInscripciones(new SimpleMeterRegistry(), 10, 600));
+    }
+
+    @Test
+    void sinPendientesQuedaListaSinAgregarNada() {
+        when(waitlist.checkpoint()).thenReturn(Optional.empty());
+        when(inscripcionesRepository.pendientesEnWaitlistPosteriores(evento.getId(), null))
+                .thenAnswer(i -> Stream.empty());
+
+        inicializacion.inicializarWaitlist(evento, waitlist);
+
+        verify(waitlist, never()).agregarLote(anyList(), anyString());
+        verify(flags).setEstadoInicializacion(InicializacionWaitlistRedisService.flagInicializacionCola(evento), LISTO);
+    }
+
+    @Test
+    void retomaUnPocoAntesDelCheckpointYLoActualizaConLaUltimaAgregada() {
+        Instant fechaCheckpoint = Instant.ofEpochMilli(100_000);
+        PendienteEnWaitlist ultimaAgregada = new PendienteEnWaitlist("i1", fechaCheckpoint);
+        PendienteEnWaitlist nueva = new PendienteEnWaitlist("i2", Instant.ofEpochMilli(200_000));
+        when(waitlist.checkpoint()).thenReturn(Optional.of("100000|i1")).thenReturn(Optional.of("200000|i2"));
+        when(inscripcionesRepository.pendientesEnWaitlistPosteriores(evento.getId(),
+                new PendienteEnWaitlist("i1",
+                        fechaCheckpoint.minus(InicializacionWaitlistRedisService.VENTANA_RELECTURA))))
+                                .thenAnswer(i -> Stream.of(ultimaAgregada, nueva));
+        when(inscripcionesRepository.pendientesEnWaitlistPosteriores(evento.getId(),
+                new PendienteEnWaitlist("i2",
+                        nueva.fechaHoraIngresoAWaitlist().minus(InicializacionWaitlistRedisService.VENTANA_RELECTURA))))
+                                .thenAnswer(i -> Stream.of(nueva));
+        when(waitlist.agregarLote(List.of("i1", "i2"), "200000|i2")).thenReturn(1L);
+
+        inicializacion.inicializarWaitlist(evento, waitlist);
+
+        verify(waitlist).agregarLote(List.of("i1", "i2"), "200000|i2");
+        verify(inscripcionesRepository, never()).pendientesEnWaitlistPosteriores(evento.getId(), null);
+    }
+
+    @Test
+    void agregaLaPendienteAnteriorAlCheckpointQueSeGuardoTardeSinRetrocederElCheckpoint() {
+        Instant fechaCheckpoint = Instant.ofEpochMilli(100_000);
+        // Entró a la waitlist antes que la del checkpoint, pero se guardó en Mongo después de que se leyó esa
+        PendienteEnWaitlist guardadaTarde = new PendienteEnWaitlist("i0", fechaCheckpoint.minusSeconds(2));
+        PendienteEnWaitlist ultimaAgregada = new PendienteEnWaitlist("i1", fechaCheckpoint);
+        when(waitlist.checkpoint()).thenReturn(Optional.of("100000|i1"));
+        when(inscripcionesRepository.pendientesEnWaitlistPosteriores(eq(evento.getId()),
+                any(PendienteEnWaitlist.class))).thenAnswer(i -> Stream.of(guardadaTarde, ultimaAgregada));
+        when(waitlist.agregarLote(anyList(), anyString())).thenReturn(1L).thenReturn(0L);
+
+        inicializacion.inicializarWaitlist(evento, waitlist);
+
+        verify(waitlist, atLeastOnce()).agregarLote(List.of("i0", "i1"), "100000|i1");
+        verify(waitlist, never()).agregarLote(anyList(), eq("98000|i0"));
+        verify(flags).setEstadoInicializacion(InicializacionWaitlistRedisService.flagInicializacionCola(evento), LISTO);
+    }
+
+    @Test
+    void siOtraLaEstaInicializandoNoHaceNada() {
+        when(flags.tomarInicializacion(anyString(), any(Duration.class))).thenReturn(false);
+
+        inicializacion.inicializarWaitlist(evento, waitlist);
+
+        verifyNoInteractions(inscripcionesRepository, waitlist);
+    }
+}
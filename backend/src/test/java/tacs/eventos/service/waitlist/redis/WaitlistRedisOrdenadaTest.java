@@ -0,0 +1,181 @@
+package tacs.eventos.service.waitlist.redis;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import tacs.eventos.config.TestMongoConfiguration;
+import tacs.eventos.config.TestRedisConfiguration;
+import tacs.eventos.controller.error.ManejadorDeExcepciones;
+import tacs.eventos.model.RolUsuario;
+import tacs.eventos.model.Usuario;
+import tacs.eventos.model.evento.Evento;
+import tacs.eventos.model.inscripcion.InscripcionEvento;
+import tacs.eventos.repository.evento.EventosRepository;
+import tacs.eventos.repository.inscripcion.InscripcionesRepository;
+import tacs.eventos.service.inscripciones.CupoEventoService;
+import tacs.eventos.service.inscripciones.InscripcionAtomicaRedis;
+import tacs.eventos.service.inscripciones.InscripcionAtomicaRedis.ResultadoReserva;
+import tacs.eventos.service.inscripciones.InscripcionesService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@Import({ TestRedisConfiguration.class, TestMongoConfiguration.class, ManejadorDeExcepciones.class })
+@ActiveProfiles("test")
+@Testcontainers
+class WaitlistRedisOrdenadaTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RedissonClient redisson;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private EventosRepository eventosRepository;
+
+    @Autowired
+    private InscripcionesRepository inscripcionesRepository;
+
+    @Autowired
+    private RedisWaitlistService waitlistService;
+
+    @Autowired
+    private CupoEventoService cupoEventoService;
+
+    @Autowired
+    private InscripcionAtomicaRedis inscripcionAtomica;
+
+    @Autowired
+    private InscripcionesService inscripcionesService;
+
+    private Evento evento;
+
+    @BeforeEach
+    void setUp() {
+        evento = new Evento("Recital", "descripcion", LocalDateTime.now().plusDays(1), 60, "Estadio", 1, 0.0, "Musica");
+        eventosRepository.save(evento);
+        // Deja los cupos y la waitlist en Redis, para que las inscripciones sigan el camino rápido
+        cupoEventoService.inicializarSiFalta(evento);
+        waitlistService.inicializarSiFalta(evento);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.getCollection("eventos").deleteMany(new org.bson.Document());
+        mongoTemplate.getCollection("inscripciones").deleteMany(new org.bson.Document());
+        SecurityContextHolder.clearContext();
+    }
+
+    private WaitlistRedisOrdenada waitlist() {
+        return new WaitlistRedisOrdenada(evento, redisson, inscripcionesRepository);
+    }
+
+    private RScoredSortedSet<String> cola() {
+        return redisson.getScoredSortedSet(RedisWaitlistService.keyCola(evento), StringCodec.INSTANCE);
+    }
+
+    private static Usuario usuario(String email) {
+        return new Usuario(email, "hash", Set.of(RolUsuario.USUARIO));
+    }
+
+    @Test
+    void agregaEnOrdenDeLlegadaYConservaElLugarDeLasQueYaEstaban() {
+        var waitlist = waitlist();
+
+        waitlist.agregar("i1");
+        waitlist.agregar("i2");
+        waitlist.agregar("i3");
+        waitlist.agregar("i1");
+
+        assertEquals(1.0, cola().getScore("i1"));
+        assertEquals(2.0, cola().getScore("i2"));
+        assertEquals(3.0, cola().getScore("i3"));
+        assertEquals(3, waitlist.tamanio());
+        assertEquals(Optional.of(2L), waitlist.posicion("i2"));
+        assertEquals(Optional.empty(), waitlist.posicion("otra"));
+        assertEquals(List.of("i2", "i3"), waitlist.rango(1, 5));
+    }
+
+    @Test
+    void tomaElCupoSoloSiLaWaitlistEstaVacia() {
+        assertEquals(ResultadoReserva.CUPO_OBTENIDO, inscripcionAtomica.reservarCupoOEncolar(evento, "i1"));
+        assertEquals(ResultadoReserva.EN_WAITLIST, inscripcionAtomica.reservarCupoOEncolar(evento, "i2"));
+
+        // Se libera un lugar, pero la waitlist no está vacía: la nueva inscripción no se adelanta a la que espera
+        cupoEventoService.devolverCupo(evento);
+        assertEquals(ResultadoReserva.EN_WAITLIST, inscripcionAtomica.reservarCupoOEncolar(evento, "i3"));
+        assertEquals(List.of("i2", "i3"), waitlist().rango(0, 5));
+
+        // El lugar libre es para la primera que llegó, con su número de llegada
+        assertEquals(Map.of("i2", 1.0), inscripcionAtomica.reservarCuposParaWaitlist(evento, 10));
+        assertEquals(List.of("i3"), waitlist().rango(0, 5));
+    }
+
+    @Test
+    void sinLaWaitlistInicializadaNoTomaCupoNiEncola() {
+        var otroEvento = new Evento("Partido", "descripcion", LocalDateTime.now().plusDays(1), 90, "Cancha", 1, 0.0,
+                "Deportes");
+
+        assertEquals(ResultadoReserva.NO_INICIALIZADO, inscripcionAtomica.reservarCupoOEncolar(otroEvento, "i1"));
+        assertEquals(0, new WaitlistRedisOrdenada(otroEvento, redisson, inscripcionesRepository).tamanio());
+    }
+
+    @Test
+    void devuelvePosicionesEnOrdenDeLlegadaYCancelarSacaDeLaWaitlist() throws Exception {
+        Usuario confirmado = usuario("confirmado@mail.com");
+        Usuario primero = usuario("primero@mail.com");
+        Usuario segundo = usuario("segundo@mail.com");
+
+        assertTrue(inscripcionesService.inscribirOMandarAWaitlist(evento, confirmado).isPresent());
+        assertTrue(inscripcionesService.inscribirOMandarAWaitlist(evento, primero).isEmpty());
+        assertTrue(inscripcionesService.inscribirOMandarAWaitlist(evento, segundo).isEmpty());
+
+        assertEquals(Optional.empty(), inscripcionesService.posicionEnWaitlist(evento, confirmado));
+        assertEquals(Optional.of(1L), inscripcionesService.posicionEnWaitlist(evento, primero));
+        assertEquals(Optional.of(2L), inscripcionesService.posicionEnWaitlist(evento, segundo));
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(segundo, null));
+        mockMvc.perform(get("/api/v1/evento/" + evento.getId() + "/waitlist/posicion")).andExpect(status().isOk())
+                .andExpect(jsonPath("$.posicion").value(2));
+
+        String idPrimero = inscripcionesService.inscripcionNoCancelada(evento, primero).map(InscripcionEvento::getId)
+                .orElseThrow();
+        inscripcionesService.cancelarInscripcion(evento, primero);
+
+        assertNull(cola().getScore(idPrimero));
+        assertEquals(1, waitlist().tamanio());
+        assertEquals(Optional.of(1L), inscripcionesService.posicionEnWaitlist(evento, segundo));
+        mockMvc.perform(get("/api/v1/evento/" + evento.getId() + "/waitlist/posicion")).andExpect(status().isOk())
+                .andExpect(jsonPath("$.posicion").value(1));
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(primero, null));
+        mockMvc.perform(get("/api/v1/evento/" + evento.getId() + "/waitlist/posicion"))
+                .andExpect(status().isNotFound());
+    }
+}